@@ -0,0 +1,76 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ComponentContext access patterns: typed keys vs string keys, int slots and custom keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContextBenchmark {
+
+    private static final ContextKey<String> REGION = ContextKey.of("region.selected", String.class);
+
+    private ComponentContext ctx;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        ctx = new ComponentContext("42");
+        ctx.putInt(ContextKey.PAGE_INDEX, 1);
+        ctx.putInt(ContextKey.TOTAL_PAGES, 3);
+        ctx.put(ContextKey.MESSAGE_ID, "1000");
+        ctx.put(REGION, "EU");
+    }
+
+    @Benchmark
+    public int pageIndexTyped() {
+        ctx.putInt(ContextKey.PAGE_INDEX, ++counter & 3);
+        return ctx.getInt(ContextKey.PAGE_INDEX, 0);
+    }
+
+    @Benchmark
+    public Integer pageIndexString() {
+        ctx.put("pageIndex", ++counter & 3);
+        return ctx.getInt("pageIndex");
+    }
+
+    @Benchmark
+    public String wellKnownTyped() {
+        return ctx.get(ContextKey.MESSAGE_ID);
+    }
+
+    @Benchmark
+    public Object wellKnownString() {
+        return ctx.get("messageId");
+    }
+
+    @Benchmark
+    public String customTyped() {
+        ctx.put(REGION, (++counter & 1) == 0 ? "EU" : "US");
+        return ctx.get(REGION);
+    }
+
+    @Benchmark
+    public Object customString() {
+        ctx.put("region.selected", (++counter & 1) == 0 ? "EU" : "US");
+        return ctx.get("region.selected");
+    }
+}
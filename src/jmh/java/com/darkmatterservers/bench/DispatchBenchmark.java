@@ -0,0 +1,72 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.EclipseBytes;
+import com.darkmatterservers.builder.Buttons;
+import com.darkmatterservers.metrics.InMemoryMetrics;
+import com.darkmatterservers.session.SessionScope;
+import com.darkmatterservers.testkit.FakeDiscord;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Full click path: handleButtonInteraction -> session lookup -> mailbox -> handler ->
+ * render -> outbound scheduler, against FakeDiscord events whose REST calls complete
+ * immediately. Each invocation clicks "next" then "back", so both renders change the page.
+ * {@code metrics=true} measures the same path with {@link InMemoryMetrics} installed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private EclipseBytes bytes;
+    private ButtonInteractionEvent next;
+    private ButtonInteractionEvent back;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        String userId = Long.toString(100_000 + Thread.currentThread().getId());
+        FakeDiscord discord = new FakeDiscord();
+        bytes = new EclipseBytes(new AtomicReference<>());
+        if (metrics) bytes.configureMetrics(new InMemoryMetrics());
+        bytes.startChannelPagedChain(userId, discord.channel("1"), Fixtures.navigationChain("Onboarding"),
+                SessionScope.USER);
+        Thread.sleep(100); // the first send completes on the outbound thread
+
+        String messageId = discord.lastMessageId("1");
+        next = discord.click(userId, "1", messageId, Buttons.ID_NEXT);
+        back = discord.click(userId, "1", messageId, Buttons.ID_BACK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bytes.shutdown();
+    }
+
+    @Benchmark
+    public void clickNextBack() {
+        bytes.handleButtonInteraction(next);
+        bytes.handleButtonInteraction(back);
+    }
+}
@@ -0,0 +1,41 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.builder.Buttons;
+import com.darkmatterservers.builder.Dropdowns;
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared chains for the benchmarks; JDA objects come from the test kit's FakeDiscord.
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    /** Three pages with back/next/done buttons and standard navigation. */
+    static PagedChain navigationChain(String chainId) {
+        PagedChain.Builder b = new PagedChain.Builder().chainId(chainId);
+        for (int i = 0; i < 3; i++) {
+            b.addPage(new Page("Step " + (i + 1), "Pick what suits you best.")
+                    .withButton(0, Buttons.back())
+                    .withButton(1, Buttons.next())
+                    .withButton(2, Buttons.done()));
+        }
+        return b.wireNavigation(Buttons.ID_BACK, Buttons.ID_NEXT, Buttons.ID_DONE).build();
+    }
+
+    /** One page with buttons and a 25-option dropdown. */
+    static PagedChain dropdownChain(String chainId) {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < 25; i++) options.add("Option " + i);
+        return new PagedChain.Builder().chainId(chainId)
+                .addPage(new Page("Choose a region", "You can change this later.")
+                        .withButton(0, Buttons.back())
+                        .withButton(1, Buttons.next())
+                        .withDropdown(Dropdowns.dropdown("region", "Region", options)))
+                .build();
+    }
+}
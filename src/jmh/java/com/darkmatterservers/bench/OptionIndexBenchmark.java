@@ -0,0 +1,88 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.builder.Dropdowns;
+import com.darkmatterservers.builder.OptionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OptionIndex lookups over 1k / 100k options. Queries rotate through far more distinct
+ * strings than the result cache holds, so prefix/substring measure real searches;
+ * cachedWindow is the steady state of a user paging through one query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptionIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "amber", "basalt", "cedar", "dune", "ember", "fjord", "glacier", "harbor", "iris", "jade",
+            "kestrel", "lagoon", "maple", "nebula", "onyx", "prairie", "quartz", "raven", "sierra", "tundra",
+            "umber", "valley", "willow", "xenon", "yarrow", "zephyr"
+    };
+
+    @Param({"1000", "100000"})
+    public int options;
+
+    private OptionIndex index;
+    private String[] prefixes;
+    private String[] substrings;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(7);
+        List<String> names = new ArrayList<>(options);
+        for (int i = 0; i < options; i++) {
+            names.add(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+        }
+        index = OptionIndex.of(names);
+
+        // 4096 queries each, cut from real options; a repeat comes long after the cache evicted it
+        prefixes = new String[4096];
+        substrings = new String[4096];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = names.get(random.nextInt(options));
+            prefixes[i] = name.substring(0, Math.min(name.length(), 2 + i % 6));
+            int from = random.nextInt(name.length() - 3);
+            substrings[i] = name.substring(from, Math.min(name.length(), from + 3 + i % 4));
+        }
+    }
+
+    @Benchmark
+    public int[] prefix() {
+        return index.search(next(prefixes));
+    }
+
+    @Benchmark
+    public int[] substring() {
+        return index.search(next(substrings));
+    }
+
+    @Benchmark
+    public OptionIndex.Window cachedWindow() {
+        return index.window("ember", (cursor++ & 7) * Dropdowns.WINDOW_SIZE, Dropdowns.WINDOW_SIZE);
+    }
+
+    private String next(String[] queries) {
+        return queries[cursor++ & (queries.length - 1)];
+    }
+}
@@ -0,0 +1,67 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.builder.Dropdowns;
+import com.darkmatterservers.builder.PageRenderer;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PageRenderer: cached static pages vs pages whose dropdown depends on the context,
+ * plus the uncached path for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    private PagedChain navigation;
+    private PagedChain dropdown;
+    private ComponentContext emptyCtx;
+    private ComponentContext dynamicCtx;
+
+    @Setup
+    public void setup() {
+        navigation = Fixtures.navigationChain("Onboarding");
+        dropdown = Fixtures.dropdownChain("Regions");
+        emptyCtx = new ComponentContext("42");
+        dynamicCtx = new ComponentContext("42");
+        Dropdowns.overrideOptions(dynamicCtx, "region", List.of("EU West", "EU North", "US East", "US West", "Asia"));
+        Dropdowns.markSelected(dynamicCtx, "region", "US East");
+    }
+
+    @Benchmark
+    public PageRenderer.Rendered staticPage() {
+        return PageRenderer.render(navigation, 1, emptyCtx);
+    }
+
+    @Benchmark
+    public PageRenderer.Rendered staticDropdownPage() {
+        return PageRenderer.render(dropdown, 0, emptyCtx);
+    }
+
+    @Benchmark
+    public PageRenderer.Rendered dynamicDropdownPage() {
+        return PageRenderer.render(dropdown, 0, dynamicCtx);
+    }
+
+    @Benchmark
+    public PageRenderer.Rendered uncachedDropdownPage() {
+        return PageRenderer.render(dropdown.chainId(), 0, dropdown.totalPages(), dropdown.page(0), dynamicCtx);
+    }
+}
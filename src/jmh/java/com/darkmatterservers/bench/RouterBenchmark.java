@@ -0,0 +1,81 @@
+package com.darkmatterservers.bench;
+
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.router.InteractionRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InteractionRouter.handle with 10 / 10k / 100k registered ids: exact hits, a template
+ * route and a miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    @Param({"10", "10000", "100000"})
+    public int routes;
+
+    private String[] ids;
+    private ComponentContext ctx;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InteractionRouter.clear();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // register logs every id
+        try {
+            ids = new String[routes];
+            for (int i = 0; i < routes; i++) {
+                ids[i] = "bench.route." + i;
+                InteractionRouter.register(ids[i], c -> { });
+            }
+            InteractionRouter.register("poll.{pollId}.vote", c -> { });
+        } finally {
+            System.setOut(out);
+        }
+        ctx = new ComponentContext("42");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InteractionRouter.clear();
+    }
+
+    @Benchmark
+    public void exactHit() {
+        int i = cursor++;
+        if (cursor == ids.length) cursor = 0;
+        InteractionRouter.handle(ids[i], ctx);
+    }
+
+    @Benchmark
+    public void templateHit() {
+        InteractionRouter.handle("poll.8812.vote", ctx);
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return InteractionRouter.isRegistered("bench.unknown");
+    }
+}
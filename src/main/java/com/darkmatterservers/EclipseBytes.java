@@ -1,21 +1,88 @@
 package com.darkmatterservers;
 
+import com.darkmatterservers.builder.Dropdowns;
 import com.darkmatterservers.builder.PageRenderer;
 import com.darkmatterservers.chain.Page;
 import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.cluster.ClusterNode;
+import com.darkmatterservers.cluster.ClusterTransport;
+import com.darkmatterservers.cluster.ForwardedInteraction;
+import com.darkmatterservers.cluster.HashRing;
+import com.darkmatterservers.cluster.SessionHandOff;
 import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextCodec;
+import com.darkmatterservers.context.ContextKey;
+import com.darkmatterservers.dispatch.HandlerExecutors;
+import com.darkmatterservers.dispatch.InteractionDedupe;
+import com.darkmatterservers.dm.BulkDmListener;
+import com.darkmatterservers.dm.BulkDmReport;
+import com.darkmatterservers.dm.PrivateChannelResolver;
+import com.darkmatterservers.dispatch.OverflowPolicy;
+import com.darkmatterservers.dispatch.RenderCoalescer;
+import com.darkmatterservers.dispatch.SessionMailbox;
+import com.darkmatterservers.jfr.HandlerExecutedEvent;
+import com.darkmatterservers.jfr.InteractionReceivedEvent;
+import com.darkmatterservers.jfr.PageRenderedEvent;
+import com.darkmatterservers.metrics.EclipseMetrics;
+import com.darkmatterservers.router.AsyncComponentHandler;
+import com.darkmatterservers.router.ComponentHandler;
 import com.darkmatterservers.router.InteractionRouter;
+import com.darkmatterservers.router.RouteTable;
+import com.darkmatterservers.rest.Lane;
+import com.darkmatterservers.rest.OutboundScheduler;
+import com.darkmatterservers.session.EvictionCause;
+import com.darkmatterservers.session.ExpiringSessionStore;
+import com.darkmatterservers.session.HashedTimingWheel;
+import com.darkmatterservers.session.Session;
+import com.darkmatterservers.session.SessionIndex;
+import com.darkmatterservers.session.SessionKey;
+import com.darkmatterservers.session.SessionScope;
+import com.darkmatterservers.session.SessionStore;
+import com.darkmatterservers.shard.Shards;
+import com.darkmatterservers.stateless.StatelessCodec;
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
 import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
-import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IModalCallback;
+import net.dv8tion.jda.api.interactions.modals.ModalMapping;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * EclipseBytes – a thin runtime helper around the paged chain system.
@@ -23,23 +90,264 @@ import java.util.concurrent.atomic.AtomicReference;
 @SuppressWarnings("unused")
 public class EclipseBytes {
 
-    private final JDA jda;
+    private static final Logger log = LoggerFactory.getLogger(EclipseBytes.class);
 
-    /** Simple session store keyed by userId (adjust to messageId/guildId if you prefer). */
-    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Connections for sends that do not answer an event (DMs, channel lookups)
+    private final Shards shards;
+
+    /** Session store keyed by {@link SessionKey#value()} (the bare userId for USER-scoped chains). */
+    private final SessionStore sessions;
+
+    // messageId -> session key and per-user session caps (see configureSessions)
+    private static final int DEFAULT_MAX_SESSIONS_PER_USER = 25;
+    private final SessionIndex index = new SessionIndex(DEFAULT_MAX_SESSIONS_PER_USER);
+    private volatile SessionScope channelScope = SessionScope.USER;
+
+    // Per-session dispatch settings (see configureDispatch)
+    private volatile int mailboxCapacity = 8;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+    private volatile Executor dispatchExecutor = SessionMailbox.DIRECT;
+
+    // Mailbox coalesce key for deferred renders (cannot clash with a component id)
+    private static final String RENDER_KEY = "\u0000render";
+
+    // Render debouncing for click bursts (see configureRenderCoalescing)
+    private volatile RenderCoalescer coalescer = RenderCoalescer.DISABLED;
+
+    // Replay filter for interactions re-delivered after a gateway resume (see configureDedupe)
+    private volatile InteractionDedupe dedupe = new InteractionDedupe(1 << 16, Duration.ofMinutes(15));
+
+    // Outbound REST shaping (see configureOutbound)
+    private volatile OutboundScheduler outbound = OutboundScheduler.builder().build();
+
+    // DM channel lookups (LRU of userId -> opened channel, ~0.5 KB each) and bulk launch pacing
+    private static final int DM_CHANNEL_CACHE_SIZE = 10_000;
+    private static final int BULK_DM_IN_FLIGHT = 32;
+    private final PrivateChannelResolver dmChannels;
+
+    // Stateless chains (see configureStateless): signing codec and chains by chainId
+    private volatile StatelessCodec statelessCodec;
+    private final Map<String, PagedChain> statelessChains = new ConcurrentHashMap<>();
+
+    // Cluster mode (see configureCluster): session ownership, chains by chainId for hand-offs
+    private volatile ClusterNode cluster;
+    private volatile Function<String, PagedChain> clusterChains;
+    private final Consumer<HashRing> rebalancer = ring -> rebalance();
+
+    // Mailbox coalesce key for moving a session to another node
+    private static final String HANDOFF_KEY = "\u0000handoff";
+
+    // Hot-path measurements (see configureMetrics)
+    private volatile EclipseMetrics metrics = EclipseMetrics.NOOP;
+
+    // Async handler settings (see configureAsyncHandlers)
+    private volatile Executor handlerExecutor = HandlerExecutors.defaultExecutor();
+    private volatile boolean ownsHandlerExecutor = true; // only the default one is ours to shut down
+    private volatile Duration asyncTimeout = Duration.ofSeconds(10);
+    private volatile Page asyncFallbackPage = new Page("⏳ This is taking longer than expected.", "Please try again in a moment.");
+    private volatile HashedTimingWheel asyncTimeouts; // created on the first async dispatch
 
     public EclipseBytes(@NotNull AtomicReference<JDA> jdaRef) {
-        this.jda = jdaRef.get();
+        this(jdaRef, ExpiringSessionStore.builder().build());
+    }
+
+    /**
+     * Runs on every shard of the manager: DMs open on shard 0, channel lookups search all
+     * shards, and each click is answered on the shard that delivered it. The default store
+     * gets 4 lock stripes per shard (at least 16), so shards rarely contend on session state.
+     */
+    public EclipseBytes(@NotNull ShardManager shardManager) {
+        this(shardManager, ExpiringSessionStore.builder()
+                .stripes(Math.max(16, 4 * shardManager.getShardsTotal()))
+                .build());
+    }
+
+    /** A sharded runtime with a custom session store (see {@link #EclipseBytes(AtomicReference, SessionStore)}). */
+    public EclipseBytes(@NotNull ShardManager shardManager, @NotNull SessionStore sessions) {
+        this(Shards.of(shardManager), sessions);
+    }
+
+    /**
+     * Use a custom session store, e.g. to tune size/TTL limits, to persist sessions across
+     * restarts ({@link com.darkmatterservers.session.FileSessionStore}) or to edit stale chain
+     * messages from an eviction listener (see {@link #expireChainMessage(Session, String)}).
+     */
+    public EclipseBytes(@NotNull AtomicReference<JDA> jdaRef, @NotNull SessionStore sessions) {
+        this(Shards.single(jdaRef), sessions);
+    }
+
+    /**
+     * Runs on any set of connections. Shards are looked up per send, never cached, so a
+     * shard restarted by its manager is used as soon as it is back, and sessions (which hold
+     * no JDA) carry on across the restart.
+     */
+    public EclipseBytes(@NotNull Shards shards, @NotNull SessionStore sessions) {
+        this.shards = Objects.requireNonNull(shards, "shards");
+        this.sessions = Objects.requireNonNull(sessions, "sessions");
+        sessions.addEvictionListener(index);
+        sessions.addEvictionListener((key, session, cause) -> metrics.sessionEvicted(cause));
+        this.dmChannels = new PrivateChannelResolver(shards::forDms, () -> outbound, DM_CHANNEL_CACHE_SIZE);
+    }
+
+    /** The connections this runtime sends through. */
+    public Shards shards() {
+        return shards;
+    }
+
+    /**
+     * Sets the scope used by {@link #startChannelPagedChain(String, MessageChannel, PagedChain)}
+     * (default USER: one chain per user) and how many chains one user may run at once
+     * (default 25). Beyond the cap, the user's oldest chain is closed.
+     */
+    public void configureSessions(@NotNull SessionScope channelScope, int maxSessionsPerUser) {
+        this.channelScope = Objects.requireNonNull(channelScope, "channelScope");
+        index.maxPerUser(maxSessionsPerUser);
+    }
+
+    /**
+     * Tunes per-session dispatch. Interactions for one session always run one at a time;
+     * this sets how many may queue behind the running one, what happens beyond that, and
+     * where queued work runs (default: on the JDA thread that delivered the first click).
+     * Applies to sessions dispatched for the first time after the call.
+     */
+    public void configureDispatch(int queueCapacity, @NotNull OverflowPolicy policy, @NotNull Executor executor) {
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be > 0");
+        this.mailboxCapacity = queueCapacity;
+        this.overflowPolicy = Objects.requireNonNull(policy, "policy");
+        this.dispatchExecutor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Tunes {@link AsyncComponentHandler} execution: where handlers run (default: virtual
+     * threads when available, else a cached daemon pool), how long to wait for one that
+     * declares no timeout of its own, and the page rendered when a handler times out
+     * (shown with the current page's components so the user can retry).
+     * An executor passed here stays the caller's: the runtime never shuts it down.
+     */
+    public void configureAsyncHandlers(@NotNull Executor executor, @NotNull Duration defaultTimeout, @NotNull Page fallbackPage) {
+        if (defaultTimeout.isZero() || defaultTimeout.isNegative()) throw new IllegalArgumentException("defaultTimeout must be > 0");
+        Objects.requireNonNull(executor, "executor");
+        Executor previous = this.handlerExecutor;
+        boolean ownedPrevious = ownsHandlerExecutor;
+        this.handlerExecutor = executor;
+        this.ownsHandlerExecutor = ownedPrevious && previous == executor;
+        this.asyncTimeout = defaultTimeout;
+        this.asyncFallbackPage = Objects.requireNonNull(fallbackPage, "fallbackPage");
+        // Only the default executor is the runtime's; a caller-supplied one is the caller's to shut down
+        if (ownedPrevious && previous != executor && previous instanceof ExecutorService owned) owned.shutdown();
+    }
+
+    /**
+     * Coalesces re-renders during bursts of clicks on one session. Every handler still runs,
+     * in order, and every click is acked right away; but within a burst only the first click
+     * and the final state once no click came in for {@code windowMillis} are rendered.
+     * 0 disables coalescing (the default: every click re-renders).
+     */
+    public void configureRenderCoalescing(long windowMillis) {
+        if (windowMillis < 0) throw new IllegalArgumentException("windowMillis must be >= 0");
+        RenderCoalescer previous = this.coalescer;
+        this.coalescer = windowMillis == 0 ? RenderCoalescer.DISABLED : new RenderCoalescer(Duration.ofMillis(windowMillis));
+        previous.shutdown();
+    }
+
+    /**
+     * Replaces the filter that drops interactions seen before (by snowflake ID) and ones too
+     * old to answer. The default remembers 65,536 IDs for 15 minutes, the lifetime of an
+     * interaction token; {@link InteractionDedupe#DISABLED} turns it off.
+     */
+    public void configureDedupe(@NotNull InteractionDedupe dedupe) {
+        this.dedupe = Objects.requireNonNull(dedupe, "dedupe");
+    }
+
+    /**
+     * Replaces the outbound scheduler that paces every message send and edit, e.g. to tune
+     * bucket limits or to run against a fake REST transport. The previous one is shut down.
+     */
+    public void configureOutbound(@NotNull OutboundScheduler scheduler) {
+        OutboundScheduler previous = this.outbound;
+        this.outbound = Objects.requireNonNull(scheduler, "scheduler");
+        scheduler.metrics(metrics);
+        if (previous != scheduler) previous.shutdown();
+    }
+
+    /**
+     * Reports dispatch latency per route, handler/render/REST times, session counts and
+     * dropped interactions, e.g. to {@link com.darkmatterservers.metrics.InMemoryMetrics} or
+     * {@link com.darkmatterservers.metrics.MicrometerMetrics}. {@link EclipseMetrics#NOOP}
+     * (the default) turns measuring off entirely.
+     */
+    public void configureMetrics(@NotNull EclipseMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        outbound.metrics(metrics);
+        metrics.activeSessions(sessions::size);
+    }
+
+    /**
+     * Enables stateless chains, signing their component IDs with the secret (at least 16
+     * bytes). Every node that should serve clicks needs the same secret and must register
+     * the same chains ({@link #registerStatelessChain(PagedChain)}). Only the user a chain
+     * was started for can click it, for {@link StatelessCodec#DEFAULT_TTL} after its last render.
+     */
+    public void configureStateless(@NotNull byte[] secret) {
+        configureStateless(secret, StatelessCodec.DEFAULT_TTL);
+    }
+
+    /** Like {@link #configureStateless(byte[])}, with IDs honoured for {@code ttl} after each render. */
+    public void configureStateless(@NotNull byte[] secret, @NotNull Duration ttl) {
+        this.statelessCodec = new StatelessCodec(secret, ttl);
+    }
+
+    /** Makes a stateless chain resolvable for clicks on this node (by its chainId). */
+    public void registerStatelessChain(@NotNull PagedChain chain) {
+        if (!chain.isStateless()) throw new IllegalArgumentException("Chain '" + chain.chainId() + "' is not stateless");
+        statelessChains.put(chain.chainId(), chain);
+    }
+
+    /**
+     * Enables cluster mode: several processes of one bot serve its clicks, and each session
+     * belongs to the node its user hashes to on the cluster's ring (all of a user's sessions
+     * live on one node, so a click is routed before knowing which of them it hits). A click
+     * for a session this node does not hold is acked here and forwarded to the owner, which
+     * answers it through the interaction token. When membership changes, sessions move to
+     * their new owners; chains are resolved there by chainId, so every node must know the
+     * same chains. Handlers of forwarded clicks see no rawEvent.
+     */
+    public void configureCluster(@NotNull ClusterNode cluster, @NotNull Function<String, PagedChain> chains) {
+        this.clusterChains = Objects.requireNonNull(chains, "chains");
+        ClusterNode previous = this.cluster;
+        if (previous != null) leaveTransport(previous);
+        this.cluster = Objects.requireNonNull(cluster, "cluster");
+        cluster.transport().bind(cluster.self(), new ClusterTransport.Receiver() {
+            @Override
+            public void onInteraction(ForwardedInteraction interaction) {
+                receive(interaction);
+            }
+
+            @Override
+            public void onHandOff(SessionHandOff handOff) {
+                adopt(handOff);
+            }
+        });
+        cluster.addMembershipListener(rebalancer);
+        rebalance(); // sessions started before joining
     }
 
     public void init() {
-        System.out.println("✅ EclipseBytes initialized.");
+        log.info("EclipseBytes initialized");
     }
 
     public void shutdown() {
-        sessions.clear();
+        ClusterNode c = cluster;
+        if (c != null) leaveTransport(c);
+        sessions.close();
+        index.clear();
         InteractionRouter.clear();
-        System.out.println("🧹 EclipseBytes shutdown complete.");
+        coalescer.shutdown();
+        outbound.shutdown();
+        if (ownsHandlerExecutor && handlerExecutor instanceof ExecutorService owned) owned.shutdown();
+        HashedTimingWheel timeouts = asyncTimeouts;
+        if (timeouts != null) timeouts.close();
+        log.info("EclipseBytes shutdown complete");
     }
 
     // ---------------------------
@@ -49,12 +357,16 @@ public class EclipseBytes {
     /** Send a plain DM (not part of a chain). */
     public void sendPrivateMessage(String userId, String content) {
         if (validateJdaAndUser(userId)) return;
-        jda.retrieveUserById(userId).queue(user ->
-                user.openPrivateChannel().queue(channel -> {
-                    channel.sendMessage(content).queue();
-                    System.out.println("✅ Sent plain DM to user: " + user.getAsTag());
-                })
-        );
+        dmChannels.resolve(userId, Lane.BULK)
+                .thenCompose(channel -> outbound.submit(channelRoute(channel.getId()), Lane.BULK, null, channel.sendMessage(content)))
+                .whenComplete((msg, err) -> {
+                    if (err == null) {
+                        log.debug("Sent plain DM to user {}", userId);
+                    } else {
+                        dmChannels.forget(userId);
+                        reportFailure("send DM to " + userId, err);
+                    }
+                });
     }
 
     /**
@@ -63,32 +375,152 @@ public class EclipseBytes {
      */
     public void startDmPagedChain(String userId, PagedChain chain) {
         if (validateJdaAndUser(userId)) return;
+        startDm(userId, chain, Lane.NORMAL).whenComplete((msg, err) -> {
+            if (err != null) reportFailure("start DM chain for user " + userId, err);
+        });
+    }
 
-        ComponentContext ctx = new ComponentContext(userId);
-        ctx.put("pageIndex", 0);
-        ctx.put("totalPages", chain.totalPages());
+    /** {@link #startDmPagedChains(Collection, PagedChain, BulkDmListener)} without a progress listener. */
+    public CompletableFuture<BulkDmReport> startDmPagedChains(Collection<String> userIds, PagedChain chain) {
+        return startDmPagedChains(userIds, chain, BulkDmListener.NONE);
+    }
 
-        Session session = new Session(chain, ctx);
-        sessions.put(userId, session);
+    /**
+     * Starts the chain in the DMs of many users, e.g. onboarding after an event.
+     * <p>
+     * DM channels come from a userId -> channel LRU and JDA's caches where possible, so a
+     * repeat launch costs one send per user instead of user lookup + channel open + send.
+     * At most a small window of users is in flight at once, all on the BULK lane of the
+     * outbound scheduler, so interactive clicks keep priority while the launch drains.
+     * Duplicate ids are launched once; users that cannot be reached lose their session.
+     *
+     * @return completes once every user was either reached or failed
+     */
+    public CompletableFuture<BulkDmReport> startDmPagedChains(Collection<String> userIds, PagedChain chain, @NotNull BulkDmListener listener) {
+        Objects.requireNonNull(chain, "chain");
+        Objects.requireNonNull(listener, "listener");
+        if (shards.forDms() == null) return CompletableFuture.failedFuture(new IllegalStateException("JDA is null"));
 
-        jda.retrieveUserById(userId).queue(user ->
-                user.openPrivateChannel().queue(channel -> renderCurrentPage(session, channel))
-        );
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        ids.removeIf(id -> id == null || id.isBlank());
+        int total = ids.size();
+
+        Collection<String> sent = new ConcurrentLinkedQueue<>();
+        Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        CompletableFuture<BulkDmReport> result = new CompletableFuture<>();
+        if (total == 0) {
+            result.complete(new BulkDmReport(0, List.of(), Map.of()));
+            return result;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        BiConsumer<String, Throwable> finished = (userId, err) -> {
+            int d = done.incrementAndGet();
+            try {
+                if (err == null) {
+                    sent.add(userId);
+                    listener.onSent(userId, d, total);
+                } else {
+                    Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                    failed.put(userId, cause);
+                    listener.onFailed(userId, cause, d, total);
+                }
+            } catch (Throwable t) {
+                log.error("Bulk DM listener failed", t);
+            }
+            if (d == total) result.complete(new BulkDmReport(total, List.copyOf(sent), Map.copyOf(failed)));
+        };
+        // One pump per in-flight slot. Launches that finish synchronously (bad ids, rejected
+        // sends) are handled in the loop rather than by recursing from their callback, so a
+        // long run of them cannot overflow the stack.
+        Runnable[] pump = new Runnable[1];
+        pump[0] = () -> {
+            while (true) {
+                int i = next.getAndIncrement();
+                if (i >= total) return;
+                String userId = ids.get(i);
+                CompletableFuture<Message> launch = startDm(userId, chain, Lane.BULK);
+                if (launch.isDone()) {
+                    finished.accept(userId, launch.isCompletedExceptionally() ? failure(launch) : null);
+                    continue;
+                }
+                launch.whenComplete((msg, err) -> {
+                    finished.accept(userId, err);
+                    pump[0].run();
+                });
+                return;
+            }
+        };
+        for (int i = 0; i < Math.min(BULK_DM_IN_FLIGHT, total); i++) pump[0].run();
+        return result;
     }
 
     /**
      * Start a paged chain in any channel (e.g., a guild text channel).
-     * Session is still keyed by userId; adjust if you want guild+channel scoping.
+     * Uses the scope set by {@link #configureSessions(SessionScope, int)} (default USER).
      */
     public void startChannelPagedChain(String userId, MessageChannel channel, PagedChain chain) {
+        startChannelPagedChain(userId, channel, chain, channelScope);
+    }
+
+    /**
+     * Start a paged chain in any channel with an explicit scope: e.g. USER_CHANNEL lets a
+     * user run one wizard per channel, MESSAGE lets them run any number of polls side by side.
+     * Clicks always reach the session of the message they were made on.
+     */
+    public void startChannelPagedChain(String userId, MessageChannel channel, PagedChain chain, @NotNull SessionScope scope) {
         ComponentContext ctx = new ComponentContext(userId);
-        ctx.put("pageIndex", 0);
-        ctx.put("totalPages", chain.totalPages());
+        ctx.putInt(ContextKey.PAGE_INDEX, 0);
+        ctx.putInt(ContextKey.TOTAL_PAGES, chain.totalPages());
 
+        String guildId = channel instanceof GuildChannel gc ? gc.getGuild().getId() : null;
+        if (guildId != null) ctx.put(ContextKey.GUILD_ID, guildId); // per-guild option scopes
+        SessionKey key = SessionKey.of(scope, userId, channel.getId(), guildId);
         Session session = new Session(chain, ctx);
-        sessions.put(userId, session);
+        open(key, session);
+
+        sendChainMessage(key, session, channel, Lane.NORMAL).whenComplete((msg, err) -> {
+            if (err == null) return;
+            reportFailure("send chain message to channel " + channel.getId(), err);
+            close(key.value(), session); // frees the user's cap slot; the key is still the one opened
+        });
+    }
+
+    /**
+     * Sends page 1 of a stateless chain to the channel. No session is stored: each click
+     * carries the page index and the chain's state keys in its signed custom ID, so any
+     * node with the same secret and chain registration can serve it.
+     */
+    public void startStatelessChain(String userId, MessageChannel channel, PagedChain chain) {
+        registerStatelessChain(chain);
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.putInt(ContextKey.PAGE_INDEX, 0);
+        ctx.putInt(ContextKey.TOTAL_PAGES, chain.totalPages());
+
+        sendChainMessage(null, new Session(chain, ctx), channel, Lane.NORMAL).whenComplete((msg, err) -> {
+            if (err != null) reportFailure("send stateless chain message to channel " + channel.getId(), err);
+        });
+    }
+
+    /**
+     * Replaces a chain message with a short notice and strips its components.
+     * Intended for eviction listeners; does nothing if the message was never sent.
+     */
+    public void expireChainMessage(Session session, String notice) {
+        ComponentContext ctx = session.ctx();
+        String messageId = ctx.get(ContextKey.MESSAGE_ID);
+        String channelId = ctx.get(ContextKey.CHANNEL_ID);
+        if (messageId == null || channelId == null) return;
 
-        renderCurrentPage(session, channel);
+        MessageChannel channel = shards.channel(channelId);
+        if (channel == null) return;
+
+        outbound.submit(channelRoute(channelId), Lane.BULK, renderKey(messageId),
+                        channel.editMessageById(messageId, notice).setEmbeds(List.of()).setComponents(List.of()))
+                .whenComplete((msg, err) -> {
+                    if (err != null) reportFailure("expire chain message " + messageId, err);
+                });
     }
 
     // ---------------------------
@@ -97,108 +529,807 @@ public class EclipseBytes {
 
     /** Handle dropdown (StringSelect) interactions. */
     public void handleDropdownInteraction(StringSelectInteractionEvent event) {
-        String userId = event.getUser().getId();
-        Session session = sessions.get(userId);
-        if (session == null) {
-            event.deferEdit().queue();
-            return; // No active chain
-        }
-
-        String componentId = event.getComponentId();
+        if (replayed(event.getIdLong())) return;
+        InteractionReceivedEvent.emit(event.getComponentId(), event.getUser().getIdLong(), "select");
         String selected = event.getValues().isEmpty() ? null : event.getValues().get(0);
+        BiConsumer<ComponentContext, String> prepare = (ctx, componentId) -> {
+            ctx.put(ContextKey.VALUE, selected);              // legacy-friendly
+            ctx.put(ContextKey.INTERACTION_VALUE, selected);  // modern-friendly
+            ctx.put(ContextKey.RAW_EVENT, event);
+        };
+        if (StatelessCodec.isStateless(event.getComponentId())) {
+            dispatchStateless(event, prepare);
+            return;
+        }
 
-        ComponentContext ctx = session.ctx();
-        ctx.put("value", selected);              // legacy-friendly
-        ctx.put("interactionValue", selected);   // modern-friendly
-        ctx.put("rawEvent", event);
-
-        InteractionRouter.handle(componentId, ctx);
-        event.deferEdit().queue();
-
-        // Re-render (MessageChannelUnion implements MessageChannel in JDA 5)
-        renderPostInteraction(userId, event.getChannel());
+        Found found = findSession(event);
+        if (found == null) {
+            if (Dropdowns.WINDOW_SEARCH.equals(selected) && !owns(event.getUser().getId())) {
+                // The modal has to answer this very interaction, so it opens here; its submission is forwarded
+                outbound.submit(null, Lane.INTERACTIVE, null, event.replyModal(Dropdowns.searchModal(event.getComponentId(), null)));
+                return;
+            }
+            if (forward(event, ForwardedInteraction.Kind.SELECT, event.getMessageId(), event.getComponentId(), event.getValues())) return;
+            metrics.noSession();
+            ack(event);
+            return; // No active chain
+        }
+        dispatch(found.key(), found.session(), Click.of(event), event.getComponentId(), prepare);
     }
 
     /** Handle button interactions. */
     public void handleButtonInteraction(ButtonInteractionEvent event) {
-        String userId = event.getUser().getId();
-        Session session = sessions.get(userId);
-        if (session == null) {
-            event.deferEdit().queue();
-            return; // No active chain
+        if (replayed(event.getIdLong())) return;
+        InteractionReceivedEvent.emit(event.getComponentId(), event.getUser().getIdLong(), "button");
+        BiConsumer<ComponentContext, String> prepare = (ctx, componentId) -> {
+            ctx.put(ContextKey.BUTTON_ID, componentId);
+            ctx.put(ContextKey.RAW_EVENT, event);
+        };
+        if (StatelessCodec.isStateless(event.getComponentId())) {
+            dispatchStateless(event, prepare);
+            return;
         }
 
-        String componentId = event.getComponentId();
-        ComponentContext ctx = session.ctx();
-        ctx.put("buttonId", componentId);
-        ctx.put("rawEvent", event);
+        Found found = findSession(event);
+        if (found == null) {
+            if (forward(event, ForwardedInteraction.Kind.BUTTON, event.getMessageId(), event.getComponentId(), List.of())) return;
+            metrics.noSession();
+            ack(event);
+            return; // No active chain
+        }
+        dispatch(found.key(), found.session(), Click.of(event), event.getComponentId(), prepare);
+    }
 
-        InteractionRouter.handle(componentId, ctx);
-        event.deferEdit().queue();
+    /**
+     * Handle submissions of the search modal opened from a searchable dropdown; other modals
+     * are ignored, so this can sit in front of the bot's own modal handling.
+     */
+    public void handleModalInteraction(ModalInteractionEvent event) {
+        String dropdownId = Dropdowns.searchModalTarget(event.getModalId());
+        if (dropdownId == null) return; // not ours
+        if (replayed(event.getIdLong())) return;
+        InteractionReceivedEvent.emit(event.getModalId(), event.getUser().getIdLong(), "modal");
 
-        renderPostInteraction(userId, event.getChannel());
+        ModalMapping input = event.getValue(Dropdowns.SEARCH_INPUT);
+        String query = input != null ? input.getAsString() : null;
+        Message message = event.getMessage();
+        String guildId = event.getGuild() != null ? event.getGuild().getId() : null;
+        Found found = message == null ? null : findSession(event.getUser().getId(), message.getId(),
+                event.getChannel().getId(), guildId);
+        if (found == null) {
+            if (message != null && forward(event, ForwardedInteraction.Kind.SEARCH, message.getId(), dropdownId,
+                    query != null ? List.of(query) : List.of())) return;
+            metrics.noSession();
+            outbound.submit(null, Lane.INTERACTIVE, null, event.deferEdit());
+            return;
+        }
+        search(found, new Click(event, null, message.getId(), event.getChannel().getId(), guildId, null), dropdownId, query);
     }
 
     // ---------------------------
     // Internals
     // ---------------------------
 
-    private void renderPostInteraction(String userId, MessageChannel channel) {
-        Session session = sessions.get(userId);
-        if (session == null) return;
+    /**
+     * True if the interaction was handled before (a gateway replay) or is too old to answer.
+     * Such interactions get no response at all: the first delivery already gave one.
+     */
+    private boolean replayed(long interactionId) {
+        if (dedupe.firstSeen(interactionId)) return false;
+        metrics.duplicateInteraction();
+        log.debug("Dropped replayed or expired interaction {}", interactionId);
+        return true;
+    }
+
+    /**
+     * Runs the handler and the re-render through the session's mailbox, so clicks for the
+     * same session never overlap. Dropped clicks (queue overflow) are still acked.
+     */
+    private void dispatch(String key, Session session, Click click, String componentId,
+                          BiConsumer<ComponentContext, String> prepare) {
+        EclipseMetrics m = metrics;
+        long arrived = m.enabled() ? System.nanoTime() : 0L;
+        session.mailbox(this::newMailbox).submitAsync(componentId, () -> {
+            ComponentContext ctx = session.ctx();
+            if (ctx.isComplete()) {
+                ack(click); // chain finished by an earlier click in the queue
+                return null;
+            }
+            if (windowControl(key, session, click, componentId)) return null;
+            prepare.accept(ctx, componentId);
+
+            RouteTable.RouteMatch match = session.chain().match(componentId);
+            ComponentHandler handler = match != null ? match.handler() : null;
+            ctx.routeParams(match != null ? match.params() : null);
+            String route = match != null ? match.route() : null;
+            if (handler instanceof AsyncComponentHandler async) {
+                return dispatchAsync(key, session, click, componentId, async, m, route, arrived);
+            }
+            long started = m.enabled() ? System.nanoTime() : 0L;
+            if (handler != null) {
+                HandlerExecutedEvent jfr = new HandlerExecutedEvent();
+                jfr.begin();
+                try {
+                    handler.handle(ctx);
+                } catch (RuntimeException e) {
+                    // Like a failed async handler: still answer the click with the current page
+                    log.warn("Handler failed for {}", componentId, e);
+                }
+                jfr.commit(route, session.chain().chainId(), false);
+            } else {
+                m.noHandler(componentId);
+                log.atDebug().setMessage("No handler found").addKeyValue("componentId", componentId)
+                        .addKeyValue("chainId", () -> session.chain().chainId()).log();
+            }
+            long handled = m.enabled() ? System.nanoTime() : 0L;
+            // Re-render in place; the edit doubles as the interaction ack
+            render(key, session, click, click.acked());
+            if (m.enabled()) {
+                long now = System.nanoTime();
+                m.dispatched(route, now - arrived, handled - started, now - handled);
+            }
+            return null;
+        }, () -> ack(click));
+    }
+
+    /**
+     * Handles the navigation entries of a searchable dropdown in place of its handler:
+     * previous/more/clear move the window and re-render, search answers with the search modal.
+     * Returns false for real picks.
+     */
+    private boolean windowControl(String key, Session session, Click click, String dropdownId) {
+        String value = click.value();
+        if (!Dropdowns.isWindowControl(value)) return false;
+
+        ComponentContext ctx = session.ctx();
+        if (Dropdowns.applyWindowControl(ctx, dropdownId, value)) {
+            render(key, session, click, click.acked());
+        } else if (Dropdowns.WINDOW_SEARCH.equals(value) && !session.chain().isStateless()
+                && click.callback() instanceof IModalCallback modal) {
+            outbound.submit(null, Lane.INTERACTIVE, null,
+                    modal.replyModal(Dropdowns.searchModal(dropdownId, ctx.getString(dropdownId + ".query"))));
+        } else {
+            ack(click); // the modal's answer could not find a stateless chain again
+        }
+        return true;
+    }
+
+    /**
+     * Verifies a stateless custom ID, rebuilds the context it carries and dispatches it
+     * through a throwaway session that is never stored. Forged, expired, stale-secret or
+     * unknown-chain IDs, and clicks by anyone but the chain's user, are acked and ignored.
+     */
+    private void dispatchStateless(GenericComponentInteractionCreateEvent event, BiConsumer<ComponentContext, String> prepare) {
+        StatelessCodec codec = statelessCodec;
+        StatelessCodec.State state = codec != null ? codec.decode(event.getComponentId(), event.getUser().getId()) : null;
+        PagedChain chain = state != null ? statelessChains.get(state.chainId()) : null;
+        if (chain == null) {
+            log.atDebug().setMessage("Rejected stateless component (bad signature, expired, other user or unknown chain)")
+                    .addKeyValue("componentId", event::getComponentId).log();
+            metrics.noSession();
+            ack(event);
+            return;
+        }
+
+        String userId = event.getUser().getId();
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.putInt(ContextKey.TOTAL_PAGES, chain.totalPages());
+        ctx.putInt(ContextKey.PAGE_INDEX, chain.clampIndex(state.pageIndex()));
+        ctx.put(ContextKey.MESSAGE_ID, event.getMessageId());
+        ctx.put(ContextKey.CHANNEL_ID, event.getChannel().getId());
+        if (event.getGuild() != null) ctx.put(ContextKey.GUILD_ID, event.getGuild().getId());
+        List<String> keys = chain.stateKeys();
+        List<String> values = state.values();
+        for (int i = 0; i < values.size() && i < keys.size(); i++) {
+            if (values.get(i) != null) ctx.put(keys.get(i), values.get(i));
+        }
+
+        dispatch(userId, new Session(chain, ctx), Click.of(event), state.componentId(), prepare);
+    }
+
+    /**
+     * Acks right away, runs the handler on the handler executor and re-renders through the
+     * interaction hook when it completes, or renders the fallback page once it times out.
+     * A handler the executor rejects (overload, shutdown) gets the fallback page as well;
+     * one that fails re-renders the current page, so the click is always answered.
+     */
+    private CompletionStage<Void> dispatchAsync(String key, Session session, Click click, String componentId,
+                                                AsyncComponentHandler handler, EclipseMetrics m, String route, long arrived) {
+        ack(click);
+
+        ComponentContext ctx = session.ctx();
+        long started = m.enabled() ? System.nanoTime() : 0L;
+        HandlerExecutedEvent jfr = new HandlerExecutedEvent();
+        jfr.begin();
+        CompletableFuture<Void> running;
+        try {
+            Duration timeout = handler.timeout() != null ? handler.timeout() : asyncTimeout;
+            running = CompletableFuture
+                    .supplyAsync(() -> handler.handleAsync(ctx), handlerExecutor)
+                    .thenCompose(stage -> stage);
+            CompletableFuture<Void> timed = running;
+            HashedTimingWheel.Timeout expiry = asyncTimeouts().schedule(
+                    () -> expire(timed), timeout.toNanos(), TimeUnit.NANOSECONDS);
+            running.whenComplete((ok, err) -> expiry.cancel());
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        return running
+                .handle((ignored, err) -> {
+                    long handled = m.enabled() ? System.nanoTime() : 0L;
+                    jfr.commit(route, session.chain().chainId(), true);
+                    Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                    if (cause instanceof TimeoutException || cause instanceof RejectedExecutionException) {
+                        if (cause instanceof RejectedExecutionException) log.warn("Async handler for {} was rejected", componentId, cause);
+                        renderFallback(session, click);
+                    } else {
+                        if (cause != null) {
+                            log.warn("Async handler failed for {}", componentId, cause);
+                        }
+                        render(key, session, click, true);
+                    }
+                    if (m.enabled()) {
+                        long now = System.nanoTime();
+                        m.dispatched(route, now - arrived, handled - started, now - handled);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Times out an async handler from the timing wheel. The wheel thread only hands the
+     * timeout over: completing the stage runs the fallback render, metrics and the mailbox's
+     * next drain, which belong on the handler executor (or, once that is shut down, here).
+     */
+    private void expire(CompletableFuture<Void> running) {
+        if (running.isDone()) return;
+        try {
+            handlerExecutor.execute(() -> running.completeExceptionally(new TimeoutException()));
+        } catch (RejectedExecutionException e) {
+            running.completeExceptionally(new TimeoutException());
+        }
+    }
+
+    /**
+     * One timing wheel for all async handler timeouts: a pending click costs an O(1) entry
+     * instead of a scheduled task per click. A handler that finishes only flags its entry
+     * as cancelled; the wheel unlinks it when the entry's bucket next comes round.
+     */
+    private HashedTimingWheel asyncTimeouts() {
+        HashedTimingWheel w = asyncTimeouts;
+        if (w == null) {
+            synchronized (this) {
+                w = asyncTimeouts;
+                if (w == null) asyncTimeouts = w = new HashedTimingWheel(50, TimeUnit.MILLISECONDS, 512, "eclipsebytes-async-timeouts");
+            }
+        }
+        return w;
+    }
 
+    private SessionMailbox newMailbox() {
+        Executor executor = dispatchExecutor;
+        // With the direct executor, drains after async handlers resume on the (current) handler executor
+        return new SessionMailbox(mailboxCapacity, overflowPolicy, executor,
+                executor == SessionMailbox.DIRECT ? r -> handlerExecutor.execute(r) : executor);
+    }
+
+    /**
+     * Re-renders now, or, inside a click burst, acks and leaves the render to a trailing
+     * mailbox task that only runs if no later click superseded it.
+     */
+    private void render(String key, Session session, Click click, boolean acked) {
+        RenderCoalescer c = coalescer;
+        RenderCoalescer.Burst burst = session.renderBurst();
         if (session.ctx().isComplete()) {
-            channel.sendMessage("✅ Setup complete!").queue();
-            sessions.remove(userId);
+            c.cancel(burst);
+            renderPostInteraction(key, session, click, acked);
+            return;
+        }
+
+        boolean now = c.request(burst, seq -> session.mailbox(this::newMailbox).submit(RENDER_KEY, () -> {
+            if (burst.isCurrent(seq) && !session.ctx().isComplete()) {
+                renderPostInteraction(key, session, click, true); // acked when it was deferred
+            }
+        }, null));
+
+        if (now) {
+            renderPostInteraction(key, session, click, acked);
+        } else if (!acked) {
+            ack(click);
+        }
+    }
+
+    /**
+     * Re-renders the chain message in place after an interaction.
+     * If the click was not acked yet, the edit is the interaction response itself (one REST call);
+     * otherwise the original message is edited through the interaction hook.
+     */
+    private void renderPostInteraction(String key, Session session, Click click, boolean acked) {
+        ComponentContext ctx = session.ctx();
+        // Chains started before the ids were tracked still learn them from the clicked message
+        if (!ctx.has(ContextKey.MESSAGE_ID)) ctx.put(ContextKey.MESSAGE_ID, click.messageId());
+        if (!ctx.has(ContextKey.CHANNEL_ID)) ctx.put(ContextKey.CHANNEL_ID, click.channelId());
+        if (!ctx.has(ContextKey.GUILD_ID) && click.guildId() != null) ctx.put(ContextKey.GUILD_ID, click.guildId());
+
+        if (ctx.isComplete()) {
+            String done = "✅ Setup complete!";
+            if (acked) {
+                editOriginal(click, () -> click.hook().editOriginal(done).setEmbeds(List.of()).setComponents(List.of()),
+                        () -> true);
+            } else {
+                click.answered(outbound.submit(null, Lane.INTERACTIVE, null,
+                        click.callback().editMessage(done).setEmbeds(List.of()).setComponents(List.of())));
+            }
+            if (!session.chain().isStateless()) {
+                close(key, session);
+                metrics.sessionCompleted();
+            }
+            return;
+        }
+
+        PageRenderer.Rendered rendered = renderCurrentPage(session);
+        if (!session.chain().isStateless()) sessions.update(key, session);
+
+        // Nothing visible changed (e.g. "back" on page 0): ack only, no message edit
+        if (rendered.sameAs(session.renderedFingerprint())) {
+            if (!acked) ack(click);
+            return;
+        }
+
+        session.renderedFingerprint(rendered.fingerprint());
+        CompletableFuture<?> sent = acked
+                // Hook edits of the same message supersede each other while queued
+                ? editOriginal(click, () -> click.hook().editOriginalEmbeds(rendered.embed()).setComponents(rendered.rows()),
+                        () -> session.renderedFingerprint() == rendered.fingerprint())
+                // The direct edit is this interaction's only response, so it is never superseded
+                : click.answered(outbound.submit(null, Lane.INTERACTIVE, null,
+                        click.callback().editMessageEmbeds(rendered.embed()).setComponents(rendered.rows())));
+        sent.whenComplete((msg, err) -> {
+            if (err != null && !(err instanceof CancellationException)) {
+                session.renderedFingerprint(0L); // resend next time
+            }
+        });
+        renderWhenLoaded(rendered, session, () -> {
+            if (session.chain().isStateless() || sessions.get(key) == session) render(key, session, click, true);
+        });
+    }
+
+    /**
+     * The page was rendered with a placeholder for a page or options still loading: once they
+     * arrive, runs the re-render in turn with the session's clicks. Failed option loads leave
+     * the page as is.
+     */
+    private void renderWhenLoaded(PageRenderer.Rendered rendered, Session session, Runnable rerender) {
+        CompletionStage<?> pending = rendered.pending();
+        if (pending == null) return;
+        pending.whenComplete((options, err) -> {
+            if (err != null) return; // logged by the provider
+            session.mailbox(this::newMailbox).submit(RENDER_KEY, () -> {
+                if (!session.ctx().isComplete()) rerender.run();
+            }, null);
+        });
+    }
+
+    /** Shows the async fallback page with the current page's components so the user can retry. */
+    private void renderFallback(Session session, Click click) {
+        PageRenderer.Rendered current = renderCurrentPage(session);
+        PagedChain chain = session.chain();
+        int idx = session.ctx().getInt(ContextKey.PAGE_INDEX, 0);
+        PageRenderer.Rendered fallback = PageRenderer.render(chain.chainId(), idx, chain.totalPages(), asyncFallbackPage);
+        session.renderedFingerprint(0L); // the message no longer shows the current page
+        editOriginal(click, () -> click.hook().editOriginalEmbeds(fallback.embed()).setComponents(current.rows()),
+                () -> session.renderedFingerprint() == 0L);
+    }
+
+    /**
+     * Edits the clicked message through the interaction hook, but only once this node's own
+     * response to the interaction (ack or direct edit) went through: Discord rejects hook
+     * edits of an interaction it has not seen answered yet, and the two requests do not keep
+     * their order on the way out. A chained edit is dropped (cancelled) if {@code stillCurrent}
+     * no longer holds by then, so it cannot overwrite a newer render.
+     */
+    private <T> CompletableFuture<T> editOriginal(Click click, Supplier<? extends RestAction<T>> edit,
+                                                  BooleanSupplier stillCurrent) {
+        CompletableFuture<?> answer = click.answer().get();
+        if (answer == null || answer.isDone()) {
+            return outbound.submit(null, Lane.INTERACTIVE, renderKey(click.messageId()), edit.get());
+        }
+        return answer.handle((ok, err) -> null).thenCompose(ignored -> stillCurrent.getAsBoolean()
+                ? outbound.submit(null, Lane.INTERACTIVE, renderKey(click.messageId()), edit.get())
+                : CompletableFuture.failedFuture(new CancellationException("Superseded")));
+    }
+
+    /** Applies a search-modal query to a searchable dropdown and re-renders, in turn with the session's clicks. */
+    private void search(Found found, Click click, String dropdownId, String query) {
+        Session session = found.session();
+        session.mailbox(this::newMailbox).submit(Dropdowns.SEARCH_MODAL_PREFIX + dropdownId, () -> {
+            ComponentContext ctx = session.ctx();
+            if (ctx.isComplete()) {
+                ack(click);
+                return;
+            }
+            Dropdowns.search(ctx, dropdownId, query);
+            renderPostInteraction(found.key(), session, click, click.acked());
+        }, () -> ack(click));
+    }
+
+    /**
+     * The interaction being answered. callback is null for one that another node received,
+     * acked and forwarded here; it is answered through a hook built from its token.
+     * answer holds this node's response to it (ack or direct edit) once one was submitted.
+     */
+    private record Click(IMessageEditCallback callback, InteractionHook forwardedHook,
+                         String messageId, String channelId, String guildId, String value,
+                         AtomicReference<CompletableFuture<?>> answer) {
+
+        Click(IMessageEditCallback callback, InteractionHook forwardedHook,
+              String messageId, String channelId, String guildId, String value) {
+            this(callback, forwardedHook, messageId, channelId, guildId, value, new AtomicReference<>());
+        }
+
+        static Click of(GenericComponentInteractionCreateEvent event) {
+            String value = event instanceof StringSelectInteractionEvent select && !select.getValues().isEmpty()
+                    ? select.getValues().get(0) : null;
+            return new Click(event, null, event.getMessageId(), event.getChannel().getId(),
+                    event.getGuild() != null ? event.getGuild().getId() : null, value);
+        }
+
+        static Click forwarded(ForwardedInteraction in, InteractionHook hook) {
+            return new Click(null, hook, in.messageId(), in.channelId(), in.guildId(), in.value());
+        }
+
+        boolean acked() {
+            return callback == null;
+        }
+
+        <T> CompletableFuture<T> answered(CompletableFuture<T> response) {
+            answer.set(response);
+            return response;
+        }
+
+        InteractionHook hook() {
+            return callback != null ? callback.getHook() : forwardedHook;
+        }
+    }
+
+    /** True unless cluster mode is on and another node owns the user's sessions. */
+    private boolean owns(String userId) {
+        ClusterNode c = cluster;
+        return c == null || c.owns(userId);
+    }
+
+    /**
+     * Passes a click this node holds no session for to the node owning the user: acks it
+     * here first and forwards it once the ack went through, so the owner's edit through the
+     * token finds an answered interaction. False if this node is the owner.
+     */
+    private boolean forward(IMessageEditCallback event, ForwardedInteraction.Kind kind, String messageId,
+                            String componentId, List<String> values) {
+        ClusterNode c = cluster;
+        String userId = event.getUser().getId();
+        if (c == null || c.owns(userId)) return false;
+
+        String owner = c.ownerOf(userId);
+        ForwardedInteraction forwarded = new ForwardedInteraction(kind, event.getIdLong(), event.getToken(), userId,
+                messageId, event.getChannel().getId(), event.getGuild() != null ? event.getGuild().getId() : null,
+                componentId, values);
+        outbound.submit(null, Lane.INTERACTIVE, null, event.deferEdit())
+                .thenCompose(ok -> c.transport().forward(owner, forwarded))
+                .whenComplete((ok, err) -> {
+                    if (err != null) reportFailure("forward interaction " + forwarded.interactionId() + " to " + owner, err);
+                });
+        return true;
+    }
+
+    /** Serves a click forwarded by the node that received it (and already acked it). */
+    private void receive(ForwardedInteraction in) {
+        if (replayed(in.interactionId())) return;
+        Found found = findSession(in.userId(), in.messageId(), in.channelId(), in.guildId());
+        if (found == null) {
+            metrics.noSession();
+            return;
+        }
+        JDA jda = in.guildId() != null ? shards.forGuild(Long.parseLong(in.guildId())) : shards.forDms();
+        if (jda == null) {
+            log.warn("Cannot answer forwarded interaction {}: no connection", in.interactionId());
+            return;
+        }
+
+        Click click = Click.forwarded(in, InteractionHook.from(jda, in.token()));
+        switch (in.kind()) {
+            case BUTTON -> dispatch(found.key(), found.session(), click, in.componentId(), (ctx, componentId) -> {
+                ctx.put(ContextKey.BUTTON_ID, componentId);
+                ctx.remove(ContextKey.RAW_EVENT);
+            });
+            case SELECT -> dispatch(found.key(), found.session(), click, in.componentId(), (ctx, componentId) -> {
+                ctx.put(ContextKey.VALUE, in.value());
+                ctx.put(ContextKey.INTERACTION_VALUE, in.value());
+                ctx.remove(ContextKey.RAW_EVENT);
+            });
+            case SEARCH -> search(found, click, in.componentId(), in.value());
+        }
+    }
+
+    /** Moves every session whose user another node now owns. */
+    private void rebalance() {
+        for (String userId : index.users()) rebalance(userId);
+    }
+
+    /**
+     * Hands the user's sessions to the node owning the user, unless that is this node.
+     * Sessions whose first message is not sent yet move once it is.
+     */
+    private void rebalance(String userId) {
+        ClusterNode c = cluster;
+        if (c == null || c.owns(userId)) return;
+        String owner = c.ownerOf(userId);
+        for (String key : index.keysOf(userId)) {
+            Session session = sessions.get(key);
+            if (session == null || !session.ctx().has(ContextKey.MESSAGE_ID)) continue;
+            // Through the mailbox, so the context never travels halfway through a click
+            session.mailbox(this::newMailbox).submit(HANDOFF_KEY, () -> handOff(c, owner, key, session), null);
+        }
+    }
+
+    private void handOff(ClusterNode c, String owner, String key, Session session) {
+        if (sessions.get(key) != session) return; // closed or replaced meanwhile
+        close(key, session);
+        SessionHandOff handOff = new SessionHandOff(key, session.chain().chainId(), ContextCodec.encode(session.ctx()));
+        c.transport().handOff(owner, handOff).whenComplete((ok, err) -> {
+            if (err == null) {
+                log.debug("Handed session {} to {}", key, owner);
+                return;
+            }
+            reportFailure("hand session " + key + " to " + owner, err);
+            adopt(key, session); // keep serving it here rather than lose it
+        });
+    }
+
+    /** Takes over a session from another node; passes it on if ownership moved again meanwhile. */
+    private void adopt(SessionHandOff in) {
+        Function<String, PagedChain> chains = clusterChains;
+        PagedChain chain = chains != null ? chains.apply(in.chainId()) : null;
+        if (chain == null) {
+            log.warn("Dropping session {} handed over: chain '{}' is not known on this node", in.key(), in.chainId());
+            return;
+        }
+        Session session;
+        try {
+            session = new Session(chain, ContextCodec.decode(in.context()));
+        } catch (RuntimeException e) {
+            log.warn("Dropping unreadable session {} handed over: {}", in.key(), e.toString());
             return;
         }
+        adopt(in.key(), session);
+        rebalance(session.ctx().userId());
+    }
+
+    private void adopt(String key, Session session) {
+        store(key, session.ctx().userId(), session);
+        index.bindMessage(session.ctx().get(ContextKey.MESSAGE_ID), key);
+    }
+
+    private void leaveTransport(ClusterNode c) {
+        c.removeMembershipListener(rebalancer);
+        c.transport().unbind(c.self());
+    }
+
+    /**
+     * Sends the first page and binds the new message to the session (key is null for stateless
+     * chains). MESSAGE-scoped sessions move from their provisional key to "m:<messageId>".
+     */
+    private CompletableFuture<Message> sendChainMessage(SessionKey key, Session session, MessageChannel channel, Lane lane) {
+        PageRenderer.Rendered rendered = renderCurrentPage(session);
+        ComponentContext ctx = session.ctx();
+        return outbound.submit(channelRoute(channel.getId()), lane, null,
+                        channel.sendMessageEmbeds(rendered.embed()).setComponents(rendered.rows()))
+                .thenApply(message -> {
+                    ctx.put(ContextKey.MESSAGE_ID, message.getId());
+                    ctx.put(ContextKey.CHANNEL_ID, message.getChannel().getId());
+                    session.renderedFingerprint(rendered.fingerprint());
+                    if (key == null) {
+                        renderWhenLoaded(rendered, session, () -> refreshChainMessage(null, session, channel, message.getId()));
+                        return message;
+                    }
+
+                    String storeKey = key.value();
+                    if (key.scope() == SessionScope.MESSAGE && sessions.get(storeKey) == session) {
+                        String finalKey = SessionKey.message(key.userId(), message.getId()).value();
+                        sessions.remove(storeKey);
+                        sessions.put(finalKey, session);
+                        index.rekey(key.userId(), storeKey, finalKey);
+                        storeKey = finalKey;
+                    }
+                    index.bindMessage(message.getId(), storeKey);
+                    sessions.update(storeKey, session);
+                    renderWhenLoaded(rendered, session, () -> refreshChainMessage(key, session, channel, message.getId()));
+                    rebalance(key.userId()); // started here for a user another node owns
+                    return message;
+                });
+    }
+
+    /** Edits a chain message nobody has clicked yet to the current render of its session. */
+    private void refreshChainMessage(SessionKey key, Session session, MessageChannel channel, String messageId) {
+        if (key != null && index.keyForMessage(messageId) == null) return; // closed meanwhile
+        PageRenderer.Rendered rendered = renderCurrentPage(session);
+        if (rendered.sameAs(session.renderedFingerprint())) return;
+        session.renderedFingerprint(rendered.fingerprint());
+        outbound.submit(channelRoute(channel.getId()), Lane.NORMAL, renderKey(messageId),
+                        channel.editMessageEmbedsById(messageId, rendered.embed()).setComponents(rendered.rows()))
+                .whenComplete((msg, err) -> {
+                    if (err == null) return;
+                    reportFailure("refresh chain message " + messageId, err);
+                    session.renderedFingerprint(0L);
+                });
+        renderWhenLoaded(rendered, session, () -> refreshChainMessage(key, session, channel, messageId));
+    }
+
+    /** Stores a new session under its key and enforces the per-user cap. */
+    private void open(SessionKey key, Session session) {
+        store(key.value(), key.userId(), session);
+        metrics.sessionOpened();
+    }
+
+    private void store(String key, String userId, Session session) {
+        Session previous = sessions.get(key);
+        if (previous != null) index.untrack(key, previous); // replaced: its message no longer routes here
+        sessions.put(key, session);
+
+        for (String over : index.track(userId, key)) {
+            Session old = sessions.remove(over);
+            if (old == null) continue;
+            index.untrack(over, old);
+            metrics.sessionEvicted(EvictionCause.SIZE);
+            expireChainMessage(old, "⌛ This menu was closed because a newer one was opened.");
+        }
+    }
+
+    /** Removes a finished or failed session and its index entries. */
+    private void close(String key, Session session) {
+        if (sessions.get(key) == session) sessions.remove(key);
+        index.untrack(key, session);
+    }
+
+    private record Found(String key, Session session) {}
+
+    /**
+     * Finds the session a click belongs to: via the message index in O(1), else by probing
+     * the keys the event implies (sessions restored by a persistent store are not indexed
+     * yet). A session only matches if it owns the clicked message, so clicks on a replaced
+     * chain's old message never drive the new chain, and only its own user may drive it
+     * unless its scope is shared (see {@link SessionScope#sharedWithOthers()}).
+     */
+    private Found findSession(GenericComponentInteractionCreateEvent event) {
+        return findSession(event.getUser().getId(), event.getMessageId(), event.getChannel().getId(),
+                event.getGuild() != null ? event.getGuild().getId() : null);
+    }
+
+    private Found findSession(String userId, String messageId, String channelId, String guildId) {
+        String key = index.keyForMessage(messageId);
+        if (key != null) {
+            Session s = sessions.get(key);
+            if (s != null && accepts(key, s, userId, messageId)) return new Found(key, s);
+            index.unbindMessage(messageId, key); // stale: replaced or evicted
+        }
+
+        for (SessionKey candidate : SessionKey.candidates(userId, messageId, channelId, guildId)) {
+            Session s = sessions.get(candidate.value());
+            if (s != null && accepts(candidate.value(), s, userId, messageId)) {
+                index.bindMessage(messageId, candidate.value());
+                return new Found(candidate.value(), s);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True if the session owns the clicked message and the clicker may drive it: its own
+     * user always, anyone else only for scopes shared on purpose (MESSAGE, e.g. polls).
+     */
+    private static boolean accepts(String key, Session session, String userId, String messageId) {
+        String bound = session.ctx().get(ContextKey.MESSAGE_ID);
+        if (bound != null && !bound.equals(messageId)) return false;
+        return userId.equals(session.ctx().userId()) || SessionKey.scopeOf(key).sharedWithOthers();
+    }
+
+    /** Creates the user's session and sends page 1 to their DMs; undoes the session on failure. */
+    private CompletableFuture<Message> startDm(String userId, PagedChain chain, Lane lane) {
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.putInt(ContextKey.PAGE_INDEX, 0);
+        ctx.putInt(ContextKey.TOTAL_PAGES, chain.totalPages());
+
+        SessionKey key = SessionKey.user(userId);
+        Session session = new Session(chain, ctx);
+        open(key, session);
+
+        return dmChannels.resolve(userId, lane)
+                .thenCompose(channel -> sendChainMessage(key, session, channel, lane))
+                .whenComplete((msg, err) -> {
+                    if (err == null) return;
+                    dmChannels.forget(userId);
+                    close(key.value(), session);
+                });
+    }
+
+    // Cause of a future known to have failed
+    private static Throwable failure(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return new IllegalStateException("not failed");
+        } catch (CompletionException | CancellationException e) {
+            return e;
+        }
+    }
+
+    /** Acks a component interaction without changing the message. */
+    private void ack(GenericComponentInteractionCreateEvent event) {
+        outbound.submit(null, Lane.INTERACTIVE, null, event.deferEdit());
+    }
+
+    /** Acks unless the click was acked already (forwarded clicks are, by the node that received them). */
+    private void ack(Click click) {
+        if (!click.acked()) click.answered(outbound.submit(null, Lane.INTERACTIVE, null, click.callback().deferEdit()));
+    }
+
+    // Local rate-limit bucket for message sends in a channel
+    private static String channelRoute(String channelId) {
+        return "channel:" + channelId;
+    }
+
+    // Supersede key for edits of one message
+    private static String renderKey(String messageId) {
+        return "render:" + messageId;
+    }
 
-        renderCurrentPage(session, channel);
+    private static void reportFailure(String what, Throwable err) {
+        if (err instanceof CancellationException) return; // superseded by a newer edit
+        log.warn("Could not {}: {}", what, err.toString());
     }
 
-    private void renderCurrentPage(Session session, MessageChannel channel) {
+    private PageRenderer.Rendered renderCurrentPage(Session session) {
         PagedChain chain = session.chain();
         ComponentContext ctx = session.ctx();
+        PageRenderedEvent jfr = new PageRenderedEvent();
+        jfr.begin();
 
         int total = chain.totalPages();
-        ctx.put("totalPages", total);
+        ctx.putInt(ContextKey.TOTAL_PAGES, total);
 
-        Object rawIdx = ctx.getOrDefault("pageIndex", 0);
-        int idx = (rawIdx instanceof Number) ? ((Number) rawIdx).intValue() : 0;
-        idx = chain.clampIndex(idx);
-        ctx.put("pageIndex", idx);
+        int idx = chain.clampIndex(ctx.getInt(ContextKey.PAGE_INDEX, 0));
+        ctx.putInt(ContextKey.PAGE_INDEX, idx);
 
-        Page page = chain.page(idx);
+        PageRenderer.Rendered rendered = chain.isStateless()
+                ? renderStateless(chain, idx, ctx)
+                : PageRenderer.render(chain, idx, ctx);
+        jfr.commit(chain.chainId(), idx);
+        return rendered;
+    }
 
-        PageRenderer.Rendered rendered = PageRenderer.render(chain.chainId(), idx, total, page);
-        channel.sendMessageEmbeds(rendered.embed())
-                .setComponents(rendered.rows().toArray(ActionRow[]::new))
-                .queue();
+    private PageRenderer.Rendered renderStateless(PagedChain chain, int idx, ComponentContext ctx) {
+        StatelessCodec codec = statelessCodec;
+        if (codec == null) throw new IllegalStateException("Stateless chain '" + chain.chainId() + "' needs configureStateless(secret)");
+        List<String> keys = chain.stateKeys();
+        List<String> values = new ArrayList<>(keys.size());
+        for (String k : keys) {
+            Object v = ctx.get(k);
+            values.add(v != null ? v.toString() : null);
+        }
+        return PageRenderer.render(chain, idx, ctx,
+                id -> codec.encode(new StatelessCodec.State(chain.chainId(), idx, id, values), ctx.userId()));
     }
 
     private boolean validateJdaAndUser(String userId) {
-        if (jda == null) {
-            System.err.println("❌ Cannot send message — JDA is null");
+        if (shards.forDms() == null) {
+            log.warn("Cannot send message: JDA is null");
             return true;
         }
         if (userId == null || userId.isBlank()) {
-            System.err.println("❌ Cannot send message — userId is null/blank");
+            log.warn("Cannot send message: userId is null or blank");
             return true;
         }
         return false;
     }
 
-    // ---------------------------
-    // Session record
-    // ---------------------------
-
-    private record Session(PagedChain chain, ComponentContext ctx) {
-        public Session {
-            Objects.requireNonNull(chain, "chain");
-            Objects.requireNonNull(ctx, "ctx");
-        }
-    }
-
     // ---------------------------
     // Legacy helper (kept because other code calls it)
     // ---------------------------
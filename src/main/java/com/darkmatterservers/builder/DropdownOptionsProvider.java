@@ -0,0 +1,35 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.context.ComponentContext;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Supplies a dropdown's options at render time, registered per chain with
+ * {@link com.darkmatterservers.chain.PagedChain.Builder#options(String, DropdownOptionsProvider)}.
+ * <p>
+ * Called on every render of a page showing the dropdown, on the dispatch thread, so it
+ * must answer from memory in the common case; {@link OptionsCache} does that for options
+ * that come from a backend. Options in the context ("&lt;dropdownId&gt;.options") still win
+ * over the provider; a null answer falls back to the options baked into the page.
+ * Returning an {@link OptionIndex} renders the dropdown in searchable windows.
+ * <p>
+ * Providers that load in the background never block a render: they answer null and report
+ * the load through {@link #loading(String, ComponentContext)}, and the runtime renders the
+ * page again once it completes.
+ */
+@FunctionalInterface
+public interface DropdownOptionsProvider {
+
+    /** Options to show for this session, or null to use the page's own. */
+    List<String> options(String dropdownId, ComponentContext ctx);
+
+    /**
+     * After {@link #options} answered null: the load that will provide the options, or null
+     * if none is under way (the page's own options are final).
+     */
+    default CompletionStage<?> loading(String dropdownId, ComponentContext ctx) {
+        return null;
+    }
+}
@@ -2,6 +2,9 @@ package com.darkmatterservers.builder;
 
 import com.darkmatterservers.chain.Page;
 import com.darkmatterservers.context.ComponentContext;
+import net.dv8tion.jda.api.interactions.components.text.TextInput;
+import net.dv8tion.jda.api.interactions.components.text.TextInputStyle;
+import net.dv8tion.jda.api.interactions.modals.Modal;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -16,6 +19,12 @@ import java.util.List;
  * - Optional auto-advance: set ctx key "<dropdownId>.autoNext" = true to jump to the next page after a pick.
  * - These helpers keep label == value. If you need distinct labels/values later,
  *   extend Page.ComponentRef and the renderer to support pairs.
+ * - Searchable dropdowns ({@link #searchable}) show any number of options from a shared
+ *   {@link OptionIndex} in windows of {@link #WINDOW_SIZE}. The window offset lives under
+ *   "<dropdownId>.offset" and the search query under "<dropdownId>.query"; the runtime
+ *   handles the navigation entries ({@link #isWindowControl}) itself, so handlers only see
+ *   real picks. Stateless chains keep the window only if those keys are in their state keys,
+ *   and show no search entry.
  */
 @SuppressWarnings("unused")
 public final class Dropdowns {
@@ -25,7 +34,29 @@ public final class Dropdowns {
     // Discord StringSelectMenu supports up to 25 options
     public static final int MAX_OPTIONS = 25;
 
-    /** Create a dropdown with a placeholder and options (label==value). Extra options beyond 25 are truncated. */
+    // Searchable dropdowns: real options per window, leaving room for the navigation entries
+    public static final int WINDOW_SIZE = 21;
+
+    // Option values starting with this belong to the runtime; user options may not use it
+    public static final String RESERVED_PREFIX = "bytes.window.";
+
+    // Option values of the navigation entries; never passed to handlers
+    public static final String WINDOW_PREVIOUS = "bytes.window.prev";
+    public static final String WINDOW_NEXT = "bytes.window.next";
+    public static final String WINDOW_SEARCH = "bytes.window.search";
+    public static final String WINDOW_CLEAR = "bytes.window.clear";
+
+    // Only option of a disabled dropdown whose options are still loading
+    public static final String OPTIONS_LOADING = "bytes.window.loading";
+
+    // Modal IDs are "bytes.search:<dropdownId>"; the text input is "query"
+    public static final String SEARCH_MODAL_PREFIX = "bytes.search:";
+    public static final String SEARCH_INPUT = "query";
+
+    /**
+     * Create a dropdown with a placeholder and options (label==value). Extra options beyond 25 are truncated.
+     * Values starting with {@link #RESERVED_PREFIX} are rejected, here and in every other helper taking options.
+     */
     public static Page.ComponentRef dropdown(String id, String placeholder, Collection<String> options) {
         return Page.ComponentRef.dropdown(id, placeholder, trim(options));
     }
@@ -35,6 +66,15 @@ public final class Dropdowns {
         return Page.ComponentRef.dropdown(id, placeholder, trimStringify(options));
     }
 
+    /**
+     * Create a dropdown over a shared option index, shown in windows with previous/more
+     * entries and a search entry. The index is not copied, so one instance can back any
+     * number of pages and sessions.
+     */
+    public static Page.ComponentRef searchable(String id, String placeholder, OptionIndex options) {
+        return Page.ComponentRef.dropdown(id, placeholder, options);
+    }
+
     /** Create a dropdown with no options yet (useful when you’ll populate later). */
     public static Page.ComponentRef empty(String id, String placeholder) {
         return Page.ComponentRef.dropdown(id, placeholder, null);
@@ -42,7 +82,11 @@ public final class Dropdowns {
 
     // ---------- Runtime helpers (store state in ComponentContext) ----------
 
-    /** Override the options at runtime (used by PageRenderer). Stores under key "<id>.options". */
+    /**
+     * Override the options at runtime (used by PageRenderer). Stores under key "<id>.options".
+     * This copies the options into one session; options shared by many sessions are cheaper
+     * through a chain-level provider such as {@link OptionsCache}.
+     */
     public static void overrideOptions(ComponentContext ctx, String id, Collection<String> options) {
         ctx.put(id + ".options", trim(options));
     }
@@ -67,6 +111,55 @@ public final class Dropdowns {
         ctx.put(id + ".autoNext", Boolean.FALSE);
     }
 
+    /** Narrow a searchable dropdown to options matching the query (blank clears). Starts at the first match. */
+    public static void search(ComponentContext ctx, String id, String query) {
+        if (query == null || query.isBlank()) {
+            ctx.remove(id + ".query");
+        } else {
+            ctx.put(id + ".query", query.strip());
+        }
+        ctx.put(id + ".offset", 0);
+    }
+
+    /** True if the value is one of a searchable dropdown's navigation entries. */
+    public static boolean isWindowControl(String value) {
+        return value != null && value.startsWith(RESERVED_PREFIX);
+    }
+
+    /**
+     * Apply a navigation entry to the dropdown's window state. Returns false for
+     * {@link #WINDOW_SEARCH}, which needs the search modal instead, and for other values.
+     * The offset is not clamped here; the renderer clamps it against the current matches.
+     */
+    public static boolean applyWindowControl(ComponentContext ctx, String id, String value) {
+        Integer current = ctx.getInt(id + ".offset");
+        int offset = current != null ? current : 0;
+        switch (value) {
+            case WINDOW_PREVIOUS -> ctx.put(id + ".offset", Math.max(0, offset - WINDOW_SIZE));
+            case WINDOW_NEXT -> ctx.put(id + ".offset", offset + WINDOW_SIZE);
+            case WINDOW_CLEAR -> search(ctx, id, null);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The search modal for a searchable dropdown, prefilled with its current query. */
+    public static Modal searchModal(String id, String currentQuery) {
+        TextInput.Builder input = TextInput.create(SEARCH_INPUT, "Search", TextInputStyle.SHORT)
+                .setPlaceholder("Leave empty to show everything")
+                .setRequired(false)
+                .setMaxLength(100);
+        if (currentQuery != null && !currentQuery.isBlank()) input.setValue(currentQuery);
+        return Modal.create(SEARCH_MODAL_PREFIX + id, "Search options").addActionRow(input.build()).build();
+    }
+
+    /** The dropdown ID a search modal belongs to, or null if the modal is not one of ours. */
+    public static String searchModalTarget(String modalId) {
+        return modalId != null && modalId.startsWith(SEARCH_MODAL_PREFIX) ? modalId.substring(SEARCH_MODAL_PREFIX.length()) : null;
+    }
+
     // ---------- internal utils ----------
 
     private static List<String> trim(Collection<String> src) {
@@ -75,7 +168,7 @@ public final class Dropdowns {
         int i = 0;
         for (String s : src) {
             if (i++ >= MAX_OPTIONS) break;
-            out.add(s);
+            out.add(checkValue(s));
         }
         return out;
     }
@@ -86,8 +179,16 @@ public final class Dropdowns {
         int i = 0;
         for (Object o : src) {
             if (i++ >= MAX_OPTIONS) break;
-            out.add(String.valueOf(o));
+            out.add(checkValue(String.valueOf(o)));
         }
         return out;
     }
+
+    // A pick with a navigation entry's value would be swallowed by the runtime
+    static String checkValue(String value) {
+        if (isWindowControl(value)) {
+            throw new IllegalArgumentException("Option value '" + value + "' uses the reserved prefix " + RESERVED_PREFIX);
+        }
+        return value;
+    }
 }
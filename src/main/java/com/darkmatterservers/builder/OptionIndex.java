@@ -0,0 +1,229 @@
+package com.darkmatterservers.builder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, searchable option set for dropdowns with more than 25 entries.
+ * <p>
+ * Build one per option set and share it: put it on the page with
+ * {@link Dropdowns#searchable(String, String, OptionIndex)} and every session rendering
+ * that page reads the same instance. Sessions only keep their query and window offset in
+ * the context, never a copy of the options.
+ * <p>
+ * Matching is case-insensitive. A query matches options that start with it (listed first,
+ * alphabetically) and options that contain it (listed after, in original order). Prefixes
+ * are found by binary search over the sorted options; substrings through a trigram index
+ * (queries under 3 characters match prefixes only). Both stay well below a millisecond on
+ * 100k options; the last {@link #RESULT_CACHE_SIZE} results are cached besides.
+ * <p>
+ * As a {@link List} it reads as the options in original order. equals/hashCode are by
+ * identity, so render fingerprints never walk the options.
+ */
+@SuppressWarnings("unused")
+public final class OptionIndex extends AbstractList<String> implements RandomAccess {
+
+    public static final int RESULT_CACHE_SIZE = 128;
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] options;
+    private final String[] folded;
+    private final int[] sorted;                 // option indices ordered by folded text
+    private final Map<Long, int[]> trigrams;    // trigram -> ascending option indices
+    private final Map<String, int[]> results;   // access-ordered LRU, guarded by itself
+
+    private OptionIndex(String[] options) {
+        this.options = options;
+        this.folded = new String[options.length];
+        for (int i = 0; i < options.length; i++) folded[i] = fold(options[i]);
+
+        Integer[] order = new Integer[options.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> folded[a].compareTo(folded[b]));
+        this.sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) sorted[i] = order[i];
+
+        this.trigrams = buildTrigrams(folded);
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > RESULT_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Indexes the options (label == value); nulls and duplicates are dropped, order is kept.
+     * Values starting with {@link Dropdowns#RESERVED_PREFIX} are rejected.
+     */
+    public static OptionIndex of(Collection<String> options) {
+        return ofAny(options);
+    }
+
+    /** Same as {@link #of(Collection)} with labels from toString(). */
+    public static OptionIndex ofAny(Collection<?> options) {
+        LinkedHashMap<String, Boolean> unique = new LinkedHashMap<>();
+        for (Object o : options) {
+            if (o != null) unique.putIfAbsent(Dropdowns.checkValue(o.toString()), Boolean.TRUE);
+        }
+        return new OptionIndex(unique.keySet().toArray(new String[0]));
+    }
+
+    @Override
+    public String get(int index) {
+        return options[index];
+    }
+
+    @Override
+    public int size() {
+        return options.length;
+    }
+
+    /**
+     * Indices of the options matching the query, prefix matches first, or null if the query
+     * is null or blank (everything matches). The array is shared; do not modify it.
+     */
+    public int[] search(String query) {
+        String q = query == null ? "" : fold(query.strip());
+        if (q.isEmpty()) return null;
+        synchronized (results) {
+            int[] hit = results.get(q);
+            if (hit != null) return hit;
+        }
+        int[] found = compute(q);
+        synchronized (results) {
+            results.put(q, found);
+        }
+        return found;
+    }
+
+    /** Number of options matching the query. */
+    public int count(String query) {
+        int[] matches = search(query);
+        return matches == null ? options.length : matches.length;
+    }
+
+    /**
+     * Up to {@code size} matching options starting at match number {@code offset}, which is
+     * clamped into range, so a stale offset from before the options changed still shows a window.
+     */
+    public Window window(String query, int offset, int size) {
+        int[] matches = search(query);
+        int total = matches == null ? options.length : matches.length;
+        int from = Math.max(0, Math.min(offset, Math.max(0, total - 1) / size * size));
+        int to = Math.min(total, from + size);
+        List<String> shown = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) shown.add(options[matches == null ? i : matches[i]]);
+        return new Window(shown, from, total);
+    }
+
+    /** One visible slice of the matches: options[0] is match number {@code from}. */
+    public record Window(List<String> options, int from, int total) {
+        public boolean hasPrevious() { return from > 0; }
+        public boolean hasNext() { return from + options.size() < total; }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    // -------------------- internals --------------------
+
+    private int[] compute(String q) {
+        // Prefix matches: one contiguous run of the sorted order
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (folded[sorted[mid]].compareTo(q) < 0) lo = mid + 1; else hi = mid;
+        }
+        int end = lo;
+        while (end < sorted.length && folded[sorted[end]].startsWith(q)) end++;
+        int prefixCount = end - lo;
+        if (q.length() < 3) return Arrays.copyOfRange(sorted, lo, end);
+
+        // Substring matches: options holding every trigram of the query, verified unless
+        // the query is a single trigram (then its postings are exact)
+        int[] candidates = candidates(q);
+        boolean exact = q.length() == 3;
+        int[] out = new int[prefixCount + candidates.length];
+        System.arraycopy(sorted, lo, out, 0, prefixCount);
+        int n = prefixCount;
+        for (int i : candidates) {
+            String f = folded[i];
+            if (!f.startsWith(q) && (exact || f.contains(q))) out[n++] = i;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private int[] candidates(String q) {
+        List<int[]> lists = new ArrayList<>(q.length() - 2);
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int[] postings = trigrams.get(trigram(q, i));
+            if (postings == null) return NONE;
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] acc = lists.get(0);
+        for (int k = 1; k < lists.size() && acc.length > 0; k++) acc = intersect(acc, lists.get(k));
+        return acc;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Map<Long, int[]> buildTrigrams(String[] folded) {
+        Map<Long, Postings> building = new HashMap<>();
+        for (int idx = 0; idx < folded.length; idx++) {
+            String f = folded[idx];
+            for (int i = 0; i + 3 <= f.length(); i++) {
+                building.computeIfAbsent(trigram(f, i), k -> new Postings()).add(idx);
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(building.size() * 4 / 3 + 1);
+        building.forEach((t, p) -> postings.put(t, Arrays.copyOf(p.ids, p.size)));
+        return postings;
+    }
+
+    // Growable ascending id list; an option repeating a trigram is added once
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static String fold(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
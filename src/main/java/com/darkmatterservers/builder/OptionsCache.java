@@ -0,0 +1,243 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link DropdownOptionsProvider} that keeps loaded options in one shared cache, keyed by
+ * dropdown ID and scope (global, per guild, per user or custom).
+ * <p>
+ * Every session rendering the same dropdown in the same scope gets the same immutable list,
+ * so a thousand users opening a page cost one backend fetch and one copy of the options.
+ * Entries live for {@code ttl}. Once older than {@code refreshAfter} they are still served,
+ * but the first render to see them starts a reload in the background, so busy dropdowns
+ * never block on an expired entry. Concurrent misses for a key share one load.
+ * <p>
+ * No render ever waits for a load: one that finds no usable entry starts the load and shows
+ * the stale options if any, else the page's own, and the runtime renders the page again
+ * once the load reported by {@link #loading(String, ComponentContext)} completes. Failed
+ * loads are not cached, so a later render retries.
+ */
+@SuppressWarnings("unused")
+public final class OptionsCache implements DropdownOptionsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(OptionsCache.class);
+
+    /** One entry per dropdown for everyone. */
+    public static final Function<ComponentContext, String> GLOBAL = ctx -> "";
+
+    /** One entry per guild; DMs share the "dm" scope. */
+    public static final Function<ComponentContext, String> PER_GUILD = ctx -> {
+        String guildId = ctx.get(ContextKey.GUILD_ID);
+        return guildId != null ? guildId : "dm";
+    };
+
+    /** One entry per user. */
+    public static final Function<ComponentContext, String> PER_USER = ComponentContext::userId;
+
+    private final OptionsLoader loader;
+    private final Function<ComponentContext, String> scope;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final boolean searchable;
+
+    private final Map<Key, Entry> cache;   // access-ordered LRU, guarded by itself
+    private final Map<Key, CompletableFuture<List<String>>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder loads = new LongAdder();
+
+    private OptionsCache(Builder b) {
+        this.loader = b.loader;
+        this.scope = b.scope;
+        this.ttlNanos = b.ttl.toNanos();
+        this.refreshAfterNanos = (b.refreshAfter != null ? b.refreshAfter : b.ttl.multipliedBy(4).dividedBy(5)).toNanos();
+        this.searchable = b.searchable;
+        int capacity = b.maxEntries;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public List<String> options(String dropdownId, ComponentContext ctx) {
+        Key key = key(dropdownId, ctx);
+        Entry entry = cached(key);
+        if (entry != null && System.nanoTime() - entry.loadedAt() < refreshAfterNanos) return entry.options();
+
+        // Refresh ahead, reload an expired entry or load a missing one; this render never waits
+        CompletableFuture<List<String>> load = load(key);
+        if (load.isDone() && !load.isCompletedExceptionally()) return load.join(); // loader answered inline
+        if (entry == null) log.debug("Options for {} [{}] still loading, rendering without them", dropdownId, key.scope());
+        return entry != null ? entry.options() : null;
+    }
+
+    /** The load in flight for the dropdown in this context's scope, or null. */
+    @Override
+    public CompletionStage<?> loading(String dropdownId, ComponentContext ctx) {
+        return loading.get(key(dropdownId, ctx));
+    }
+
+    /** Drops every entry; loads in flight finish but are not cached. */
+    public void invalidate() {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /** Drops the entries of one dropdown in every scope. */
+    public void invalidate(String dropdownId) {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            cache.keySet().removeIf(k -> k.dropdownId().equals(dropdownId));
+        }
+    }
+
+    /** Number of cached entries. */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /** Loads started so far (each single-flight load counts once). */
+    public long loads() {
+        return loads.sum();
+    }
+
+    // -------------------- internals --------------------
+
+    private record Key(String dropdownId, String scope) {}
+
+    private record Entry(List<String> options, long loadedAt) {}
+
+    private Key key(String dropdownId, ComponentContext ctx) {
+        return new Key(dropdownId, Objects.requireNonNullElse(scope.apply(ctx), ""));
+    }
+
+    private Entry cached(Key key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /** Starts loading the key unless a load is already in flight, and returns that load. */
+    private CompletableFuture<List<String>> load(Key key) {
+        CompletableFuture<List<String>> mine = new CompletableFuture<>();
+        CompletableFuture<List<String>> running = loading.putIfAbsent(key, mine);
+        if (running != null) return running;
+
+        loads.increment();
+        long gen = generation.get();
+        CompletionStage<List<String>> stage;
+        try {
+            stage = Objects.requireNonNull(loader.load(key.dropdownId(), key.scope()), "loader returned null");
+        } catch (Throwable t) {
+            stage = CompletableFuture.failedFuture(t);
+        }
+        stage.whenComplete((list, err) -> {
+            try {
+                if (err != null || list == null) {
+                    Throwable cause = err != null ? err : new NullPointerException("loader completed with null");
+                    log.warn("Could not load options for {} [{}]", key.dropdownId(), key.scope(), cause);
+                    mine.completeExceptionally(cause);
+                    return;
+                }
+                List<String> options = freeze(list);
+                if (generation.get() == gen) {
+                    synchronized (cache) {
+                        cache.put(key, new Entry(options, System.nanoTime()));
+                    }
+                }
+                mine.complete(options);
+            } finally {
+                loading.remove(key, mine);
+            }
+        });
+        return mine;
+    }
+
+    // One immutable copy per load, shared by every session that renders it
+    private List<String> freeze(List<String> list) {
+        List<String> options = list.stream()
+                .filter(o -> o != null && !Dropdowns.isWindowControl(o)) // reserved for the runtime
+                .toList();
+        return searchable ? OptionIndex.of(options) : options;
+    }
+
+    public static final class Builder {
+        private OptionsLoader loader;
+        private Function<ComponentContext, String> scope = GLOBAL;
+        private Duration ttl = Duration.ofMinutes(5);
+        private Duration refreshAfter;
+        private int maxEntries = 1024;
+        private boolean searchable;
+
+        public Builder loader(OptionsLoader loader) {
+            this.loader = Objects.requireNonNull(loader, "loader");
+            return this;
+        }
+
+        /** What the options depend on besides the dropdown: {@link #GLOBAL} (default), {@link #PER_GUILD}, {@link #PER_USER} or custom. */
+        public Builder scope(Function<ComponentContext, String> scope) {
+            this.scope = Objects.requireNonNull(scope, "scope");
+            return this;
+        }
+
+        /** How long loaded options may be shown at all (default 5 minutes). */
+        public Builder ttl(Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be > 0");
+            this.ttl = ttl;
+            return this;
+        }
+
+        /** Age after which a render triggers a background reload (default 80% of the ttl). */
+        public Builder refreshAfter(Duration refreshAfter) {
+            if (refreshAfter.isNegative()) throw new IllegalArgumentException("refreshAfter must be >= 0");
+            this.refreshAfter = refreshAfter;
+            return this;
+        }
+
+        /** Most entries kept, least recently used first out (default 1024). */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /** Index every loaded list as an {@link OptionIndex}, so large option sets render in searchable windows. */
+        public Builder searchable(boolean searchable) {
+            this.searchable = searchable;
+            return this;
+        }
+
+        public OptionsCache build() {
+            Objects.requireNonNull(loader, "loader is required");
+            if (refreshAfter != null && refreshAfter.compareTo(ttl) >= 0) {
+                throw new IllegalArgumentException("refreshAfter must be shorter than ttl");
+            }
+            return new OptionsCache(this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.darkmatterservers.builder;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Fetches the options of one dropdown for one scope (see {@link OptionsCache}).
+ * Blocking code should hand itself to an executor, e.g. via CompletableFuture.supplyAsync.
+ */
+@FunctionalInterface
+public interface OptionsLoader {
+
+    CompletionStage<List<String>> load(String dropdownId, String scope);
+}
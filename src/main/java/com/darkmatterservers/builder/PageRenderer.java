@@ -1,10 +1,13 @@
 package com.darkmatterservers.builder;
 
 import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
 import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.ItemComponent;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.buttons.ButtonStyle;
 import net.dv8tion.jda.api.interactions.components.selections.SelectOption;
@@ -13,6 +16,8 @@ import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.UnaryOperator;
 
 /**
  * Renders a Page into:
@@ -22,30 +27,130 @@ import java.util.List;
  * Dynamic behavior:
  * - Override dropdown options at render time via ctx key "<dropdownId>.options" (List<String>).
  * - Keep a dropdown option highlighted via ctx key "<dropdownId>.selected" (String).
+ * - Options from the chain's {@link DropdownOptionsProvider} replace the baked-in ones (the
+ *   ctx override still wins); the provider is asked on every render.
+ * - Dropdowns backed by an {@link OptionIndex} show one window of matches, chosen by ctx keys
+ *   "<dropdownId>.query" (String) and "<dropdownId>.offset" (Integer), plus navigation entries.
  * - Button styles are honored from Page.ComponentRef.style(); defaults to PRIMARY when null.
+ * <p>
+ * Caching: {@link #render(PagedChain, int, ComponentContext)} keeps the embed, the button rows
+ * and the default dropdown row of each page in the chain's {@link RenderCache}. Per render,
+ * only a dropdown whose options or selection come from the context or a provider is rebuilt; static pages
+ * cost a cache lookup and no allocation beyond the result record.
+ * <p>
+ * Fingerprints: every result carries a 64-bit fingerprint of what it shows, hashed over the
+ * characters of the page's content plus the dynamic dropdown options and selection. Two renders with equal
+ * non-zero fingerprints look the same to the user, so the runtime can skip the edit.
  */
 @SuppressWarnings("unused")
 public class PageRenderer {
 
-    public record Rendered(MessageEmbed embed, List<ActionRow> rows) {}
+    // Default theme color (Discord blurple); Color is immutable, so one instance serves all renders
+    private static final Color THEME = new Color(0x5865F2);
+
+    /**
+     * A rendered page. fingerprint identifies the visible content; 0 means unknown and is
+     * never treated as equal to anything. pending is non-null when the page or a dropdown's
+     * options were still loading (a placeholder was shown instead); render again once it
+     * completes.
+     */
+    public record Rendered(MessageEmbed embed, List<ActionRow> rows, long fingerprint, CompletionStage<?> pending) {
+        public Rendered(MessageEmbed embed, List<ActionRow> rows) {
+            this(embed, rows, 0L);
+        }
+
+        public Rendered(MessageEmbed embed, List<ActionRow> rows, long fingerprint) {
+            this(embed, rows, fingerprint, null);
+        }
+
+        /** True if both renders are known to show the same content. */
+        public boolean sameAs(long otherFingerprint) {
+            return fingerprint != 0L && fingerprint == otherFingerprint;
+        }
+    }
 
     public static Rendered render(String chainTitle, int pageIndex, int totalPages, Page page) {
         return render(chainTitle, pageIndex, totalPages, page, null);
     }
 
+    /** Renders without caching (e.g. for ad-hoc pages that are not part of a chain). */
     public static Rendered render(String chainTitle, int pageIndex, int totalPages, Page page, ComponentContext ctx) {
+        return applyContext(buildStatic(chainTitle, pageIndex, totalPages, page), ctx, null);
+    }
+
+    /**
+     * Renders page {@code pageIndex} of the chain, reusing the cached static parts when the
+     * page has not changed since they were built.
+     */
+    public static Rendered render(PagedChain chain, int pageIndex, ComponentContext ctx) {
+        Page page = chain.page(pageIndex);
+        int total = chain.totalPages();
+        RenderCache cache = chain.renderCache();
+
+        RenderCache.StaticPage sp = cache.get(pageIndex, page, total);
+        if (sp == null) {
+            sp = buildStatic(chain.chainId(), pageIndex, total, page);
+            cache.put(sp);
+        }
+        DropdownOptionsProvider provider = sp.dropdown() != null ? chain.optionsProvider(sp.dropdown().id()) : null;
+        Rendered r = applyContext(sp, ctx, provider);
+        CompletionStage<?> loading = chain.pageSource().loading(pageIndex, page);
+        return loading == null ? r : new Rendered(r.embed(), r.rows(), r.fingerprint(), loading);
+    }
+
+    /**
+     * Like {@link #render(PagedChain, int, ComponentContext)}, then passes every component
+     * custom ID through {@code componentIds} (link buttons have none). Stateless chains use
+     * this to pack their state into the IDs; the cached static parts stay untouched. Their
+     * searchable dropdowns lose the search entry: the search modal's answer carries no
+     * state to find the chain again.
+     */
+    public static Rendered render(PagedChain chain, int pageIndex, ComponentContext ctx, UnaryOperator<String> componentIds) {
+        Rendered r = render(chain, pageIndex, ctx);
+        List<ActionRow> rows = new ArrayList<>(r.rows().size());
+        for (ActionRow row : r.rows()) {
+            List<ItemComponent> out = new ArrayList<>(row.getComponents().size());
+            for (ItemComponent c : row.getComponents()) {
+                if (c instanceof Button b && b.getId() != null) {
+                    out.add(b.withId(componentIds.apply(b.getId())));
+                } else if (c instanceof StringSelectMenu m) {
+                    StringSelectMenu.Builder copy = m.createCopy().setId(componentIds.apply(m.getId()));
+                    List<SelectOption> options = copy.getOptions();
+                    if (options.size() > 1) {
+                        options.removeIf(o -> Dropdowns.WINDOW_SEARCH.equals(o.getValue()));
+                    } else if (Dropdowns.WINDOW_SEARCH.equals(options.get(0).getValue())) {
+                        copy.setDisabled(true); // an empty index: a menu needs one entry
+                    }
+                    out.add(copy.build());
+                } else {
+                    out.add(c);
+                }
+            }
+            rows.add(ActionRow.of(out));
+        }
+        // The IDs now carry state the fingerprint does not cover
+        return new Rendered(r.embed(), rows, 0L, r.pending());
+    }
+
+    // -------------------- Static part --------------------
+
+    private static RenderCache.StaticPage buildStatic(String chainTitle, int pageIndex, int totalPages, Page page) {
+        int version = page.version(); // read first: a concurrent edit makes the entry stale, not wrong
+        long fp = mix(mix(mix(FP_SEED, chainTitle), pageIndex), totalPages);
+        fp = mix(mix(fp, page.line1()), page.line2());
+
         // ---- Build embed ----
         EmbedBuilder eb = new EmbedBuilder();
         eb.setTitle("☼ " + chainTitle + " ☼");
         eb.setFooter("Page " + (pageIndex + 1) + " of " + totalPages);
-        eb.setColor(new Color(0x5865F2)); // default theme color (Discord blurple)
+        eb.setColor(THEME);
 
         StringBuilder desc = new StringBuilder();
         if (page.line1() != null && !page.line1().isBlank()) desc.append(page.line1()).append('\n');
         if (page.line2() != null && !page.line2().isBlank()) desc.append(page.line2()).append('\n');
         eb.setDescription(desc.toString());
 
-        List<ActionRow> rows = new ArrayList<>();
+        List<ActionRow> buttonRows = new ArrayList<>(2);
 
         // ---- Buttons: two rows of 4 ----
         Page.ComponentRef[] btns = page.buttons();
@@ -69,55 +174,222 @@ public class PageRenderer {
             };
 
             if (i < 4) row1.add(b); else row2.add(b);
+            fp = mix(mix(mix(mix(fp, i), ref.id()), ref.label()), style.ordinal());
         }
-        if (!row1.isEmpty()) rows.add(ActionRow.of(row1));
-        if (!row2.isEmpty()) rows.add(ActionRow.of(row2));
+        if (!row1.isEmpty()) buttonRows.add(ActionRow.of(row1));
+        if (!row2.isEmpty()) buttonRows.add(ActionRow.of(row2));
 
-        // ---- Dropdown (optional) ----
-        if (page.dropdown() != null && page.dropdown().isDropdown()) {
-            var dd = page.dropdown();
-            String placeholder = (dd.label() == null || dd.label().isBlank()) ? "Select an option" : dd.label();
-            StringSelectMenu.Builder menu = StringSelectMenu.create(dd.id()).setPlaceholder(placeholder);
+        // ---- Dropdown shell with baked-in options (optional) ----
+        Page.ComponentRef dd = page.dropdown() != null && page.dropdown().isDropdown() ? page.dropdown() : null;
+        List<ActionRow> staticRows = buttonRows;
+        ContextKey<Object> optionsKey = null;
+        ContextKey<String> selectedKey = null;
+        ContextKey<String> queryKey = null;
+        ContextKey<Object> offsetKey = null;
+        if (dd != null) {
+            // A dropdown without baked-in options can only be rendered from context options
+            if (dd.options() instanceof OptionIndex index) {
+                staticRows = new ArrayList<>(buttonRows);
+                staticRows.add(windowRow(dd, index.window(null, 0, Dropdowns.WINDOW_SIZE), null, null));
+            } else if (dd.options() != null && !dd.options().isEmpty()) {
+                staticRows = new ArrayList<>(buttonRows);
+                staticRows.add(dropdownRow(dd, dd.options(), null));
+            } else {
+                staticRows = null;
+            }
+            fp = mix(mix(mix(fp, dd.id()), dd.label()), dd.options()); // an OptionIndex hashes by identity
+            optionsKey = ContextKey.of(dd.id() + ".options", Object.class);
+            selectedKey = ContextKey.of(dd.id() + ".selected", String.class);
+            queryKey = ContextKey.of(dd.id() + ".query", String.class);
+            offsetKey = ContextKey.of(dd.id() + ".offset", Object.class);
+        }
+
+        return new RenderCache.StaticPage(page, version, pageIndex, totalPages, fp, eb.build(),
+                List.copyOf(buttonRows), staticRows == null ? null : List.copyOf(staticRows), dd, optionsKey, selectedKey, queryKey, offsetKey);
+    }
 
-            // Start with the baked-in options
-            List<String> opts = dd.options();
+    // -------------------- Context-dependent part --------------------
 
+    private static Rendered applyContext(RenderCache.StaticPage sp, ComponentContext ctx, DropdownOptionsProvider provider) {
+        if (sp.dropdown() == null) return new Rendered(sp.embed(), sp.staticRows(), finish(sp.fingerprint()));
+
+        List<String> opts = null;
+        CompletionStage<?> pending = null;
+        String selected = null;
+        if (ctx != null) {
             // Dynamic override: ctx key "<id>.options" -> List<String>
-            if (ctx != null) {
-                Object override = ctx.get(dd.id() + ".options");
-                if (override instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof String)) {
-                    @SuppressWarnings("unchecked")
-                    List<String> cast = (List<String>) list;
-                    opts = cast;
-                }
+            Object override = ctx.get(sp.optionsKey());
+            if (override instanceof List<?> list && (list.isEmpty() || list.get(0) instanceof String)) {
+                @SuppressWarnings("unchecked")
+                List<String> cast = (List<String>) list;
+                opts = cast;
             }
 
             // Read selected for highlight
-            String selected = null;
-            if (ctx != null) {
-                Object sel = ctx.get(dd.id() + ".selected");
-                if (sel instanceof String s) selected = s;
+            selected = ctx.get(sp.selectedKey());
+
+            // Shared options from the chain's provider; one list instance serves every session
+            if (opts == null && provider != null) {
+                opts = provider.options(sp.dropdown().id(), ctx);
+                if (opts == null) pending = provider.loading(sp.dropdown().id(), ctx);
             }
+        }
+        if (pending == null) return applyOptions(sp, opts, selected, ctx);
 
-            if (opts != null) {
-                for (String opt : limitOptions(opts)) { // Discord StringSelect max 25
-                    if (opt == null) continue;
-                    SelectOption so = SelectOption.of(opt, opt);
-                    if (selected != null && selected.equals(opt)) {
-                        so = so.withDefault(true); // keep it highlighted
-                    }
-                    menu.addOptions(so);
+        List<String> baked = sp.dropdown().options();
+        if (baked == null || baked.isEmpty()) {
+            // Nothing to show until the load completes (a select menu needs an option)
+            List<ActionRow> rows = new ArrayList<>(sp.buttonRows().size() + 1);
+            rows.addAll(sp.buttonRows());
+            rows.add(loadingRow(sp.dropdown()));
+            return new Rendered(sp.embed(), rows, finish(mix(sp.fingerprint(), -3)), pending);
+        }
+        Rendered r = applyOptions(sp, null, selected, ctx);
+        return new Rendered(r.embed(), r.rows(), r.fingerprint(), pending);
+    }
+
+    private static Rendered applyOptions(RenderCache.StaticPage sp, List<String> opts, String selected, ComponentContext ctx) {
+        List<String> base = opts != null ? opts : sp.dropdown().options();
+        if (base instanceof OptionIndex index) {
+            return applyWindow(sp, index, ctx, selected, opts == null);
+        }
+        if (opts == null && selected == null && sp.staticRows() != null) {
+            return new Rendered(sp.embed(), sp.staticRows(), finish(sp.fingerprint()));
+        }
+
+        List<String> shown = opts != null ? opts : sp.dropdown().options();
+        List<ActionRow> rows = new ArrayList<>(sp.buttonRows().size() + 1);
+        rows.addAll(sp.buttonRows());
+        rows.add(dropdownRow(sp.dropdown(), shown, selected));
+        long fp = mix(mix(sp.fingerprint(), shown != null ? limitOptions(shown) : null), selected);
+        return new Rendered(sp.embed(), rows, finish(fp));
+    }
+
+    // Searchable dropdown: only the window and its navigation entries depend on the context
+    private static Rendered applyWindow(RenderCache.StaticPage sp, OptionIndex index, ComponentContext ctx, String selected,
+                                        boolean baked) {
+        String query = ctx != null ? ctx.get(sp.queryKey()) : null;
+        int offset = ctx != null ? offset(ctx.get(sp.offsetKey())) : 0;
+        if (baked && query == null && offset == 0 && selected == null) {
+            return new Rendered(sp.embed(), sp.staticRows(), finish(sp.fingerprint()));
+        }
+
+        OptionIndex.Window window = index.window(query, offset, Dropdowns.WINDOW_SIZE);
+        List<ActionRow> rows = new ArrayList<>(sp.buttonRows().size() + 1);
+        rows.addAll(sp.buttonRows());
+        rows.add(windowRow(sp.dropdown(), window, query, selected));
+        long fp = mix(mix(mix(mix(sp.fingerprint(), index), query), window.from()), selected);
+        return new Rendered(sp.embed(), rows, finish(fp));
+    }
+
+    // Integer when set by Dropdowns, String when restored from a stateless ID
+    private static int offset(Object value) {
+        if (value instanceof Number n) return Math.max(0, n.intValue());
+        if (value instanceof String s) {
+            try { return Math.max(0, Integer.parseInt(s.trim())); } catch (NumberFormatException ignored) {}
+        }
+        return 0;
+    }
+
+    // -------------------- Fingerprints --------------------
+
+    private static final long FP_SEED = 0xcbf29ce484222325L;
+
+    private static final long FP_PRIME = 0x100000001b3L;
+
+    /**
+     * 64-bit FNV-1a over the actual characters of strings (and of every string in a list),
+     * each prefixed by its length so field boundaries count; 32-bit hashCode()s would let
+     * colliding texts ("Aa"/"BB") skip a real edit. An OptionIndex is mixed by identity.
+     */
+    private static long mix(long h, Object o) {
+        if (o == null) return mix(h, -1);
+        if (o instanceof CharSequence s) {
+            h = mix(h, s.length());
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= FP_PRIME;
+            }
+            return h;
+        }
+        if (o instanceof OptionIndex) return mix(mix(h, -2), System.identityHashCode(o));
+        if (o instanceof List<?> list) {
+            h = mix(h, list.size());
+            for (Object e : list) h = mix(h, e);
+            return h;
+        }
+        return mix(h, o.hashCode());
+    }
+
+    private static long mix(long h, int v) {
+        h ^= v;
+        h *= FP_PRIME;   // FNV-1a style step, one per field
+        return h ^ (h >>> 29);
+    }
+
+    // 0 is reserved for "unknown"
+    private static long finish(long h) {
+        return h == 0L ? 1L : h;
+    }
+
+    private static ActionRow dropdownRow(Page.ComponentRef dd, List<String> opts, String selected) {
+        StringSelectMenu.Builder menu = StringSelectMenu.create(dd.id()).setPlaceholder(placeholder(dd));
+
+        if (opts != null) {
+            for (String opt : limitOptions(opts)) { // Discord StringSelect max 25
+                if (opt == null || Dropdowns.isWindowControl(opt)) continue; // reserved for the runtime
+                SelectOption so = SelectOption.of(opt, opt);
+                if (selected != null && selected.equals(opt)) {
+                    so = so.withDefault(true); // keep it highlighted
                 }
+                menu.addOptions(so);
             }
-            rows.add(ActionRow.of(menu.build()));
         }
+        return ActionRow.of(menu.build());
+    }
+
+    private static ActionRow loadingRow(Page.ComponentRef dd) {
+        return ActionRow.of(StringSelectMenu.create(dd.id())
+                .setPlaceholder("Loading options…")
+                .addOptions(SelectOption.of("Loading options…", Dropdowns.OPTIONS_LOADING))
+                .setDisabled(true)
+                .build());
+    }
+
+    /** One window of an indexed dropdown: previous, up to WINDOW_SIZE matches, more, search/clear. */
+    private static ActionRow windowRow(Page.ComponentRef dd, OptionIndex.Window w, String query, String selected) {
+        String placeholder = query == null ? placeholder(dd)
+                : w.total() == 0 ? "No matches for \"" + query + "\""
+                : w.total() + (w.total() == 1 ? " match" : " matches") + " for \"" + query + "\"";
+        StringSelectMenu.Builder menu = StringSelectMenu.create(dd.id()).setPlaceholder(placeholder);
+
+        if (w.hasPrevious()) {
+            menu.addOptions(SelectOption.of("◀ Previous", Dropdowns.WINDOW_PREVIOUS));
+        }
+        for (String opt : w.options()) {
+            SelectOption so = SelectOption.of(opt, opt);
+            if (opt.equals(selected)) so = so.withDefault(true);
+            menu.addOptions(so);
+        }
+        if (w.hasNext()) {
+            int first = w.from() + w.options().size() + 1;
+            int last = Math.min(w.total(), first + Dropdowns.WINDOW_SIZE - 1);
+            menu.addOptions(SelectOption.of("More… (" + first + "–" + last + " of " + w.total() + ")", Dropdowns.WINDOW_NEXT));
+        }
+        menu.addOptions(SelectOption.of("🔎 Search…", Dropdowns.WINDOW_SEARCH));
+        if (query != null) {
+            menu.addOptions(SelectOption.of("✖ Clear search", Dropdowns.WINDOW_CLEAR));
+        }
+        return ActionRow.of(menu.build());
+    }
 
-        return new Rendered(eb.build(), rows);
+    private static String placeholder(Page.ComponentRef dd) {
+        return (dd.label() == null || dd.label().isBlank()) ? "Select an option" : dd.label();
     }
 
     private static List<String> limitOptions(List<String> src) {
         if (src == null) return null;
         int end = Math.min(src.size(), Math.max(0, 25));
-        return new ArrayList<>(src.subList(0, end));
+        return src.subList(0, end);
     }
 }
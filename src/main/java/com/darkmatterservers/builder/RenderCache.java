@@ -0,0 +1,64 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.context.ContextKey;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-chain cache of the context-independent part of rendered pages.
+ * <p>
+ * Direct-mapped: page index i lives in slot {@code i % capacity}, so a lookup is one
+ * array read plus a few identity checks and the cache never grows. An entry is reused only
+ * while it was built for the same page index, the same Page instance at the same
+ * {@link Page#version()} and the same total page count; anything else is a miss and the
+ * slot is simply overwritten.
+ */
+@SuppressWarnings("unused")
+public final class RenderCache {
+
+    private final AtomicReferenceArray<StaticPage> slots;
+
+    public RenderCache(int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    /** Drops every cached page. */
+    public void invalidate() {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, null);
+    }
+
+    StaticPage get(int pageIndex, Page page, int totalPages) {
+        StaticPage e = slots.get(pageIndex % slots.length());
+        if (e != null && e.pageIndex() == pageIndex && e.page() == page
+                && e.version() == page.version() && e.totalPages() == totalPages) {
+            return e;
+        }
+        return null;
+    }
+
+    void put(StaticPage entry) {
+        slots.set(entry.pageIndex() % slots.length(), entry);
+    }
+
+    /**
+     * Immutable render parts of one page.
+     * staticRows = button rows plus the dropdown row with its baked-in options; it is sent
+     * as-is whenever the context neither overrides the options nor marks a selection
+     * (null when the dropdown has no baked-in options). fingerprint covers everything
+     * static; PageRenderer mixes the dynamic dropdown state into it per render.
+     * The context keys are null when the page has no dropdown.
+     */
+    record StaticPage(Page page, int version, int pageIndex, int totalPages, long fingerprint,
+                      MessageEmbed embed,
+                      List<ActionRow> buttonRows,
+                      List<ActionRow> staticRows,
+                      Page.ComponentRef dropdown,
+                      ContextKey<Object> optionsKey,
+                      ContextKey<String> selectedKey,
+                      ContextKey<String> queryKey,
+                      ContextKey<Object> offsetKey) {}
+}
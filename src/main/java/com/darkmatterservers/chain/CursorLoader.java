@@ -0,0 +1,17 @@
+package com.darkmatterservers.chain;
+
+/**
+ * Builds one page of a cursor-paginated listing (keyset pagination, API continuation
+ * tokens): given the cursor a page starts at, returns the page and the cursor of the next
+ * one. Used by {@link LazyPageSource.Builder#cursor(Object, CursorLoader)}.
+ *
+ * @param <C> cursor type, e.g. the last row's sort key
+ */
+@FunctionalInterface
+public interface CursorLoader<C> {
+
+    Slice<C> load(C cursor) throws Exception;
+
+    /** @param next where the following page starts; null if this was the last page */
+    record Slice<C>(Page page, C next) {}
+}
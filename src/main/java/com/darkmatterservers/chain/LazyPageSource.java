@@ -0,0 +1,304 @@
+package com.darkmatterservers.chain;
+
+import com.darkmatterservers.dispatch.HandlerExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link PageSource} that builds pages on demand and keeps a bounded window of them.
+ * <p>
+ * Loads never run on the interaction path: a page that is not cached yet is loaded on the
+ * executor while the {@code loadingPage} is shown, and the runtime renders the page again
+ * once the load completes. After every access the neighbouring pages ({@code prefetch} in
+ * each direction) are loaded in the background too, so next/back normally hit the cache.
+ * Concurrent requests for the same page share one load.
+ * <p>
+ * Cached pages are evicted least-recently-used beyond {@code cacheSize}, so memory follows
+ * the pages users actually look at, not the size of the dataset. A failed load that a
+ * user was waiting for renders the error page once (not cached), so the next click
+ * retries; a failed prefetch is forgotten, so the click that reaches it simply loads again.
+ * <p>
+ * The page count comes from an {@link IntSupplier} that is called on every render; back
+ * it with a cached count if computing it is expensive.
+ */
+@SuppressWarnings("unused")
+public final class LazyPageSource implements PageSource {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyPageSource.class);
+
+    private final IntSupplier totalPages;
+    private final PageLoader loader;
+    private final int prefetch;
+    private final Executor executor;
+    private final BiFunction<Integer, Throwable, Page> errorPage;
+    private final Page loadingPage;
+
+    private final Map<Integer, Page> cache;     // access-ordered LRU, guarded by itself
+    private final Map<Integer, Load> loading = new ConcurrentHashMap<>();
+    private final Map<Integer, Throwable> failed = new ConcurrentHashMap<>(); // until shown once
+
+    private LazyPageSource(Builder b) {
+        this.totalPages = b.totalPages;
+        this.loader = b.loader;
+        this.prefetch = b.prefetch;
+        this.executor = b.executor != null ? b.executor : SharedPrefetch.EXECUTOR;
+        this.errorPage = b.errorPage;
+        this.loadingPage = b.loadingPage;
+        int capacity = b.cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int totalPages() {
+        return Math.max(1, totalPages.getAsInt());
+    }
+
+    @Override
+    public Page page(int index) {
+        Page page = cached(index);
+        if (page == null) {
+            Throwable err = failed.remove(index);
+            if (err != null) {
+                log.warn("Could not load page {}", index, err);
+                page = errorPage.apply(index, err);
+            } else {
+                load(index, true);
+                page = loadingPage;
+            }
+        }
+        prefetchAround(index);
+        return page;
+    }
+
+    @Override
+    public CompletionStage<?> loading(int index, Page shown) {
+        if (shown != loadingPage) return null;
+        CompletableFuture<Page> load = loading.get(index);
+        // Already done (either way) if no longer in flight: render again right away
+        return load != null ? load.handle((page, err) -> null) : CompletableFuture.completedFuture(null);
+    }
+
+    /** Number of pages held right now. */
+    public int cachedPages() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /** Drops every cached page, e.g. after the underlying data changed. */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        failed.clear();
+    }
+
+    // -------------------- internals --------------------
+
+    private Page cached(int index) {
+        synchronized (cache) {
+            return cache.get(index);
+        }
+    }
+
+    /**
+     * Starts loading the page on the executor unless a load is already in flight, and returns
+     * that load. {@code demanded}: a user waits for it (not just a prefetch).
+     */
+    private Load load(int index, boolean demanded) {
+        Load mine = new Load();
+        mine.demanded = demanded;
+        Load running = loading.putIfAbsent(index, mine);
+        if (running != null) {
+            if (demanded) running.demanded = true;
+            return running;
+        }
+
+        Page hit = cached(index); // finished between our cache miss and putIfAbsent
+        if (hit != null) {
+            loading.remove(index, mine);
+            mine.complete(hit);
+            return mine;
+        }
+
+        Runnable task = () -> {
+            try {
+                Page page = Objects.requireNonNull(loader.load(index), "loader returned null");
+                synchronized (cache) {
+                    cache.put(index, page);
+                }
+                failed.remove(index);
+                mine.complete(page);
+            } catch (Throwable t) {
+                // Before completing: the waiting user's re-render then shows the error page
+                if (mine.demanded) failed.put(index, t);
+                mine.completeExceptionally(t);
+            } finally {
+                loading.remove(index, mine);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            loading.remove(index, mine);
+            if (demanded) failed.put(index, e);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private void prefetchAround(int index) {
+        if (prefetch == 0) return;
+        int total = totalPages();
+        for (int d = 1; d <= prefetch; d++) {
+            prefetch(index + d, total);
+            prefetch(index - d, total);
+        }
+    }
+
+    private void prefetch(int index, int total) {
+        if (index < 0 || index >= total || loading.containsKey(index) || cached(index) != null) return;
+        load(index, false).exceptionally(err -> {
+            log.debug("Prefetch of page {} failed: {}", index, err.toString());
+            return null;
+        });
+    }
+
+    /** One load in flight; demanded once a user is shown the loading page for it. */
+    private static final class Load extends CompletableFuture<Page> {
+        volatile boolean demanded;
+    }
+
+    // Created on first use, shared by every source without an executor of its own
+    private static final class SharedPrefetch {
+        static final Executor EXECUTOR = HandlerExecutors.defaultExecutor();
+    }
+
+    /** Turns a cursor loader into an index loader by remembering where each page starts. */
+    private static final class CursorPager<C> implements PageLoader {
+        private final CursorLoader<C> loader;
+        private final ConcurrentSkipListMap<Integer, C> starts = new ConcurrentSkipListMap<>();
+
+        CursorPager(C first, CursorLoader<C> loader) {
+            this.loader = loader;
+            starts.put(0, first);
+        }
+
+        @Override
+        public Page load(int index) throws Exception {
+            // Walk forward from the closest known cursor; after next/back that is the page itself
+            Map.Entry<Integer, C> from = starts.floorEntry(index);
+            int at = from.getKey();
+            C cursor = from.getValue();
+            while (true) {
+                CursorLoader.Slice<C> slice = loader.load(cursor);
+                if (slice.next() != null) starts.putIfAbsent(at + 1, slice.next());
+                if (at == index) return slice.page();
+                if (slice.next() == null) throw new IndexOutOfBoundsException("Listing ends at page " + at);
+                cursor = slice.next();
+                at++;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private IntSupplier totalPages;
+        private PageLoader loader;
+        private int cacheSize = 16;
+        private int prefetch = 1;
+        private Executor executor;
+        private BiFunction<Integer, Throwable, Page> errorPage =
+                (index, err) -> new Page("⚠️ Could not load this page.", "Please try again in a moment.");
+        private Page loadingPage = new Page("⏳ Loading…", "This page will show up in a moment.");
+
+        /** Fixed page count. */
+        public Builder totalPages(int totalPages) {
+            if (totalPages <= 0) throw new IllegalArgumentException("totalPages must be > 0");
+            this.totalPages = () -> totalPages;
+            return this;
+        }
+
+        /** Page count that may change while the chain runs (values below 1 count as 1). */
+        public Builder totalPages(IntSupplier totalPages) {
+            this.totalPages = Objects.requireNonNull(totalPages, "totalPages");
+            return this;
+        }
+
+        /** Builds pages by index (offset pagination). */
+        public Builder loader(PageLoader loader) {
+            this.loader = Objects.requireNonNull(loader, "loader");
+            return this;
+        }
+
+        /**
+         * Builds pages by cursor, starting at {@code first}. The cursor each page starts at is
+         * remembered once seen; jumping ahead walks the pages in between.
+         */
+        public <C> Builder cursor(C first, CursorLoader<C> loader) {
+            this.loader = new CursorPager<>(first, Objects.requireNonNull(loader, "loader"));
+            return this;
+        }
+
+        /** Most pages kept per source (default 16). */
+        public Builder cacheSize(int cacheSize) {
+            if (cacheSize <= 0) throw new IllegalArgumentException("cacheSize must be > 0");
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /** Pages loaded ahead in each direction after an access (default 1, 0 disables). */
+        public Builder prefetch(int prefetch) {
+            if (prefetch < 0) throw new IllegalArgumentException("prefetch must be >= 0");
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /** Where loads and prefetches run (default: one shared virtual-thread or daemon pool). */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /** Page shown while a page that is not cached yet loads (default: a short "loading" notice). */
+        public Builder loadingPage(Page loadingPage) {
+            this.loadingPage = Objects.requireNonNull(loadingPage, "loadingPage");
+            return this;
+        }
+
+        /** Page shown when a load fails (default: a short "try again" notice). */
+        public Builder errorPage(BiFunction<Integer, Throwable, Page> errorPage) {
+            this.errorPage = Objects.requireNonNull(errorPage, "errorPage");
+            return this;
+        }
+
+        public LazyPageSource build() {
+            Objects.requireNonNull(totalPages, "totalPages is required");
+            Objects.requireNonNull(loader, "loader or cursor is required");
+            if (prefetch * 2 + 1 > cacheSize) {
+                throw new IllegalArgumentException("cacheSize must hold the current page plus its prefetched neighbours");
+            }
+            return new LazyPageSource(this);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.darkmatterservers.chain;
 
+import com.darkmatterservers.builder.OptionIndex;
 import net.dv8tion.jda.api.interactions.components.buttons.ButtonStyle;
 
 import java.util.List;
@@ -23,6 +24,9 @@ public class Page {
     // Optional single dropdown
     private ComponentRef dropdown;
 
+    // Bumped on every mutation so cached renders of this page can tell they are stale
+    private volatile int version;
+
     public Page(String line1, String line2) {
         this.line1 = line1;
         this.line2 = line2;
@@ -33,11 +37,13 @@ public class Page {
             throw new IllegalArgumentException("Button index must be 0..7");
         }
         buttons[index] = button;
+        version++;
         return this;
     }
 
     public Page withDropdown(ComponentRef dropdown) {
         this.dropdown = dropdown;
+        version++;
         return this;
     }
 
@@ -57,15 +63,26 @@ public class Page {
         return dropdown;
     }
 
+    /** Mutation counter; changes whenever a button or the dropdown is replaced. */
+    public int version() {
+        return version;
+    }
+
     /**
      * Lightweight reference describing a component to render+wire.
      * type: "button" or "dropdown"
      * id: unique id used by the router
      * label: button label OR dropdown placeholder
-     * options: for dropdown only (nullable for buttons)
+     * options: for dropdown only (nullable for buttons); copied, so later changes to the
+     *          caller's list cannot slip past the render cache (an immutable, shared
+     *          {@link OptionIndex} is kept as is)
      * style: optional for buttons (defaults to PRIMARY when null)
      */
     public record ComponentRef(String type, String id, String label, List<String> options, ButtonStyle style) {
+        public ComponentRef {
+            if (options != null && !(options instanceof OptionIndex)) options = List.copyOf(options);
+        }
+
         public static ComponentRef button(String id, String label) {
             return new ComponentRef("button", id, label, null, ButtonStyle.PRIMARY);
         }
@@ -0,0 +1,10 @@
+package com.darkmatterservers.chain;
+
+/**
+ * Builds one page of a data-backed listing, e.g. rows {@code index * 10 .. index * 10 + 9}
+ * of a leaderboard query. Used by {@link LazyPageSource}; may block (database, HTTP).
+ */
+@FunctionalInterface
+public interface PageLoader {
+    Page load(int index) throws Exception;
+}
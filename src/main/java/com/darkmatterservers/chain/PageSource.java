@@ -0,0 +1,50 @@
+package com.darkmatterservers.chain;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Where a {@link PagedChain} gets its pages from.
+ * <p>
+ * The builder's {@code addPage(...)} produces a fixed, fully built list. For large
+ * data-backed listings (leaderboards, inventories) use {@link LazyPageSource}, which builds
+ * pages on demand from a loader or cursor and keeps only a bounded window of them.
+ * <p>
+ * Implementations are shared by every session running the chain and must be thread-safe.
+ */
+public interface PageSource {
+
+    /** Number of pages, at least 1. Called on every render, so keep it cheap. */
+    int totalPages();
+
+    /**
+     * The page at a 0-based index within [0, totalPages). Runs on the interaction path, so
+     * sources that load pages return a placeholder instead of blocking (see {@link #loading}).
+     */
+    Page page(int index);
+
+    /**
+     * If {@code shown} (as returned by {@link #page}) stands in for a page still loading,
+     * the stage after which the page is rendered again; null otherwise.
+     */
+    default CompletionStage<?> loading(int index, Page shown) {
+        return null;
+    }
+
+    /** A source over pages that are already built. */
+    static PageSource of(List<Page> pages) {
+        if (pages.isEmpty()) throw new IllegalArgumentException("PagedChain requires at least one page");
+        List<Page> copy = List.copyOf(pages);
+        return new PageSource() {
+            @Override
+            public int totalPages() {
+                return copy.size();
+            }
+
+            @Override
+            public Page page(int index) {
+                return copy.get(index);
+            }
+        };
+    }
+}
@@ -1,17 +1,29 @@
 package com.darkmatterservers.chain;
 
+import com.darkmatterservers.builder.DropdownOptionsProvider;
+import com.darkmatterservers.builder.RenderCache;
 import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import com.darkmatterservers.router.AsyncComponentHandler;
 import com.darkmatterservers.router.ComponentHandler;
 import com.darkmatterservers.router.InteractionRouter;
+import com.darkmatterservers.router.RouteTable;
+import com.darkmatterservers.stateless.StatelessCodec;
 
+import java.time.Duration;
 import java.util.*;
 
 /**
  * A paged chain with uniform pages.
  * Use Builder to declare:
  * - chainId (title)
- * - pages (Page objects)
- * - handlers for buttons/dropdowns (by component id)
+ * - pages (Page objects, or a {@link PageSource} that builds them on demand)
+ * - handlers for buttons/dropdowns (by component id or route template)
+ * <p>
+ * Handlers are compiled into an immutable {@link RouteTable} owned by the chain. The runtime
+ * resolves clicks through the session's chain first and only falls back to the global
+ * {@link InteractionRouter}, so two chains may wire the same id (e.g. "bytes.next")
+ * differently, and building a chain per request leaves no global state behind.
  * <p>
  * Runtime state (stored in ComponentContext):
  *  - Keys.PAGE_INDEX    -> int       (0-based)
@@ -19,11 +31,18 @@ import java.util.*;
  *  - Keys.MESSAGE_ID    -> String    (the Discord message we edit in-place)
  *  - Keys.CHANNEL_ID    -> String    (where the message lives)
  *  - Keys.GUILD_ID      -> String    (optional, if relevant)
+ * The same keys are available pre-resolved as {@link ContextKey} constants
+ * (e.g. {@link ContextKey#PAGE_INDEX}), which skip name lookups and boxing.
  * <p>
  * Optional dropdown UX keys (conventions used by PageRenderer/Bytes/Dropdowns):
- *  - "<dropdownId>.options" -> List<String>  (runtime override of options)
+ *  - "<dropdownId>.options" -> List<String>  (runtime override of options; for options that are
+ *    the same across sessions prefer {@link Builder#options(String, DropdownOptionsProvider)})
  *  - "<dropdownId>.selected" -> String (keep a picked option highlighted)
  *  - "<dropdownId>.autoNext" -> boolean (if true, advance page after pick)
+ * <p>
+ * Stateless chains ({@link Builder#stateless(String...)}) keep no session on the server:
+ * the page index and the declared state keys are signed into every component's custom ID
+ * and the context is rebuilt from the clicked ID. Values come back as Strings.
  */
 @SuppressWarnings("unused")
 public class PagedChain {
@@ -38,25 +57,65 @@ public class PagedChain {
         private Keys() {}
     }
 
+    // Upper bound for cached page renders per chain (direct-mapped by page index)
+    private static final int RENDER_CACHE_SLOTS = 64;
+
     private final String chainId;
-    private final List<Page> pages;
+    private final PageSource pages;
+    private final RouteTable routes;
+    private final RenderCache renderCache;
+    private final List<String> stateKeys; // null unless stateless
+    private final Map<String, DropdownOptionsProvider> optionProviders;
 
-    private PagedChain(String chainId, List<Page> pages, Map<String, ComponentHandler> handlers) {
-        if (pages.isEmpty()) throw new IllegalArgumentException("PagedChain requires at least one page");
+    private PagedChain(String chainId, PageSource pages, Map<String, ComponentHandler> handlers, List<String> stateKeys,
+                       Map<String, DropdownOptionsProvider> optionProviders) {
         this.chainId = chainId;
-        this.pages = List.copyOf(pages);
-        // Register all handlers with the global router
-        Map<String, ComponentHandler> copy = Map.copyOf(handlers);
-        copy.forEach(InteractionRouter::register);
+        this.pages = pages;
+        // Chain-scoped dispatch table; nothing is registered globally
+        this.routes = RouteTable.builder().addAll(handlers).build();
+        this.renderCache = new RenderCache(Math.min(pages.totalPages(), RENDER_CACHE_SLOTS));
+        this.stateKeys = stateKeys != null ? List.copyOf(stateKeys) : null;
+        this.optionProviders = Map.copyOf(optionProviders);
     }
 
     public String chainId() { return chainId; }
-    public int totalPages() { return pages.size(); }
-    public Page page(int index) { return pages.get(index); }
+
+    /** Cache of the static render parts of this chain's pages (used by PageRenderer). */
+    public RenderCache renderCache() { return renderCache; }
+
+    /** True if this chain's state travels in component IDs instead of a server-side session. */
+    public boolean isStateless() { return stateKeys != null; }
+
+    /** Context keys carried in the component IDs of a stateless chain (empty otherwise). */
+    public List<String> stateKeys() { return stateKeys != null ? stateKeys : List.of(); }
+
+    /** The provider of a dropdown's options, or null if the page's options are used. */
+    public DropdownOptionsProvider optionsProvider(String dropdownId) { return optionProviders.get(dropdownId); }
+
+    /** This chain's precompiled handler table. */
+    public RouteTable routes() { return routes; }
+
+    /**
+     * Resolves a component id against this chain's handlers, falling back to the
+     * global {@link InteractionRouter}. Returns null if neither knows the id.
+     */
+    public RouteTable.RouteMatch match(String componentId) {
+        RouteTable.RouteMatch m = routes.match(componentId);
+        return m != null ? m : InteractionRouter.match(componentId);
+    }
+
+    public int totalPages() { return pages.totalPages(); }
+
+    /** The page at an index; for a lazy source this may be a placeholder while it loads (see {@link LazyPageSource}). */
+    public Page page(int index) { return pages.page(index); }
+
+    /** Where this chain's pages come from. */
+    public PageSource pageSource() { return pages; }
 
     public int clampIndex(int i) {
         if (i < 0) return 0;
-        if (i >= pages.size()) return pages.size() - 1;
+        int total = pages.totalPages();
+        if (i >= total) return total - 1;
         return i;
     }
 
@@ -66,29 +125,20 @@ public class PagedChain {
 
     /** Read page index from context; returns 0 if missing/invalid. */
     public static int getPageIndex(ComponentContext ctx) {
-        Object v = ctx.get(Keys.PAGE_INDEX);
-        if (v instanceof Number n) return n.intValue();
-        try {
-            if (v instanceof String s) return Integer.parseInt(s.trim());
-        } catch (NumberFormatException ignored) {}
-        return 0;
+        // getInt parses a numeric String stored through the String API
+        return ctx.getInt(ContextKey.PAGE_INDEX, 0);
     }
 
     /** Read total pages from context; returns 1 if missing/invalid. */
     public static int getTotalPages(ComponentContext ctx) {
-        Object v = ctx.get(Keys.TOTAL_PAGES);
-        if (v instanceof Number n) return n.intValue();
-        try {
-            if (v instanceof String s) return Integer.parseInt(s.trim());
-        } catch (NumberFormatException ignored) {}
-        return 1;
+        return ctx.getInt(ContextKey.TOTAL_PAGES, 1);
     }
 
     /** Set the page index with clamping to [0.total-1]. */
     public static void setPageIndexClamped(ComponentContext ctx, int newIndex) {
         int total = Math.max(1, getTotalPages(ctx));
         int clamped = Math.max(0, Math.min(total - 1, newIndex));
-        ctx.put(Keys.PAGE_INDEX, clamped);
+        ctx.putInt(ContextKey.PAGE_INDEX, clamped);
     }
 
     /** Increment/ decrement of the current page index with clamping. */
@@ -122,7 +172,10 @@ public class PagedChain {
     public static class Builder {
         private String chainId;
         private final List<Page> pages = new ArrayList<>();
+        private PageSource source;
         private final Map<String, ComponentHandler> handlers = new LinkedHashMap<>();
+        private List<String> stateKeys;
+        private final Map<String, DropdownOptionsProvider> optionProviders = new HashMap<>();
 
         public Builder chainId(String chainId) {
             this.chainId = chainId;
@@ -134,11 +187,47 @@ public class PagedChain {
             return this;
         }
 
+        /**
+         * Takes pages from a source instead of {@link #addPage(Page)}, e.g. a
+         * {@link LazyPageSource} over a large listing. The two cannot be combined.
+         */
+        public Builder pages(PageSource source) {
+            this.source = Objects.requireNonNull(source, "source");
+            return this;
+        }
+
         public Builder on(String componentId, ComponentHandler handler) {
             handlers.put(Objects.requireNonNull(componentId, "componentId"), Objects.requireNonNull(handler, "handler"));
             return this;
         }
 
+        /**
+         * Registers a handler that completes asynchronously. The runtime acks the click
+         * immediately and runs the handler off the gateway thread (see {@link AsyncComponentHandler}).
+         */
+        public Builder onAsync(String componentId, AsyncComponentHandler handler) {
+            return on(componentId, handler);
+        }
+
+        /** Same as {@link #onAsync(String, AsyncComponentHandler)} with a per-handler timeout. */
+        public Builder onAsync(String componentId, Duration timeout, AsyncComponentHandler handler) {
+            return on(componentId, Objects.requireNonNull(handler, "handler").withTimeout(timeout));
+        }
+
+        /** Runs blocking code (e.g. a database call) on the runtime's handler executor. */
+        public Builder onBlocking(String componentId, ComponentHandler handler) {
+            return on(componentId, AsyncComponentHandler.blocking(handler));
+        }
+
+        /**
+         * Renders the dropdown's options from a provider, e.g. a shared {@link com.darkmatterservers.builder.OptionsCache},
+         * instead of the options baked into the page. Providers can be shared between chains.
+         */
+        public Builder options(String dropdownId, DropdownOptionsProvider provider) {
+            optionProviders.put(Objects.requireNonNull(dropdownId, "dropdownId"), Objects.requireNonNull(provider, "provider"));
+            return this;
+        }
+
         /**
          * Wires classic next/back/done semantics that advance or finish the chain by
          * modifying ComponentContext using standard keys. You can override any of these
@@ -157,9 +246,23 @@ public class PagedChain {
             return this;
         }
 
+        /**
+         * Makes the chain stateless: besides the page index, the given context keys (at most 8,
+         * e.g. "<dropdownId>.selected") are packed into the component IDs. Everything must fit
+         * into Discord's 100-character custom_id, so keep ids, chainId and values short.
+         */
+        public Builder stateless(String... carriedKeys) {
+            if (carriedKeys.length > StatelessCodec.MAX_VALUES) {
+                throw new IllegalArgumentException("A stateless chain carries at most " + StatelessCodec.MAX_VALUES + " keys");
+            }
+            this.stateKeys = List.of(carriedKeys);
+            return this;
+        }
+
         public PagedChain build() {
             Objects.requireNonNull(chainId, "chainId (title) is required");
-            return new PagedChain(chainId, pages, handlers);
+            if (source != null && !pages.isEmpty()) throw new IllegalStateException("Use either addPage(...) or pages(source), not both");
+            return new PagedChain(chainId, source != null ? source : PageSource.of(pages), handlers, stateKeys, optionProviders);
         }
     }
 }
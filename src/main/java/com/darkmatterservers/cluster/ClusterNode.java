@@ -0,0 +1,138 @@
+package com.darkmatterservers.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * This process's view of a cluster of bot nodes: its own node ID, the transport to the
+ * others and the current membership as a {@link HashRing}.
+ * <p>
+ * Membership is whatever the bot's own discovery says (static config, a service registry,
+ * heartbeats); report every change through {@link #members(Collection)}, {@link #join(String)}
+ * or {@link #leave(String)}, and listeners (the runtime) move sessions to their new owners.
+ * A node that leaves the ring while still running keeps serving clicks but hands every
+ * session it holds to the remaining members, which is how a node is drained before shutdown.
+ */
+@SuppressWarnings("unused")
+public final class ClusterNode {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterNode.class);
+
+    private final String self;
+    private final ClusterTransport transport;
+    private final int virtualNodes;
+    private final List<Consumer<HashRing>> listeners = new CopyOnWriteArrayList<>();
+    private volatile HashRing ring;
+
+    private ClusterNode(Builder b) {
+        this.self = b.self;
+        this.transport = b.transport;
+        this.virtualNodes = b.virtualNodes;
+        this.ring = HashRing.of(b.members, virtualNodes).with(self);
+    }
+
+    public static Builder builder(String self) {
+        return new Builder(self);
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public ClusterTransport transport() {
+        return transport;
+    }
+
+    public HashRing ring() {
+        return ring;
+    }
+
+    /** The node owning the routing key, or null while the ring is empty. */
+    public String ownerOf(String routingKey) {
+        return ring.owner(routingKey);
+    }
+
+    /** True if this node owns the routing key, or nobody does (an empty ring keeps everything local). */
+    public boolean owns(String routingKey) {
+        String owner = ring.owner(routingKey);
+        return owner == null || owner.equals(self);
+    }
+
+    /** Replaces the membership. */
+    public void members(Collection<String> nodeIds) {
+        update(HashRing.of(nodeIds, virtualNodes));
+    }
+
+    public void join(String nodeId) {
+        update(ring.with(nodeId));
+    }
+
+    public void leave(String nodeId) {
+        update(ring.without(nodeId));
+    }
+
+    /** Called with the new ring after every membership change, on the thread reporting it. */
+    public void addMembershipListener(Consumer<HashRing> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeMembershipListener(Consumer<HashRing> listener) {
+        listeners.remove(listener);
+    }
+
+    // -------------------- internals --------------------
+
+    private synchronized void update(HashRing next) {
+        if (next.members().equals(ring.members())) return;
+        log.info("Cluster membership of {} changed: {} -> {}", self, ring.members(), next.members());
+        ring = next;
+        for (Consumer<HashRing> l : listeners) {
+            try {
+                l.accept(next);
+            } catch (Throwable t) {
+                log.error("Membership listener failed", t);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final String self;
+        private ClusterTransport transport;
+        private Collection<String> members = List.of();
+        private int virtualNodes = HashRing.DEFAULT_VIRTUAL_NODES;
+
+        private Builder(String self) {
+            if (self == null || self.isBlank()) throw new IllegalArgumentException("self must not be blank");
+            this.self = self;
+        }
+
+        public Builder transport(ClusterTransport transport) {
+            this.transport = Objects.requireNonNull(transport, "transport");
+            return this;
+        }
+
+        /** Initial members besides this node (default: none). */
+        public Builder members(Collection<String> members) {
+            this.members = List.copyOf(members);
+            return this;
+        }
+
+        /** Ring points per node (default {@link HashRing#DEFAULT_VIRTUAL_NODES}); every node must use the same. */
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be > 0");
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        public ClusterNode build() {
+            Objects.requireNonNull(transport, "transport is required");
+            return new ClusterNode(this);
+        }
+    }
+}
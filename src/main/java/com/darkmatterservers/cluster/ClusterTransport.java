@@ -0,0 +1,36 @@
+package com.darkmatterservers.cluster;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Node-to-node messaging SPI for cluster mode: forwarded clicks and session hand-offs.
+ * <p>
+ * Built-in: {@link LoopbackTransport} (nodes in one process, for tests and local runs).
+ * Networked implementations carry {@link ForwardedInteraction#encode()} and
+ * {@link SessionHandOff#encode()} over whatever the bot already runs (HTTP, gRPC, a
+ * message broker). Nothing here is on the path of clicks for local sessions.
+ * <p>
+ * Delivery is at most once and may be asynchronous; the returned future completes once
+ * the message was handed to the target (or failed to be). Implementations must be safe
+ * for concurrent use.
+ */
+@SuppressWarnings("unused")
+public interface ClusterTransport {
+
+    /** Receives messages addressed to a node of this process. */
+    interface Receiver {
+        void onInteraction(ForwardedInteraction interaction);
+
+        void onHandOff(SessionHandOff handOff);
+    }
+
+    /** Starts delivering messages for the node ID to the receiver (replacing any previous one). */
+    void bind(String nodeId, Receiver receiver);
+
+    /** Stops delivering messages for the node ID. */
+    void unbind(String nodeId);
+
+    CompletableFuture<Void> forward(String nodeId, ForwardedInteraction interaction);
+
+    CompletableFuture<Void> handOff(String nodeId, SessionHandOff handOff);
+}
@@ -0,0 +1,90 @@
+package com.darkmatterservers.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A click received by one node and passed to the node owning its session.
+ * <p>
+ * The receiving node has already acked it (deferEdit), so the owner answers by editing the
+ * message through the interaction token, which any connection of the same application may
+ * use for 15 minutes. Live JDA objects do not travel: handlers on the owner see no
+ * {@code rawEvent}.
+ *
+ * @param componentId the clicked component, or the dropdown ID for {@link Kind#SEARCH}
+ * @param values      selected values ({@link Kind#SELECT}) or the query ({@link Kind#SEARCH})
+ * @param guildId     null for DMs
+ */
+@SuppressWarnings("unused")
+public record ForwardedInteraction(Kind kind, long interactionId, String token, String userId, String messageId,
+                                   String channelId, String guildId, String componentId, List<String> values) {
+
+    private static final byte VERSION = 1;
+
+    public enum Kind { BUTTON, SELECT, SEARCH }
+
+    public ForwardedInteraction {
+        Objects.requireNonNull(kind, "kind");
+        Objects.requireNonNull(token, "token");
+        Objects.requireNonNull(userId, "userId");
+        Objects.requireNonNull(messageId, "messageId");
+        Objects.requireNonNull(channelId, "channelId");
+        Objects.requireNonNull(componentId, "componentId");
+        values = values == null ? List.of() : List.copyOf(values);
+    }
+
+    /** First value, or null. */
+    public String value() {
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /** Wire form for transports that leave the process. */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(kind.ordinal());
+            out.writeLong(interactionId);
+            out.writeUTF(token);
+            out.writeUTF(userId);
+            out.writeUTF(messageId);
+            out.writeUTF(channelId);
+            out.writeBoolean(guildId != null);
+            if (guildId != null) out.writeUTF(guildId);
+            out.writeUTF(componentId);
+            out.writeShort(values.size());
+            for (String v : values) out.writeUTF(v);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ForwardedInteraction decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported forwarded interaction version " + version);
+            Kind kind = Kind.values()[in.readByte()];
+            long interactionId = in.readLong();
+            String token = in.readUTF();
+            String userId = in.readUTF();
+            String messageId = in.readUTF();
+            String channelId = in.readUTF();
+            String guildId = in.readBoolean() ? in.readUTF() : null;
+            String componentId = in.readUTF();
+            int n = in.readUnsignedShort();
+            List<String> values = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) values.add(in.readUTF());
+            return new ForwardedInteraction(kind, interactionId, token, userId, messageId, channelId, guildId, componentId, values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
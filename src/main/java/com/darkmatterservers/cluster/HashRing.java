@@ -0,0 +1,143 @@
+package com.darkmatterservers.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping routing keys to node IDs.
+ * <p>
+ * Every node is placed at {@code virtualNodes} points on a 64-bit ring and a key belongs to
+ * the first point at or after its own hash, so adding or removing one node moves only about
+ * 1/N of the keys, all of them to or from that node. Hashes are computed from the strings
+ * alone (FNV-1a, then a murmur3 finalizer), never from {@link String#hashCode()} or identity,
+ * so every process that knows the same members agrees on every owner.
+ * <p>
+ * Lookups are a binary search over a sorted long[]; rings are rebuilt, never changed, so
+ * readers need no locking.
+ */
+@SuppressWarnings("unused")
+public final class HashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final HashRing EMPTY = new HashRing(List.of(), DEFAULT_VIRTUAL_NODES);
+
+    private final List<String> members;     // sorted, distinct
+    private final int virtualNodes;
+    private final long[] points;            // ascending
+    private final String[] owners;          // owners[i] sits at points[i]
+
+    private HashRing(List<String> members, int virtualNodes) {
+        this.members = members;
+        this.virtualNodes = virtualNodes;
+
+        int n = members.size() * virtualNodes;
+        long[] hashes = new long[n];
+        String[] nodes = new String[n];
+        Integer[] order = new Integer[n];
+        int i = 0;
+        for (String member : members) {
+            for (int v = 0; v < virtualNodes; v++, i++) {
+                hashes[i] = hash(member + '#' + v);
+                nodes[i] = member;
+                order[i] = i;
+            }
+        }
+        // Ties (practically never) go to the smaller node ID, the same way on every process
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(hashes[a], hashes[b]);
+            return c != 0 ? c : nodes[a].compareTo(nodes[b]);
+        });
+        this.points = new long[n];
+        this.owners = new String[n];
+        for (int k = 0; k < n; k++) {
+            points[k] = hashes[order[k]];
+            owners[k] = nodes[order[k]];
+        }
+    }
+
+    public static HashRing empty() {
+        return EMPTY;
+    }
+
+    public static HashRing of(Collection<String> members) {
+        return of(members, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /** A ring of the given node IDs (blank and duplicate IDs are ignored). */
+    public static HashRing of(Collection<String> members, int virtualNodes) {
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be > 0");
+        TreeSet<String> unique = new TreeSet<>();
+        for (String m : members) {
+            if (m != null && !m.isBlank()) unique.add(m);
+        }
+        return new HashRing(List.copyOf(unique), virtualNodes);
+    }
+
+    /** The node owning the key, or null if the ring has no members. */
+    public String owner(String key) {
+        if (points.length == 0) return null;
+        long h = hash(Objects.requireNonNull(key, "key"));
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /** Member node IDs, sorted. */
+    public List<String> members() {
+        return members;
+    }
+
+    public boolean contains(String nodeId) {
+        return members.contains(nodeId);
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    public int virtualNodes() {
+        return virtualNodes;
+    }
+
+    /** This ring plus the node (this ring if already a member). */
+    public HashRing with(String nodeId) {
+        if (contains(nodeId)) return this;
+        TreeSet<String> next = new TreeSet<>(members);
+        next.add(nodeId);
+        return of(next, virtualNodes);
+    }
+
+    /** This ring without the node (this ring if not a member). */
+    public HashRing without(String nodeId) {
+        if (!contains(nodeId)) return this;
+        TreeSet<String> next = new TreeSet<>(members);
+        next.remove(nodeId);
+        return of(next, virtualNodes);
+    }
+
+    @Override
+    public String toString() {
+        return "HashRing" + members;
+    }
+
+    // -------------------- internals --------------------
+
+    // Stable across processes and JVM versions
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
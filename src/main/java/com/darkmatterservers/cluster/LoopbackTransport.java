@@ -0,0 +1,58 @@
+package com.darkmatterservers.cluster;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClusterTransport} between nodes of the same process: share one instance among
+ * several runtimes to run a cluster in a test or on a single machine.
+ * <p>
+ * Messages are delivered on the given executor (default: the sending thread) without
+ * being encoded, so the receiver sees the sender's objects.
+ */
+@SuppressWarnings("unused")
+public final class LoopbackTransport implements ClusterTransport {
+
+    private final Map<String, Receiver> nodes = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    public LoopbackTransport() {
+        this(Runnable::run);
+    }
+
+    public LoopbackTransport(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    @Override
+    public void bind(String nodeId, Receiver receiver) {
+        nodes.put(Objects.requireNonNull(nodeId, "nodeId"), Objects.requireNonNull(receiver, "receiver"));
+    }
+
+    @Override
+    public void unbind(String nodeId) {
+        nodes.remove(nodeId);
+    }
+
+    @Override
+    public CompletableFuture<Void> forward(String nodeId, ForwardedInteraction interaction) {
+        return deliver(nodeId, r -> r.onInteraction(interaction));
+    }
+
+    @Override
+    public CompletableFuture<Void> handOff(String nodeId, SessionHandOff handOff) {
+        return deliver(nodeId, r -> r.onHandOff(handOff));
+    }
+
+    // -------------------- internals --------------------
+
+    private CompletableFuture<Void> deliver(String nodeId, Consumer<Receiver> message) {
+        Receiver receiver = nodes.get(nodeId);
+        if (receiver == null) return CompletableFuture.failedFuture(new IllegalStateException("Node not bound: " + nodeId));
+        return CompletableFuture.runAsync(() -> message.accept(receiver), executor);
+    }
+}
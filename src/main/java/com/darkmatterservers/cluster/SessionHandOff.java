@@ -0,0 +1,55 @@
+package com.darkmatterservers.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * A session moving to the node that now owns it: its store key, the chain to resolve on
+ * the receiving node and the context as encoded by
+ * {@link com.darkmatterservers.context.ContextCodec}.
+ */
+@SuppressWarnings("unused")
+public record SessionHandOff(String key, String chainId, byte[] context) {
+
+    private static final byte VERSION = 1;
+
+    public SessionHandOff {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(chainId, "chainId");
+        Objects.requireNonNull(context, "context");
+    }
+
+    /** Wire form for transports that leave the process. */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(context.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(key);
+            out.writeUTF(chainId);
+            out.writeInt(context.length);
+            out.write(context);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SessionHandOff decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported session hand-off version " + version);
+            String key = in.readUTF();
+            String chainId = in.readUTF();
+            byte[] context = new byte[in.readInt()];
+            in.readFully(context);
+            return new SessionHandOff(key, chainId, context);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.darkmatterservers.context;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,13 +22,52 @@ import java.util.Optional;
  *      * "rawEvent"           -> the JDA event object
  * <p>
  * You can store anything else you want alongside those keys.
+ * <p>
+ * Storage is slot-based rather than a HashMap: the well-known keys in {@link ContextKey}
+ * live in fixed slots (page index and total pages as primitive ints), and any other key
+ * is interned once into an index kept in a small, linearly scanned array. The typed
+ * {@link ContextKey} API skips name hashing entirely; the String API resolves the name to
+ * the same slots, so both views always agree. Names beyond the process-wide intern cap
+ * ({@link ContextKey#MAX_INTERNED}) are kept in a per-context map instead.
+ * <p>
+ * The typed API keeps "pageIndex" and "totalPages" as ints: a typed put of anything else
+ * throws IllegalArgumentException. The String API stays as lenient as the old map: whatever
+ * it stores there (a String, null, ...) reads back as stored, and the typed int readers
+ * parse numeric strings.
+ * <p>
+ * Instances are thread-safe: every access holds the context's own monitor (never a
+ * shared lock), and the runtime additionally runs interactions for one session one at a
+ * time through a {@link com.darkmatterservers.dispatch.SessionMailbox}.
  */
 @SuppressWarnings("unused")
 public class ComponentContext {
 
+    // Stands in for an explicitly stored null, so has() matches the old map semantics
+    private static final Object NULL = new Object();
+
     private final String userId;
-    private final Map<String, Object> data = new HashMap<>();
-    private boolean completed = false;
+
+    // Well-known int slots (PAGE_INDEX, TOTAL_PAGES) and their presence bits
+    private final int[] ints = new int[ContextKey.INT_SLOTS];
+    private int intPresent;
+    // Non-Integer values the String API stored in an int slot, kept verbatim (null when unused)
+    private final Object[] intRaw = new Object[ContextKey.INT_SLOTS];
+
+    // Remaining well-known slots, indexed by ContextKey index
+    private final Object[] fixed = new Object[ContextKey.WELL_KNOWN];
+
+    // Custom keys: parallel arrays in insertion order, scanned linearly (contexts are small)
+    private int[] customIds = new int[4];
+    private Object[] customValues = new Object[4];
+    private int customCount;
+
+    // Keys whose names did not fit into the intern table, by name (rarely used)
+    private Map<String, Object> overflow;
+
+    private volatile boolean completed = false;
+
+    // Placeholder values captured by the route template that matched the current interaction
+    private volatile Map<String, String> routeParams = Map.of();
 
     public ComponentContext(String userId) {
         this.userId = userId;
@@ -40,16 +80,78 @@ public class ComponentContext {
         return userId;
     }
 
+    // -------------------- Typed key API --------------------
+
+    /** Returns the value for a typed key, or null if absent or of another type. */
+    public synchronized <T> T get(ContextKey<T> key) {
+        int idx = key.index();
+        if (idx >= 0 && idx < ContextKey.INT_SLOTS) return key.cast(intValue(idx));
+        return key.cast(read(idx, key.name()));
+    }
+
+    /**
+     * Stores a value under a typed key.
+     * Throws IllegalArgumentException for anything but an Integer (or null, which removes it) under an int key.
+     */
+    public synchronized <T> void put(ContextKey<T> key, T value) {
+        int idx = key.index();
+        if (idx >= 0 && idx < ContextKey.INT_SLOTS) {
+            if (value == null) {
+                erase(idx, null);
+            } else if (value instanceof Integer i) {
+                setInt(idx, i);
+            } else {
+                throw new IllegalArgumentException("Context key '" + key.name() + "' holds an int; got "
+                        + value.getClass().getSimpleName() + " '" + value + "'");
+            }
+            return;
+        }
+        write(idx, key.name(), value);
+    }
+
+    /** Removes the value for a typed key. */
+    public synchronized void remove(ContextKey<?> key) {
+        erase(key.index(), key.name());
+    }
+
+    /** Returns true if a value (possibly null) is stored under the key. */
+    public synchronized boolean has(ContextKey<?> key) {
+        return present(key.index(), key.name());
+    }
+
+    /** Reads an int without boxing for the primitive slots (parsing a stored numeric String); other keys are unboxed. */
+    public synchronized int getInt(ContextKey<Integer> key, int defaultValue) {
+        int idx = key.index();
+        if (idx >= 0 && idx < ContextKey.INT_SLOTS) {
+            if ((intPresent & (1 << idx)) != 0) return ints[idx];
+            Integer v = intRaw[idx] != null ? toInt(unwrap(intRaw[idx])) : null;
+            return v != null ? v : defaultValue;
+        }
+        Integer v = key.cast(read(idx, key.name()));
+        return v != null ? v : defaultValue;
+    }
+
+    /** Stores an int without boxing for the primitive slots. */
+    public synchronized void putInt(ContextKey<Integer> key, int value) {
+        int idx = key.index();
+        if (idx >= 0 && idx < ContextKey.INT_SLOTS) {
+            setInt(idx, value);
+        } else {
+            write(idx, key.name(), value);
+        }
+    }
+
     // -------------------- Mutators --------------------
 
     /** Stores a value by key. */
-    public void put(String key, Object value) {
-        data.put(key, value);
+    public synchronized void put(String key, Object value) {
+        write(ContextKey.index(key), key, value);
     }
 
     /** Stores a value only if the key is not already present. */
-    public void putIfAbsent(String key, Object value) {
-        data.putIfAbsent(key, value);
+    public synchronized void putIfAbsent(String key, Object value) {
+        int idx = ContextKey.index(key);
+        if (read(idx, key) == null) write(idx, key, value);
     }
 
     /**
@@ -57,31 +159,39 @@ public class ComponentContext {
      * Handy when you want to assign a default and immediately use it.
      */
     @SuppressWarnings("unchecked")
-    public <T> T putIfAbsentReturn(String key, T value) {
-        Object existing = data.putIfAbsent(key, value);
-        return (T) (existing != null ? existing : value);
+    public synchronized <T> T putIfAbsentReturn(String key, T value) {
+        int idx = ContextKey.index(key);
+        Object existing = read(idx, key);
+        if (existing != null) return (T) existing;
+        write(idx, key, value);
+        return value;
     }
 
     /** Removes the value for the given key. */
-    public void remove(String key) {
-        data.remove(key);
+    public synchronized void remove(String key) {
+        erase(ContextKey.index(key), key);
     }
 
     /** Clears all context data. */
-    public void clear() {
-        data.clear();
+    public synchronized void clear() {
+        intPresent = 0;
+        Arrays.fill(intRaw, null);
+        Arrays.fill(fixed, null);
+        Arrays.fill(customValues, 0, customCount, null);
+        customCount = 0;
+        overflow = null;
     }
 
     // -------------------- Accessors --------------------
 
     /** Retrieves a raw object value by key. */
-    public Object get(String key) {
-        return data.get(key);
+    public synchronized Object get(String key) {
+        return read(ContextKey.index(key), key);
     }
 
     /** Retrieves a value by key, casting it to the given type safely. */
-    public <T> Optional<T> get(String key, Class<T> type) {
-        Object value = data.get(key);
+    public synchronized <T> Optional<T> get(String key, Class<T> type) {
+        Object value = read(ContextKey.index(key), key);
         if (type.isInstance(value)) {
             return Optional.of(type.cast(value));
         }
@@ -89,32 +199,41 @@ public class ComponentContext {
     }
 
     /** Returns the value or a fallback default. */
-    public Object getOrDefault(String key, Object defaultValue) {
-        return data.getOrDefault(key, defaultValue);
+    public synchronized Object getOrDefault(String key, Object defaultValue) {
+        int idx = ContextKey.index(key);
+        return present(idx, key) ? read(idx, key) : defaultValue;
     }
 
     /** Returns true if the key exists in the context. */
-    public boolean has(String key) {
-        return data.containsKey(key);
+    public synchronized boolean has(String key) {
+        return present(ContextKey.index(key), key);
     }
 
-    /** Returns an unmodifiable view of all context data. */
-    public Map<String, Object> all() {
-        return Collections.unmodifiableMap(data);
+    /** Returns an unmodifiable snapshot of all context data. */
+    public synchronized Map<String, Object> all() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (int i = 0; i < ContextKey.WELL_KNOWN; i++) {
+            if (present(i, null)) out.put(ContextKey.nameOf(i), read(i, null));
+        }
+        for (int i = 0; i < customCount; i++) {
+            out.put(ContextKey.nameOf(customIds[i]), unwrap(customValues[i]));
+        }
+        if (overflow != null) overflow.forEach((k, v) -> out.put(k, unwrap(v)));
+        return Collections.unmodifiableMap(out);
     }
 
     // -------------------- Typed convenience getters --------------------
 
     /** Returns the value as a String or null. */
     public String getString(String key) {
-        Object value = data.get(key);
+        Object value = get(key);
         return value instanceof String str ? str : null;
         // (If needed, expand to String.valueOf for non-strings, but null-safety is nicer here.)
     }
 
     /** Returns the value as an Integer or null (parses String values when possible). */
     public Integer getInt(String key) {
-        Object value = data.get(key);
+        Object value = get(key);
         if (value instanceof Integer i) return i;
         if (value instanceof Number n) return n.intValue();
         if (value instanceof String s) {
@@ -125,7 +244,7 @@ public class ComponentContext {
 
     /** Returns the value as a Boolean or null (parses String values \"true\"/\"false\"). */
     public Boolean getBoolean(String key) {
-        Object value = data.get(key);
+        Object value = get(key);
         if (value instanceof Boolean b) return b;
         if (value instanceof String s) return Boolean.parseBoolean(s.trim());
         return null;
@@ -138,9 +257,9 @@ public class ComponentContext {
      * Bytes set both \"value\" and \"interactionValue\" for convenience; we check both.
      */
     public String interactionValue() {
-        String v = getString("interactionValue");
+        String v = get(ContextKey.INTERACTION_VALUE);
         if (v != null) return v;
-        return getString("value");
+        return get(ContextKey.VALUE);
     }
 
     /**
@@ -149,11 +268,11 @@ public class ComponentContext {
      */
     @SuppressWarnings("unchecked")
     public List<String> interactionValues() {
-        Object vs = data.get("interactionValues");
+        Object vs = get("interactionValues");
         if (vs instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof String) {
             return (List<String>) list;
         }
-        vs = data.get("values");
+        vs = get("values");
         if (vs instanceof List<?> list2 && !list2.isEmpty() && list2.get(0) instanceof String) {
             return (List<String>) list2;
         }
@@ -166,6 +285,24 @@ public class ComponentContext {
         return List.of();
     }
 
+    /**
+     * Returns a value captured by the route template of the current interaction,
+     * e.g. "itemId" for a handler registered as "shop.buy:{itemId}"; null if absent.
+     */
+    public String routeParam(String name) {
+        return routeParams.get(name);
+    }
+
+    /** Returns all values captured by the current route template (empty for plain IDs). */
+    public Map<String, String> routeParams() {
+        return routeParams;
+    }
+
+    /** Set by the runtime before each handler runs. */
+    public void routeParams(Map<String, String> params) {
+        this.routeParams = params == null ? Map.of() : params;
+    }
+
     // -------------------- Completion --------------------
 
     /** Marks this context as complete. */
@@ -180,6 +317,118 @@ public class ComponentContext {
 
     @Override
     public String toString() {
-        return "ComponentContext[userId='%s', completed=%s, data=%s]".formatted(userId, completed, data);
+        return "ComponentContext[userId='%s', completed=%s, data=%s]".formatted(userId, completed, all());
+    }
+
+    // -------------------- Slot storage --------------------
+
+    // name is only used for keys that are not interned (idx < 0)
+
+    private Object read(int idx, String name) {
+        if (idx < 0) return overflow != null ? unwrap(overflow.get(name)) : null;
+        if (idx < ContextKey.INT_SLOTS) {
+            if (intRaw[idx] != null) return unwrap(intRaw[idx]);
+            return (intPresent & (1 << idx)) != 0 ? ints[idx] : null;
+        }
+        if (idx < ContextKey.WELL_KNOWN) return unwrap(fixed[idx]);
+        int pos = find(idx);
+        return pos >= 0 ? unwrap(customValues[pos]) : null;
+    }
+
+    private boolean present(int idx, String name) {
+        if (idx < 0) return overflow != null && overflow.containsKey(name);
+        if (idx < ContextKey.INT_SLOTS) return (intPresent & (1 << idx)) != 0 || intRaw[idx] != null;
+        if (idx < ContextKey.WELL_KNOWN) return fixed[idx] != null;
+        return find(idx) >= 0;
+    }
+
+    private void write(int idx, String name, Object value) {
+        Object stored = value == null ? NULL : value;
+        if (idx >= 0 && idx < ContextKey.INT_SLOTS) {
+            // Integers go into the primitive slot; anything else is kept as given, like the old map
+            if (value instanceof Integer i) {
+                setInt(idx, i);
+            } else {
+                intRaw[idx] = stored;
+                intPresent &= ~(1 << idx);
+            }
+            return;
+        }
+        if (idx < 0) {
+            if (overflow == null) overflow = new LinkedHashMap<>(4);
+            overflow.put(name, stored);
+            return;
+        }
+        if (idx < ContextKey.WELL_KNOWN) {
+            fixed[idx] = stored;
+            return;
+        }
+        int pos = find(idx);
+        if (pos >= 0) {
+            customValues[pos] = stored;
+            return;
+        }
+        if (customCount == customIds.length) {
+            customIds = Arrays.copyOf(customIds, customCount * 2);
+            customValues = Arrays.copyOf(customValues, customCount * 2);
+        }
+        customIds[customCount] = idx;
+        customValues[customCount] = stored;
+        customCount++;
+    }
+
+    private void erase(int idx, String name) {
+        if (idx < 0) {
+            if (overflow != null) overflow.remove(name);
+            return;
+        }
+        if (idx < ContextKey.INT_SLOTS) {
+            intPresent &= ~(1 << idx);
+            intRaw[idx] = null;
+            return;
+        }
+        if (idx < ContextKey.WELL_KNOWN) {
+            fixed[idx] = null;
+            return;
+        }
+        int pos = find(idx);
+        if (pos < 0) return;
+        int tail = customCount - pos - 1;
+        System.arraycopy(customIds, pos + 1, customIds, pos, tail);
+        System.arraycopy(customValues, pos + 1, customValues, pos, tail);
+        customValues[--customCount] = null;
+    }
+
+    private void setInt(int idx, int value) {
+        ints[idx] = value;
+        intPresent |= 1 << idx;
+        intRaw[idx] = null;
+    }
+
+    // Int slot value as an Integer, parsing a verbatim value the String API stored
+    private Integer intValue(int idx) {
+        if ((intPresent & (1 << idx)) != 0) return ints[idx];
+        return intRaw[idx] != null ? toInt(unwrap(intRaw[idx])) : null;
+    }
+
+    private int find(int idx) {
+        int[] ids = customIds;
+        for (int i = 0, n = customCount; i < n; i++) {
+            if (ids[i] == idx) return i;
+        }
+        return -1;
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored == NULL ? null : stored;
+    }
+
+    private static Integer toInt(Object value) {
+        if (value instanceof Integer i) return i;
+        if (value instanceof Number n) return n.intValue();
+        if (value instanceof String s) {
+            try { return Integer.parseInt(s.trim()); } catch (NumberFormatException ignored) {}
+        }
+        return null;
     }
 }
@@ -0,0 +1,173 @@
+package com.darkmatterservers.context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary serializer for {@link ComponentContext}.
+ * <p>
+ * Layout: version byte, userId, completed flag, entry count, then per entry
+ * the key, a one-byte type tag and the value. Supported values are null,
+ * String, Integer, Long, Double, Boolean and List&lt;String&gt;.
+ * <p>
+ * Transient keys (the JDA event in "rawEvent") and values of any other type are
+ * skipped: they are either tied to a live gateway connection or not portable.
+ */
+@SuppressWarnings("unused")
+public final class ContextCodec {
+
+    /** Keys never written out, because they reference live runtime objects. */
+    public static final Set<String> TRANSIENT_KEYS = Set.of("rawEvent");
+
+    private static final byte VERSION = 1;
+
+    // writeUTF is capped at 65535 bytes; modified UTF-8 uses at most 3 bytes per char
+    private static final int MAX_STRING_CHARS = 65535 / 3;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_INT = 2;
+    private static final byte T_LONG = 3;
+    private static final byte T_DOUBLE = 4;
+    private static final byte T_BOOL = 5;
+    private static final byte T_STRING_LIST = 6;
+
+    private ContextCodec() {}
+
+    /** Serializes the portable part of the context. */
+    public static byte[] encode(ComponentContext ctx) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(ctx, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Serializes the portable part of the context into an existing stream. */
+    public static void write(ComponentContext ctx, DataOutputStream out) throws IOException {
+        out.writeByte(VERSION);
+        writeNullable(out, ctx.userId());
+        out.writeBoolean(ctx.isComplete());
+
+        Map<String, Object> data = ctx.all();
+        List<Map.Entry<String, Object>> portable = new ArrayList<>(data.size());
+        for (Map.Entry<String, Object> e : data.entrySet()) {
+            if (e.getKey() != null && !TRANSIENT_KEYS.contains(e.getKey()) && isPortable(e.getValue())) {
+                portable.add(e);
+            }
+        }
+
+        out.writeShort(portable.size());
+        for (Map.Entry<String, Object> e : portable) {
+            out.writeUTF(e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+
+    /** Rebuilds a context previously produced by {@link #encode(ComponentContext)}. */
+    public static ComponentContext decode(byte[] data) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(data)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt context data", e);
+        }
+    }
+
+    /** Reads a context from a stream positioned at an encoded context. */
+    public static ComponentContext read(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) throw new IOException("Unsupported context version: " + version);
+
+        ComponentContext ctx = new ComponentContext(readNullable(in));
+        boolean completed = in.readBoolean();
+
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            ctx.put(key, readValue(in));
+        }
+        if (completed) ctx.complete();
+        return ctx;
+    }
+
+    // -------------------- internals --------------------
+
+    private static boolean isPortable(Object v) {
+        if (v == null || v instanceof Integer || v instanceof Long || v instanceof Double || v instanceof Boolean) {
+            return true;
+        }
+        if (v instanceof String s) return s.length() <= MAX_STRING_CHARS;
+        if (v instanceof List<?> list) {
+            for (Object o : list) {
+                if (o != null && !(o instanceof String s && s.length() <= MAX_STRING_CHARS)) return false;
+            }
+            return list.size() <= 0xFFFF;
+        }
+        return false;
+    }
+
+    private static void writeValue(DataOutputStream out, Object v) throws IOException {
+        if (v == null) {
+            out.writeByte(T_NULL);
+        } else if (v instanceof String s) {
+            out.writeByte(T_STRING);
+            out.writeUTF(s);
+        } else if (v instanceof Integer i) {
+            out.writeByte(T_INT);
+            out.writeInt(i);
+        } else if (v instanceof Long l) {
+            out.writeByte(T_LONG);
+            out.writeLong(l);
+        } else if (v instanceof Double d) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(d);
+        } else if (v instanceof Boolean b) {
+            out.writeByte(T_BOOL);
+            out.writeBoolean(b);
+        } else if (v instanceof List<?> list) {
+            out.writeByte(T_STRING_LIST);
+            out.writeShort(list.size());
+            for (Object o : list) writeNullable(out, (String) o);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + v.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case T_NULL -> null;
+            case T_STRING -> in.readUTF();
+            case T_INT -> in.readInt();
+            case T_LONG -> in.readLong();
+            case T_DOUBLE -> in.readDouble();
+            case T_BOOL -> in.readBoolean();
+            case T_STRING_LIST -> {
+                int n = in.readUnsignedShort();
+                List<String> list = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) list.add(readNullable(in));
+                yield list;
+            }
+            default -> throw new IOException("Unknown value tag: " + tag);
+        };
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.darkmatterservers.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typed, pre-resolved key into a {@link ComponentContext}.
+ * <p>
+ * Every key name is interned once into a small integer slot index, so lookups through a
+ * ContextKey never hash the name again. The well-known runtime keys below have fixed
+ * slots inside every context (page index and total pages are stored as primitive ints);
+ * any other name gets the next free index on first use.
+ * <p>
+ * The intern table is process-wide and never shrinks, so it is capped at
+ * {@link #MAX_INTERNED} names. Names seen after that (typically ones built from user input
+ * or IDs) are not interned: contexts keep them in a per-context map keyed by name, which
+ * works the same, just without the slot shortcut.
+ * <p>
+ * Keys with the same name share a slot regardless of their declared type, so
+ * {@code ctx.put("score", 3)} and {@code ctx.get(ContextKey.of("score", Integer.class))}
+ * see the same value. A typed read returns null when the stored value has another type.
+ * <p>
+ * Hold keys in static finals; {@link #of(String, Class)} is cheap but not free.
+ */
+@SuppressWarnings("unused")
+public final class ContextKey<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextKey.class);
+
+    /** Most names interned process-wide; later names are stored per context by name. */
+    public static final int MAX_INTERNED = 4096;
+
+    /** Index of keys whose name is not interned. */
+    static final int UNINTERNED = -1;
+
+    private static final Map<String, Integer> INDEX = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static volatile boolean full;
+
+    // ---- Well-known keys (fixed slots, order matters: see ComponentContext) ----
+
+    public static final ContextKey<Integer> PAGE_INDEX        = of("pageIndex", Integer.class);
+    public static final ContextKey<Integer> TOTAL_PAGES       = of("totalPages", Integer.class);
+    public static final ContextKey<String>  MESSAGE_ID        = of("messageId", String.class);
+    public static final ContextKey<String>  CHANNEL_ID        = of("channelId", String.class);
+    public static final ContextKey<String>  GUILD_ID          = of("guildId", String.class);
+    public static final ContextKey<String>  VALUE             = of("value", String.class);
+    public static final ContextKey<String>  INTERACTION_VALUE = of("interactionValue", String.class);
+    public static final ContextKey<String>  BUTTON_ID         = of("buttonId", String.class);
+    public static final ContextKey<Object>  RAW_EVENT         = of("rawEvent", Object.class);
+
+    /** Number of fixed slots; indices below this are well-known keys. */
+    static final int WELL_KNOWN = 9;
+    /** Well-known slots held as primitive ints. */
+    static final int INT_SLOTS = 2;
+
+    private final String name;
+    private final Class<T> type;
+    private final int index;
+
+    private ContextKey(String name, Class<T> type, int index) {
+        this.name = name;
+        this.type = type;
+        this.index = index;
+    }
+
+    /** Returns a typed key for the name, interning the name on first use. */
+    public static <T> ContextKey<T> of(String name, Class<T> type) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(type, "type");
+        return new ContextKey<>(name, type, index(name));
+    }
+
+    /** Interned slot index for a key name (used by the string API), or {@link #UNINTERNED}. */
+    static int index(String name) {
+        Integer idx = INDEX.get(name);
+        if (idx != null) return idx;
+        return full ? UNINTERNED : intern(name);
+    }
+
+    private static synchronized int intern(String name) {
+        Integer idx = INDEX.get(name);
+        if (idx != null) return idx;
+        int i = INDEX.size();
+        if (i >= MAX_INTERNED) {
+            if (!full) {
+                full = true;
+                log.warn("Interned {} context key names; further names are stored per context. "
+                        + "Avoid building key names from IDs or user input.", MAX_INTERNED);
+            }
+            return UNINTERNED;
+        }
+        String[] n = names;
+        if (i >= n.length) n = Arrays.copyOf(n, n.length * 2);
+        n[i] = name;
+        names = n;
+        INDEX.put(name, i); // publish the index only once the name is visible
+        return i;
+    }
+
+    /** Name for a slot index, or null if unknown. */
+    static String nameOf(int index) {
+        String[] n = names;
+        return index >= 0 && index < n.length ? n[index] : null;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    int index() {
+        return index;
+    }
+
+    /** Casts a raw value to this key's type, or null if it has another type. */
+    T cast(Object value) {
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ContextKey<?> k && k.name.equals(name) && k.type == type;
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ContextKey[" + name + ':' + type.getSimpleName() + ']';
+    }
+}
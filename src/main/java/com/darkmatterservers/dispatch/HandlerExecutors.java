@@ -0,0 +1,45 @@
+package com.darkmatterservers.dispatch;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for asynchronous component handlers.
+ */
+@SuppressWarnings("unused")
+public final class HandlerExecutors {
+
+    private HandlerExecutors() {}
+
+    /**
+     * One virtual thread per handler when the runtime supports them (Java 21+),
+     * otherwise a cached pool of daemon threads.
+     */
+    public static ExecutorService defaultExecutor() {
+        ExecutorService virtual = virtualThreadExecutor();
+        return virtual != null ? virtual : cachedDaemonPool();
+    }
+
+    /** A virtual-thread-per-task executor, or null on runtimes without virtual threads. */
+    public static ExecutorService virtualThreadExecutor() {
+        try {
+            // Looked up reflectively so the library still targets Java 17
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** An unbounded cached pool of daemon platform threads. */
+    public static ExecutorService cachedDaemonPool() {
+        AtomicInteger seq = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "eclipsebytes-handler-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
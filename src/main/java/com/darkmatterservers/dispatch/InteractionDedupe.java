@@ -0,0 +1,116 @@
+package com.darkmatterservers.dispatch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Drops interactions that were already seen, e.g. replayed by the gateway after a resume.
+ * <p>
+ * Keyed on the interaction's snowflake ID, whose top bits carry its creation time. The
+ * IDs live in a fixed open-addressed table of longs (8 bytes per slot, no boxing), probed
+ * for at most {@link #MAX_PROBE} slots, so a check is O(1) and memory never grows. A slot
+ * is free again once its ID is older than the window, and interactions that are older than
+ * the window themselves are rejected outright: Discord no longer accepts a response to
+ * them, and running their handler late would only repeat a side effect.
+ * <p>
+ * Lock-free and safe from any number of event threads: a slot is claimed by CAS, and two
+ * threads racing with the same ID scan the same slots and contend for the same one, so only
+ * one of them wins. If every probed slot holds a live ID, the oldest of them is overwritten;
+ * size the table for the interactions one window brings in, or duplicates that old may get
+ * through.
+ */
+@SuppressWarnings("unused")
+public final class InteractionDedupe {
+
+    /** Start of Discord's snowflake clock (2015-01-01T00:00:00Z). */
+    public static final long DISCORD_EPOCH_MILLIS = 1420070400000L;
+
+    public static final int MAX_PROBE = 16;
+
+    /** Lets everything through. */
+    public static final InteractionDedupe DISABLED = new InteractionDedupe();
+
+    private final AtomicLongArray slots;   // 0 = empty
+    private final int mask;
+    private final int shift;
+    private final long windowMillis;
+
+    private InteractionDedupe() {
+        this.slots = null;
+        this.mask = 0;
+        this.shift = 0;
+        this.windowMillis = 0;
+    }
+
+    /**
+     * @param capacity slots in the table, rounded up to a power of two (at least {@link #MAX_PROBE})
+     * @param window   how long an ID is remembered, and the age beyond which interactions are rejected
+     */
+    public InteractionDedupe(int capacity, Duration window) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        if (window.isZero() || window.isNegative()) throw new IllegalArgumentException("window must be > 0");
+        int size = Math.max(MAX_PROBE, Integer.highestOneBit(Math.min(capacity, 1 << 30) - 1) << 1);
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(size);
+        this.windowMillis = window.toMillis();
+    }
+
+    public boolean enabled() {
+        return slots != null;
+    }
+
+    /** Table size in slots. */
+    public int capacity() {
+        return slots == null ? 0 : slots.length();
+    }
+
+    /**
+     * Records the interaction and returns true the first time its ID is seen within the
+     * window; false for repeats and for interactions older than the window.
+     */
+    public boolean firstSeen(long snowflake) {
+        if (slots == null) return true;
+        long now = System.currentTimeMillis();
+        long oldest = now - windowMillis;
+        if (createdAt(snowflake) < oldest) return false;
+
+        int home = (int) ((snowflake * 0x9E3779B97F4A7C15L) >>> shift);
+        while (true) {
+            // Look at the whole probe run first: the ID may sit behind a slot that expired since
+            int free = -1, victim = home;
+            long freeSeen = 0, victimSeen = Long.MAX_VALUE;
+            for (int p = 0; p < MAX_PROBE; p++) {
+                int i = (home + p) & mask;
+                long seen = slots.get(i);
+                if (seen == snowflake) return false;
+                if (seen == 0 || createdAt(seen) < oldest) {
+                    if (free < 0) {
+                        free = i;
+                        freeSeen = seen;
+                    }
+                } else if (seen < victimSeen) {   // snowflakes grow with time: smallest is oldest
+                    victim = i;
+                    victimSeen = seen;
+                }
+            }
+            // Every probed slot live: overwrite the oldest (best effort under overload)
+            boolean claimed = free >= 0
+                    ? slots.compareAndSet(free, freeSeen, snowflake)
+                    : slots.compareAndSet(victim, victimSeen, snowflake);
+            if (claimed) return true;
+            // The slot changed under us, possibly to this very ID: look again
+        }
+    }
+
+    /** Forgets every ID. */
+    public void clear() {
+        if (slots == null) return;
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0);
+    }
+
+    // Creation time of a snowflake in epoch millis
+    private static long createdAt(long snowflake) {
+        return (snowflake >>> 22) + DISCORD_EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,16 @@
+package com.darkmatterservers.dispatch;
+
+/**
+ * What a {@link SessionMailbox} does with a new interaction when its queue is full.
+ */
+public enum OverflowPolicy {
+    /** Reject the new interaction. */
+    DROP_NEWEST,
+    /** Discard the oldest queued interaction to make room. */
+    DROP_OLDEST,
+    /**
+     * Replace a queued interaction with the same coalesce key (e.g. the same button,
+     * or the same dropdown with a newer pick); reject the new one if there is none.
+     */
+    COALESCE
+}
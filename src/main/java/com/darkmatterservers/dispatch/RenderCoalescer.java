@@ -0,0 +1,99 @@
+package com.darkmatterservers.dispatch;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Debounces re-renders of a session's message during bursts of clicks.
+ * <p>
+ * Handlers still run for every click; only the render is coalesced. The first render
+ * request after a quiet period goes out immediately (leading edge), so a single click
+ * still costs one REST call. Requests arriving within the window after it are held back:
+ * the caller acks them, and once no further request came in for a full window, the last
+ * one renders the final state (trailing edge).
+ * <p>
+ * Per-session state lives in a {@link Burst}; a request supersedes every earlier pending
+ * trailing render of the same burst.
+ */
+@SuppressWarnings("unused")
+public final class RenderCoalescer {
+
+    /** Renders every request immediately. */
+    public static final RenderCoalescer DISABLED = new RenderCoalescer();
+
+    private final long windowNanos;
+    private final ScheduledExecutorService timer;
+
+    private RenderCoalescer() {
+        this.windowNanos = 0;
+        this.timer = null;
+    }
+
+    /** A coalescer with the given quiet window (> 0). Call {@link #shutdown()} when done. */
+    public RenderCoalescer(Duration window) {
+        if (window.isZero() || window.isNegative()) throw new IllegalArgumentException("window must be > 0");
+        this.windowNanos = window.toNanos();
+        ScheduledThreadPoolExecutor t = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread th = new Thread(r, "eclipsebytes-render-coalescer");
+            th.setDaemon(true);
+            return th;
+        });
+        t.setRemoveOnCancelPolicy(true);
+        this.timer = t;
+    }
+
+    public boolean enabled() {
+        return timer != null;
+    }
+
+    public Duration window() {
+        return Duration.ofNanos(windowNanos);
+    }
+
+    /**
+     * Registers a render request for the burst.
+     *
+     * @param trailing run on the timer thread with the request's sequence number once the
+     *                 burst has settled; check {@link Burst#isCurrent(long)} again where the
+     *                 render actually happens
+     * @return true if the caller should render right away; false if the render was deferred
+     */
+    public boolean request(Burst burst, LongConsumer trailing) {
+        if (timer == null) return true;
+
+        long now = System.nanoTime();
+        long seq = burst.seq.incrementAndGet();
+        long quietUntil = burst.quietUntilNanos;
+        burst.quietUntilNanos = now + windowNanos;
+        if (now - quietUntil >= 0) return true;
+
+        timer.schedule(() -> {
+            if (burst.isCurrent(seq)) trailing.accept(seq);
+        }, windowNanos, TimeUnit.NANOSECONDS);
+        return false;
+    }
+
+    /** Drops any pending trailing render of the burst (e.g. when the chain completes). */
+    public void cancel(Burst burst) {
+        burst.seq.incrementAndGet();
+    }
+
+    public void shutdown() {
+        if (timer != null) timer.shutdownNow();
+    }
+
+    /** Coalescing state of one session. */
+    public static final class Burst {
+        private final AtomicLong seq = new AtomicLong();
+        private volatile long quietUntilNanos = System.nanoTime();
+
+        /** True if no render was requested after the one with this sequence number. */
+        public boolean isCurrent(long seq) {
+            return this.seq.get() == seq;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.darkmatterservers.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Per-session actor mailbox: interactions for one session run strictly one at a time,
+ * in arrival order, while different sessions never contend with each other.
+ * <p>
+ * There is no dedicated thread. Whoever submits to an idle mailbox schedules a drain on
+ * the executor; with the default direct executor that is simply the submitting JDA thread,
+ * and any click arriving meanwhile from another thread is queued and run by that drainer.
+ * <p>
+ * Asynchronous tasks ({@link #submitAsync}) keep the mailbox busy until their stage
+ * completes, without holding a thread; the drain then resumes on the resume executor, never
+ * on whatever thread happened to complete the stage (a timer, a loader, ...).
+ * <p>
+ * If an executor refuses a drain, the mailbox goes idle again and the work queued at that
+ * point is dropped (each {@code onDrop} runs), so a shut-down executor never wedges it.
+ * <p>
+ * The queue is bounded; when it is full the {@link OverflowPolicy} decides what is dropped.
+ * Dropped work gets its {@code onDrop} callback (the runtime uses it to still ack the click).
+ */
+@SuppressWarnings("unused")
+public final class SessionMailbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionMailbox.class);
+
+    /** Runs tasks on the calling thread. */
+    public static final Executor DIRECT = Runnable::run;
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Executor executor;
+    private final Executor resumeExecutor;
+
+    // Guarded by this
+    private final ArrayDeque<Item> queue;
+    private boolean draining;
+
+    /** Resumes after async tasks on {@code executor}, or on the common pool if that is {@link #DIRECT}. */
+    public SessionMailbox(int capacity, OverflowPolicy policy, Executor executor) {
+        this(capacity, policy, executor, executor == DIRECT ? ForkJoinPool.commonPool() : executor);
+    }
+
+    /**
+     * @param executor       where a drain starts when work arrives at an idle mailbox
+     * @param resumeExecutor where the drain continues once an async task's stage completes
+     */
+    public SessionMailbox(int capacity, OverflowPolicy policy, Executor executor, Executor resumeExecutor) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.resumeExecutor = Objects.requireNonNull(resumeExecutor, "resumeExecutor");
+        this.queue = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    /**
+     * Queues a task behind any earlier work for this session.
+     *
+     * @param coalesceKey identifies equivalent work for {@link OverflowPolicy#COALESCE} (may be null)
+     * @param task        the work to run
+     * @param onDrop      called instead of {@code task} if the work is dropped (may be null)
+     * @return false if this task was rejected or its executor refused to run it (its onDrop has already run)
+     */
+    public boolean submit(String coalesceKey, Runnable task, Runnable onDrop) {
+        Objects.requireNonNull(task, "task");
+        return submitAsync(coalesceKey, () -> {
+            task.run();
+            return null;
+        }, onDrop);
+    }
+
+    /**
+     * Like {@link #submit}, but the task returns a stage (or null) and the next task only
+     * starts once that stage has completed.
+     */
+    public boolean submitAsync(String coalesceKey, Supplier<? extends CompletionStage<?>> task, Runnable onDrop) {
+        Item item = new Item(coalesceKey, Objects.requireNonNull(task, "task"), onDrop);
+        Item dropped = null;
+        boolean accepted = true;
+        boolean schedule = false;
+
+        synchronized (this) {
+            if (queue.size() >= capacity) {
+                switch (policy) {
+                    case DROP_NEWEST -> accepted = false;
+                    case DROP_OLDEST -> {
+                        dropped = queue.pollFirst();
+                        queue.addLast(item);
+                    }
+                    case COALESCE -> {
+                        dropped = replaceSameKey(item);
+                        accepted = dropped != null;
+                    }
+                }
+            } else {
+                queue.addLast(item);
+            }
+            if (accepted && !draining) {
+                draining = true;
+                schedule = true;
+            }
+        }
+
+        if (dropped != null) dropped.drop();
+        if (!accepted) {
+            item.drop();
+            return false;
+        }
+        return !schedule || schedule(executor);
+    }
+
+    /** Number of queued (not yet started) tasks. */
+    public synchronized int pending() {
+        return queue.size();
+    }
+
+    private Item replaceSameKey(Item item) {
+        if (item.key == null) return null;
+        Iterator<Item> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Item queued = it.next();
+            if (item.key.equals(queued.key)) {
+                it.remove();
+                queue.addLast(item);
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    // Starts a drain on the executor; if it refuses, goes idle and drops everything queued
+    private boolean schedule(Executor on) {
+        try {
+            on.execute(this::drain);
+            return true;
+        } catch (RuntimeException e) {
+            List<Item> stranded;
+            synchronized (this) {
+                stranded = new ArrayList<>(queue);
+                queue.clear();
+                draining = false;
+            }
+            log.warn("Session executor refused the mailbox drain; dropping {} queued task(s)", stranded.size(), e);
+            stranded.forEach(Item::drop);
+            return false;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Item next;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            CompletionStage<?> stage = null;
+            try {
+                stage = next.task.get();
+            } catch (Throwable t) {
+                log.error("Session task failed", t);
+            }
+            if (stage != null && !stage.toCompletableFuture().isDone()) {
+                // Stay marked as draining; pick up again once the async work is over
+                stage.whenComplete((r, t) -> schedule(resumeExecutor));
+                return;
+            }
+        }
+    }
+
+    private record Item(String key, Supplier<? extends CompletionStage<?>> task, Runnable onDrop) {
+        void drop() {
+            if (onDrop == null) return;
+            try {
+                onDrop.run();
+            } catch (Throwable t) {
+                log.error("Session drop callback failed", t);
+            }
+        }
+    }
+}
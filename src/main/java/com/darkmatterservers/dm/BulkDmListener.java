@@ -0,0 +1,17 @@
+package com.darkmatterservers.dm;
+
+/**
+ * Per-user progress of a bulk DM launch. Callbacks run on JDA / scheduler threads,
+ * possibly concurrently; keep them short.
+ */
+public interface BulkDmListener {
+
+    /** No-op listener. */
+    BulkDmListener NONE = new BulkDmListener() {};
+
+    /** The chain message reached the user. {@code done} counts sent and failed users so far. */
+    default void onSent(String userId, int done, int total) {}
+
+    /** The user could not be reached (unknown user, DMs closed, ...). */
+    default void onFailed(String userId, Throwable error, int done, int total) {}
+}
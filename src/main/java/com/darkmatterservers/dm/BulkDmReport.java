@@ -0,0 +1,13 @@
+package com.darkmatterservers.dm;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk DM launch.
+ *
+ * @param requested number of distinct user ids
+ * @param sent      users whose chain message was delivered, in completion order
+ * @param failed    users that could not be reached, with the cause
+ */
+public record BulkDmReport(int requested, List<String> sent, Map<String, Throwable> failed) {}
@@ -0,0 +1,104 @@
+package com.darkmatterservers.dm;
+
+import com.darkmatterservers.rest.Lane;
+import com.darkmatterservers.rest.OutboundScheduler;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.concrete.PrivateChannel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Resolves a user's DM channel with as few REST calls as possible.
+ * <p>
+ * Lookup order:
+ * 1. LRU of userId -> opened private channel (no REST). It holds the channel objects
+ *    themselves: JDA drops private channels of users it does not cache, and without member
+ *    caching {@link JDA#openPrivateChannelById(String)} then costs a "create DM" call on
+ *    every send, which is exactly what a repeat bulk launch should not pay again
+ * 2. {@link JDA#openPrivateChannelById(String)}, which serves JDA's user/channel cache when
+ *    it can and otherwise costs a single "create DM" call; no {@code retrieveUserById} first
+ * <p>
+ * Opens go through the outbound scheduler on the given lane, so bulk launches are paced by
+ * the global bucket instead of flooding JDA's requester.
+ * <p>
+ * The JDA is looked up per call (for a sharded bot: shard 0, which serves DMs). Cached
+ * channels belong to the connection that opened them and are reopened once it is replaced.
+ * <p>
+ * Memory: a channel id alone cannot be sent to, so each entry keeps a live
+ * {@link PrivateChannel} and the {@code User} it references, roughly half a kilobyte with the
+ * map entry and key. Size the capacity to the audience of a typical bulk launch, not to
+ * every user the bot will ever DM (the runtime uses 10,000, about 5 MB).
+ */
+@SuppressWarnings("unused")
+public final class PrivateChannelResolver {
+
+    private final Supplier<JDA> jda;
+    private final Supplier<OutboundScheduler> outbound;
+    private final Map<String, PrivateChannel> channels;
+
+    public PrivateChannelResolver(JDA jda, Supplier<OutboundScheduler> outbound, int capacity) {
+        this(constant(Objects.requireNonNull(jda, "jda")), outbound, capacity);
+    }
+
+    /** Resolves through whatever connection {@code jda} returns at the time (null fails the lookup). */
+    public PrivateChannelResolver(Supplier<JDA> jda, Supplier<OutboundScheduler> outbound, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.jda = Objects.requireNonNull(jda, "jda");
+        this.outbound = Objects.requireNonNull(outbound, "outbound");
+        this.channels = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PrivateChannel> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** The user's DM channel; fails if the user is unknown or the id is malformed. */
+    public CompletableFuture<PrivateChannel> resolve(String userId, Lane lane) {
+        JDA jda = this.jda.get();
+        if (jda == null) return CompletableFuture.failedFuture(new IllegalStateException("No connection to open DMs on"));
+        PrivateChannel cached;
+        synchronized (channels) {
+            cached = channels.get(userId);
+        }
+        if (cached != null && cached.getJDA() == jda) return CompletableFuture.completedFuture(cached);
+
+        try {
+            return outbound.get()
+                    .submit(null, lane, null, jda.openPrivateChannelById(userId))
+                    .thenApply(channel -> {
+                        remember(userId, channel);
+                        return channel;
+                    });
+        } catch (RuntimeException e) { // malformed snowflake
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Forgets a cached channel, e.g. after a send to it failed. */
+    public void forget(String userId) {
+        synchronized (channels) {
+            channels.remove(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (channels) {
+            return channels.size();
+        }
+    }
+
+    private static Supplier<JDA> constant(JDA jda) {
+        return () -> jda;
+    }
+
+    private void remember(String userId, PrivateChannel channel) {
+        synchronized (channels) {
+            channels.put(userId, channel);
+        }
+    }
+}
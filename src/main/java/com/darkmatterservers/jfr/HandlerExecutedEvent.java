@@ -0,0 +1,42 @@
+package com.darkmatterservers.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A component handler ran; its duration is the handler's run time (until its future
+ * completed for async handlers). Call {@link #begin()} before the handler and
+ * {@link #commit(String, String, boolean)} after it.
+ */
+@Name("eclipsebytes.HandlerExecuted")
+@Label("Handler Executed")
+@Category("EclipseBytes")
+@Description("A component handler ran for an interaction")
+@StackTrace(false)
+@SuppressWarnings("unused")
+public final class HandlerExecutedEvent extends Event {
+
+    @Label("Route")
+    @Description("Matched component ID or route template")
+    String route;
+
+    @Label("Chain")
+    String chainId;
+
+    @Label("Async")
+    boolean async;
+
+    /** Ends the event and commits it if it is enabled and above its threshold. */
+    public void commit(String route, String chainId, boolean async) {
+        end();
+        if (!shouldCommit()) return;
+        this.route = route;
+        this.chainId = chainId;
+        this.async = async;
+        commit();
+    }
+}
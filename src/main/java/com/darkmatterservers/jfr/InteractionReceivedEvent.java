@@ -0,0 +1,41 @@
+package com.darkmatterservers.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A component interaction reached EclipseBytes (instant event).
+ * Enable with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}.
+ */
+@Name("eclipsebytes.InteractionReceived")
+@Label("Interaction Received")
+@Category("EclipseBytes")
+@Description("A button click or dropdown pick arrived from the gateway")
+@StackTrace(false)
+@SuppressWarnings("unused")
+public final class InteractionReceivedEvent extends Event {
+
+    @Label("Component ID")
+    String componentId;
+
+    @Label("User ID")
+    long userId;
+
+    @Label("Kind")
+    @Description("button or select")
+    String kind;
+
+    /** Commits the event if the recording has it enabled; costs a flag check otherwise. */
+    public static void emit(String componentId, long userId, String kind) {
+        InteractionReceivedEvent e = new InteractionReceivedEvent();
+        if (!e.isEnabled()) return;
+        e.componentId = componentId;
+        e.userId = userId;
+        e.kind = kind;
+        e.commit();
+    }
+}
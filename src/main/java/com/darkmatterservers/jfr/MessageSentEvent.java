@@ -0,0 +1,48 @@
+package com.darkmatterservers.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One REST call released by the outbound scheduler; its duration runs from handing it to
+ * the transport until the response. Call {@link #begin()} before sending and
+ * {@link #commit(String, String, long, boolean)} once it completed.
+ */
+@Name("eclipsebytes.MessageSent")
+@Label("Message Sent")
+@Category("EclipseBytes")
+@Description("A message send, edit or interaction response went out to Discord")
+@StackTrace(false)
+@SuppressWarnings("unused")
+public final class MessageSentEvent extends Event {
+
+    @Label("Lane")
+    String lane;
+
+    @Label("Route")
+    @Description("Rate-limit route, empty for interaction responses")
+    String route;
+
+    @Label("Queued")
+    @Timespan(Timespan.NANOSECONDS)
+    long queuedNanos;
+
+    @Label("Succeeded")
+    boolean ok;
+
+    /** Ends the event and commits it if it is enabled and above its threshold. */
+    public void commit(String lane, String route, long queuedNanos, boolean ok) {
+        end();
+        if (!shouldCommit()) return;
+        this.lane = lane;
+        this.route = route;
+        this.queuedNanos = queuedNanos;
+        this.ok = ok;
+        commit();
+    }
+}
@@ -0,0 +1,36 @@
+package com.darkmatterservers.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A chain page was rendered into an embed and component rows.
+ * Call {@link #begin()} before rendering and {@link #commit(String, int)} after it.
+ */
+@Name("eclipsebytes.PageRendered")
+@Label("Page Rendered")
+@Category("EclipseBytes")
+@Description("A chain page was rendered for a message send or edit")
+@StackTrace(false)
+@SuppressWarnings("unused")
+public final class PageRenderedEvent extends Event {
+
+    @Label("Chain")
+    String chainId;
+
+    @Label("Page Index")
+    int pageIndex;
+
+    /** Ends the event and commits it if it is enabled and above its threshold. */
+    public void commit(String chainId, int pageIndex) {
+        end();
+        if (!shouldCommit()) return;
+        this.chainId = chainId;
+        this.pageIndex = pageIndex;
+        commit();
+    }
+}
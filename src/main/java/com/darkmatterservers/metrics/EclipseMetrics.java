@@ -0,0 +1,72 @@
+package com.darkmatterservers.metrics;
+
+import com.darkmatterservers.rest.Lane;
+import com.darkmatterservers.session.EvictionCause;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Receives hot-path measurements from EclipseBytes and its outbound scheduler.
+ * <p>
+ * Every method defaults to a no-op, so an implementation only overrides what it records.
+ * Callers read the clock only when {@link #enabled()} is true, which makes {@link #NOOP}
+ * (the default) free: the JIT folds its empty calls away. Implementations run inline on
+ * dispatch and REST threads and must be thread-safe and cheap.
+ * <p>
+ * Built in: {@link InMemoryMetrics} (lock-free histograms and counters) and
+ * {@link MicrometerMetrics} (needs micrometer-core on the classpath).
+ */
+@SuppressWarnings("unused")
+public interface EclipseMetrics {
+
+    /** Records nothing. */
+    EclipseMetrics NOOP = new EclipseMetrics() {
+        @Override
+        public boolean enabled() {
+            return false;
+        }
+    };
+
+    /** False only for {@link #NOOP}; callers skip timing entirely when false. */
+    default boolean enabled() {
+        return true;
+    }
+
+    /**
+     * One interaction went through its session's mailbox.
+     *
+     * @param route        the matched component ID or route template, null if no handler matched
+     * @param totalNanos   from arrival to the end of the render, including mailbox wait
+     * @param handlerNanos time spent in the handler (until its future completed for async ones)
+     * @param renderNanos  time to render the page and queue the message edit
+     */
+    default void dispatched(String route, long totalNanos, long handlerNanos, long renderNanos) {}
+
+    /**
+     * One REST call left the outbound scheduler and completed (retries count as calls).
+     *
+     * @param queuedNanos time the request waited for its lane and buckets
+     * @param sendNanos   time from handing it to the transport until the response
+     */
+    default void restCall(Lane lane, long queuedNanos, long sendNanos, boolean ok) {}
+
+    /** A click matched a session, but no handler was registered for its component. */
+    default void noHandler(String componentId) {}
+
+    /** A click matched no live session (expired, finished, or never started here). */
+    default void noSession() {}
+
+    /** An interaction was dropped as a replay of one already handled, or as too old to answer. */
+    default void duplicateInteraction() {}
+
+    default void sessionOpened() {}
+
+    /** The user finished the chain. */
+    default void sessionCompleted() {}
+
+    /** The store dropped the session, or the per-user cap closed it (reported as SIZE). */
+    default void sessionEvicted(EvictionCause cause) {}
+
+    /** Called once when installed; the supplier reports the live session count. */
+    default void activeSessions(IntSupplier active) {}
+}
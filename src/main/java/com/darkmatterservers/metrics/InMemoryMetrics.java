@@ -0,0 +1,183 @@
+package com.darkmatterservers.metrics;
+
+import com.darkmatterservers.rest.Lane;
+import com.darkmatterservers.session.EvictionCause;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Dependency-free {@link EclipseMetrics}: {@link LatencyHistogram}s and striped counters,
+ * readable at any time, e.g. from a status command or a periodic log line.
+ * <p>
+ * Dispatch latency is kept per route (the matched component ID or template), for at
+ * most {@link #MAX_ROUTES} routes; later ones share the {@link #OTHER_ROUTE} histogram,
+ * so ids generated per click cannot grow memory without bound.
+ */
+@SuppressWarnings("unused")
+public final class InMemoryMetrics implements EclipseMetrics {
+
+    public static final int MAX_ROUTES = 256;
+    public static final String OTHER_ROUTE = "<other>";
+    public static final String UNMATCHED_ROUTE = "<unmatched>";
+
+    private final Map<String, LatencyHistogram> dispatchByRoute = new ConcurrentHashMap<>();
+    private final LatencyHistogram dispatch = new LatencyHistogram();
+    private final LatencyHistogram handler = new LatencyHistogram();
+    private final LatencyHistogram render = new LatencyHistogram();
+    private final LatencyHistogram restQueue = new LatencyHistogram();
+    private final LatencyHistogram restSend = new LatencyHistogram();
+
+    private final LongAdder interactions = new LongAdder();
+    private final LongAdder noHandler = new LongAdder();
+    private final LongAdder noSession = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder restFailures = new LongAdder();
+    private final Map<Lane, LongAdder> restCalls = new EnumMap<>(Lane.class);
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final Map<EvictionCause, LongAdder> evicted = new EnumMap<>(EvictionCause.class);
+    private volatile IntSupplier active = () -> 0;
+
+    public InMemoryMetrics() {
+        for (Lane lane : Lane.values()) restCalls.put(lane, new LongAdder());
+        for (EvictionCause cause : EvictionCause.values()) evicted.put(cause, new LongAdder());
+    }
+
+    // ---------------------------
+    // Recording
+    // ---------------------------
+
+    @Override
+    public void dispatched(String route, long totalNanos, long handlerNanos, long renderNanos) {
+        interactions.increment();
+        dispatch.record(totalNanos);
+        handler.record(handlerNanos);
+        render.record(renderNanos);
+        routeHistogram(route).record(totalNanos);
+    }
+
+    @Override
+    public void restCall(Lane lane, long queuedNanos, long sendNanos, boolean ok) {
+        restCalls.get(lane).increment();
+        if (!ok) restFailures.increment();
+        restQueue.record(queuedNanos);
+        restSend.record(sendNanos);
+    }
+
+    @Override
+    public void noHandler(String componentId) {
+        noHandler.increment();
+    }
+
+    @Override
+    public void noSession() {
+        noSession.increment();
+    }
+
+    @Override
+    public void duplicateInteraction() {
+        duplicates.increment();
+    }
+
+    @Override
+    public void sessionOpened() {
+        opened.increment();
+    }
+
+    @Override
+    public void sessionCompleted() {
+        completed.increment();
+    }
+
+    @Override
+    public void sessionEvicted(EvictionCause cause) {
+        evicted.get(cause).increment();
+    }
+
+    @Override
+    public void activeSessions(IntSupplier active) {
+        this.active = active;
+    }
+
+    // ---------------------------
+    // Reading
+    // ---------------------------
+
+    /** End-to-end dispatch latency over all routes. */
+    public LatencyHistogram dispatch() { return dispatch; }
+
+    /** Dispatch latency of one route, or null if it was never seen. */
+    public LatencyHistogram dispatch(String route) { return dispatchByRoute.get(route); }
+
+    public Map<String, LatencyHistogram> dispatchByRoute() { return Collections.unmodifiableMap(dispatchByRoute); }
+
+    public LatencyHistogram handlerTime() { return handler; }
+    public LatencyHistogram renderTime() { return render; }
+    public LatencyHistogram restQueueTime() { return restQueue; }
+    public LatencyHistogram restSendTime() { return restSend; }
+
+    public long interactions() { return interactions.sum(); }
+    public long noHandlerCount() { return noHandler.sum(); }
+    public long noSessionCount() { return noSession.sum(); }
+    public long duplicateCount() { return duplicates.sum(); }
+    public long restCalls(Lane lane) { return restCalls.get(lane).sum(); }
+    public long restFailures() { return restFailures.sum(); }
+
+    /** Interaction responses and edits (INTERACTIVE lane) per dispatched interaction. */
+    public double restCallsPerInteraction() {
+        long n = interactions.sum();
+        return n == 0 ? 0 : (double) restCalls.get(Lane.INTERACTIVE).sum() / n;
+    }
+
+    public int activeSessions() { return active.getAsInt(); }
+    public long sessionsOpened() { return opened.sum(); }
+    public long sessionsCompleted() { return completed.sum(); }
+    public long sessionsEvicted(EvictionCause cause) { return evicted.get(cause).sum(); }
+
+    public long sessionsEvicted() {
+        long n = 0;
+        for (LongAdder a : evicted.values()) n += a.sum();
+        return n;
+    }
+
+    /** Multi-line summary of everything recorded so far. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("interactions %d (no handler %d, no session %d, duplicate %d), REST/interaction %.2f%n",
+                interactions(), noHandlerCount(), noSessionCount(), duplicateCount(), restCallsPerInteraction()));
+        sb.append("  dispatch  ").append(dispatch).append('\n');
+        sb.append("  handler   ").append(handler).append('\n');
+        sb.append("  render    ").append(render).append('\n');
+        sb.append("  rest wait ").append(restQueue).append('\n');
+        sb.append("  rest send ").append(restSend).append('\n');
+        sb.append(String.format("sessions active %d, opened %d, completed %d, evicted %d%n",
+                activeSessions(), sessionsOpened(), sessionsCompleted(), sessionsEvicted()));
+        dispatchByRoute.forEach((route, h) -> sb.append("  ").append(route).append(": ").append(h).append('\n'));
+        return sb.toString();
+    }
+
+    /** Clears histograms and counters (not the active-session gauge). */
+    public void reset() {
+        dispatchByRoute.clear();
+        for (LatencyHistogram h : new LatencyHistogram[] {dispatch, handler, render, restQueue, restSend}) h.reset();
+        for (LongAdder a : new LongAdder[] {interactions, noHandler, noSession, duplicates, restFailures, opened, completed}) a.reset();
+        restCalls.values().forEach(LongAdder::reset);
+        evicted.values().forEach(LongAdder::reset);
+    }
+
+    // -------------------- internals --------------------
+
+    private LatencyHistogram routeHistogram(String route) {
+        String name = route != null ? route : UNMATCHED_ROUTE;
+        LatencyHistogram h = dispatchByRoute.get(name);
+        if (h != null) return h;
+        if (dispatchByRoute.size() >= MAX_ROUTES) name = OTHER_ROUTE;
+        return dispatchByRoute.computeIfAbsent(name, r -> new LatencyHistogram());
+    }
+}
@@ -0,0 +1,111 @@
+package com.darkmatterservers.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of nanosecond durations, in the spirit of HdrHistogram.
+ * <p>
+ * Values below 32ns get a bucket each; above that every power of two is split into 32
+ * linear sub-buckets, so a reported value is within ~3% of the recorded one. Values
+ * beyond {@link #MAX_TRACKABLE_NANOS} (about 68s) fall into the top bucket. Recording
+ * is one index computation and one atomic increment; the whole histogram is ~8 KB.
+ * <p>
+ * Reads are not atomic snapshots: a percentile taken while threads record may mix in a
+ * few concurrent samples, which is fine for monitoring.
+ */
+@SuppressWarnings("unused")
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+
+    /** Largest value told apart from bigger ones (2^36 ns). */
+    public static final long MAX_TRACKABLE_NANOS = 1L << MAX_EXPONENT;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        total.increment();
+        sum.add(nanos);
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    public double meanNanos() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** The value at the given percentile (0..100) in nanos, 0 if nothing was recorded. */
+    public long percentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be within [0, 100]");
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(midpoint(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Clears all samples; samples recorded concurrently may survive. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fµs p50=%.1fµs p99=%.1fµs max=%.1fµs", count(),
+                meanNanos() / 1e3, percentileNanos(50) / 1e3, percentileNanos(99) / 1e3, maxNanos() / 1e3);
+    }
+
+    /** Same as {@link #percentileNanos(double)} in the given unit. */
+    public double percentile(double percentile, TimeUnit unit) {
+        return (double) percentileNanos(percentile) / unit.toNanos(1);
+    }
+
+    // -------------------- internals --------------------
+
+    private static int index(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        if (v >= MAX_TRACKABLE_NANOS) return BUCKETS - 1;
+        int exponent = 63 - Long.numberOfLeadingZeros(v);   // >= SUB_BITS
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_BUCKETS;       // 0 .. SUB_BUCKETS-1
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Middle of the value range a bucket covers
+    private static long midpoint(int index) {
+        int bucket = index >>> SUB_BITS;
+        if (bucket == 0) return index;
+        int shift = bucket - 1;
+        long low = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return low + ((1L << shift) >>> 1);
+    }
+}
@@ -0,0 +1,147 @@
+package com.darkmatterservers.metrics;
+
+import com.darkmatterservers.rest.Lane;
+import com.darkmatterservers.session.EvictionCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Publishes {@link EclipseMetrics} to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * micrometer-core is not a dependency of EclipseBytes; add it to your bot to use this
+ * class. Meters (all prefixed {@code eclipsebytes.}):
+ * <ul>
+ *   <li>{@code dispatch} timer, tag {@code route} (at most {@link InMemoryMetrics#MAX_ROUTES} values)</li>
+ *   <li>{@code handler}, {@code render} timers</li>
+ *   <li>{@code rest.queue}, {@code rest.send} timers, tags {@code lane}, {@code outcome}</li>
+ *   <li>{@code interactions.dropped} counter, tag {@code reason} = no_handler | no_session | duplicate</li>
+ *   <li>{@code sessions} counter, tag {@code event} = opened | completed | evicted, plus {@code cause}</li>
+ *   <li>{@code sessions.active} gauge</li>
+ * </ul>
+ * All meters are resolved up front or cached, so recording does no registry lookups.
+ */
+@SuppressWarnings("unused")
+public final class MicrometerMetrics implements EclipseMetrics {
+
+    private static final String PREFIX = "eclipsebytes.";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> dispatchByRoute = new ConcurrentHashMap<>();
+    private final Timer handler;
+    private final Timer render;
+    private final Map<Lane, Timer[]> restQueue = new EnumMap<>(Lane.class);  // [ok, failed]
+    private final Map<Lane, Timer[]> restSend = new EnumMap<>(Lane.class);
+    private final Counter noHandler;
+    private final Counter noSession;
+    private final Counter duplicate;
+    private final Counter opened;
+    private final Counter completed;
+    private final Map<EvictionCause, Counter> evicted = new EnumMap<>(EvictionCause.class);
+
+    public MicrometerMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.handler = Timer.builder(PREFIX + "handler").description("Time in component handlers").register(registry);
+        this.render = Timer.builder(PREFIX + "render").description("Time to render and queue a page").register(registry);
+        for (Lane lane : Lane.values()) {
+            restQueue.put(lane, restTimers("rest.queue", "Time REST calls waited in the outbound scheduler", lane));
+            restSend.put(lane, restTimers("rest.send", "Time from sending a REST call to its response", lane));
+        }
+        this.noHandler = dropped("no_handler");
+        this.noSession = dropped("no_session");
+        this.duplicate = dropped("duplicate");
+        this.opened = Counter.builder(PREFIX + "sessions").tag("event", "opened").register(registry);
+        this.completed = Counter.builder(PREFIX + "sessions").tag("event", "completed").register(registry);
+        for (EvictionCause cause : EvictionCause.values()) {
+            evicted.put(cause, Counter.builder(PREFIX + "sessions").tag("event", "evicted")
+                    .tag("cause", cause.name().toLowerCase()).register(registry));
+        }
+    }
+
+    @Override
+    public void dispatched(String route, long totalNanos, long handlerNanos, long renderNanos) {
+        dispatchTimer(route).record(totalNanos, TimeUnit.NANOSECONDS);
+        handler.record(handlerNanos, TimeUnit.NANOSECONDS);
+        render.record(renderNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void restCall(Lane lane, long queuedNanos, long sendNanos, boolean ok) {
+        int outcome = ok ? 0 : 1;
+        restQueue.get(lane)[outcome].record(queuedNanos, TimeUnit.NANOSECONDS);
+        restSend.get(lane)[outcome].record(sendNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void noHandler(String componentId) {
+        noHandler.increment();
+    }
+
+    @Override
+    public void noSession() {
+        noSession.increment();
+    }
+
+    @Override
+    public void duplicateInteraction() {
+        duplicate.increment();
+    }
+
+    @Override
+    public void sessionOpened() {
+        opened.increment();
+    }
+
+    @Override
+    public void sessionCompleted() {
+        completed.increment();
+    }
+
+    @Override
+    public void sessionEvicted(EvictionCause cause) {
+        evicted.get(cause).increment();
+    }
+
+    @Override
+    public void activeSessions(IntSupplier active) {
+        Gauge.builder(PREFIX + "sessions.active", active, IntSupplier::getAsInt)
+                .description("Live chain sessions")
+                .register(registry);
+    }
+
+    // -------------------- internals --------------------
+
+    private Timer dispatchTimer(String route) {
+        String name = route != null ? route : InMemoryMetrics.UNMATCHED_ROUTE;
+        Timer t = dispatchByRoute.get(name);
+        if (t != null) return t;
+        if (dispatchByRoute.size() >= InMemoryMetrics.MAX_ROUTES) name = InMemoryMetrics.OTHER_ROUTE;
+        return dispatchByRoute.computeIfAbsent(name, r -> Timer.builder(PREFIX + "dispatch")
+                .description("Interaction arrival to queued re-render")
+                .tag("route", r)
+                .register(registry));
+    }
+
+    private Timer[] restTimers(String name, String description, Lane lane) {
+        String l = lane.name().toLowerCase();
+        return new Timer[] {
+                Timer.builder(PREFIX + name).description(description).tag("lane", l).tag("outcome", "ok").register(registry),
+                Timer.builder(PREFIX + name).description(description).tag("lane", l).tag("outcome", "failed").register(registry)
+        };
+    }
+
+    private Counter dropped(String reason) {
+        return Counter.builder(PREFIX + "interactions.dropped")
+                .description("Interactions dropped before or without a handler")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,14 @@
+package com.darkmatterservers.rest;
+
+/**
+ * Priority lanes of the {@link OutboundScheduler}, highest first. A lane is only served
+ * when every higher lane has nothing that may be sent right now.
+ */
+public enum Lane {
+    /** Interaction responses and in-place edits of the clicked message. */
+    INTERACTIVE,
+    /** Regular sends, e.g. the first message of a chain. */
+    NORMAL,
+    /** Broadcasts, DM fan-outs and housekeeping edits. */
+    BULK
+}
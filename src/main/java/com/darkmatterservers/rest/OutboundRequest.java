@@ -0,0 +1,23 @@
+package com.darkmatterservers.rest;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * One outbound REST call as seen by the {@link OutboundScheduler}.
+ *
+ * @param route        local rate-limit bucket, e.g. {@code "channel:123"}; null for none
+ * @param lane         priority lane
+ * @param supersedeKey identifies renders of the same target; a newer queued request with
+ *                     the same key replaces an older one that has not been sent yet (null: never)
+ * @param call         performs the call when the scheduler releases it
+ */
+public record OutboundRequest<T>(String route, Lane lane, String supersedeKey,
+                                 Supplier<? extends CompletableFuture<T>> call) {
+
+    public OutboundRequest {
+        Objects.requireNonNull(lane, "lane");
+        Objects.requireNonNull(call, "call");
+    }
+}
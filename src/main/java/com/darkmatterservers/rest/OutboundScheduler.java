@@ -0,0 +1,420 @@
+package com.darkmatterservers.rest;
+
+import com.darkmatterservers.jfr.MessageSentEvent;
+import com.darkmatterservers.metrics.EclipseMetrics;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local shaper for outbound REST traffic, in front of JDA's requester.
+ * <p>
+ * Discord's limits are modelled with one bucket per route (e.g. per channel) and one
+ * global bucket. A request is released only once its buckets have room, so bursts wait
+ * here, ordered by {@link Lane}, instead of piling up in JDA's generic queue where an
+ * interactive page render would sit behind a DM broadcast. Interaction responses
+ * ({@link Lane#INTERACTIVE}) are exempt from the global bucket, as on Discord.
+ * <p>
+ * Requests sharing a supersede key (renders of the same message) replace each other
+ * while queued: only the newest one is sent, older ones complete with a
+ * {@link CancellationException}, also when a newer one was queued while an older one
+ * waited out a 429. Interaction acks must never carry a supersede key,
+ * since each one is the only response to its own interaction.
+ * <p>
+ * Buckets use GCRA (one "theoretical arrival time" per bucket), so the state per route
+ * is a single long. One daemon thread releases requests; responses complete on whatever
+ * thread the transport completes them on.
+ */
+@SuppressWarnings("unused")
+public final class OutboundScheduler {
+
+    // How far into a lane the dispatcher looks past blocked routes
+    private static final int SCAN_LIMIT = 64;
+
+    private final RestTransport transport;
+    private final Bucket global;
+    private final long routeInterval;
+    private final long routeTolerance;
+    private final int maxRetries;
+    private final int maxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock
+    private final Map<Lane, ArrayDeque<Entry<?>>> lanes = new EnumMap<>(Lane.class);
+    private final Map<String, Bucket> routes = new HashMap<>();
+    private final Map<String, Entry<?>> latestBySupersedeKey = new HashMap<>();
+    private int queued;
+    private boolean running = true;
+
+    private final Thread dispatcher;
+    private volatile EclipseMetrics metrics = EclipseMetrics.NOOP;
+
+    private OutboundScheduler(Builder b) {
+        this.transport = b.transport;
+        this.global = new Bucket(b.globalInterval, b.globalTolerance);
+        this.routeInterval = b.routeInterval;
+        this.routeTolerance = b.routeTolerance;
+        this.maxRetries = b.maxRetries;
+        this.maxQueued = b.maxQueued;
+        for (Lane lane : Lane.values()) lanes.put(lane, new ArrayDeque<>());
+
+        this.dispatcher = new Thread(this::run, "eclipsebytes-outbound");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ---------------------------
+    // Submission
+    // ---------------------------
+
+    /** Queues a JDA action; see {@link OutboundRequest} for the parameters. */
+    public <T> CompletableFuture<T> submit(String route, Lane lane, String supersedeKey, RestAction<T> action) {
+        Objects.requireNonNull(action, "action");
+        return submit(new OutboundRequest<>(route, lane, supersedeKey, action::submit));
+    }
+
+    /**
+     * Queues a request. The returned future completes with the response, fails with the
+     * transport's error, or is cancelled when a newer request superseded this one.
+     * Fails with RejectedExecutionException when the queue is full or the scheduler is shut down.
+     */
+    public <T> CompletableFuture<T> submit(OutboundRequest<T> request) {
+        Entry<T> entry = new Entry<>(request);
+        Entry<?> superseded = null;
+
+        lock.lock();
+        try {
+            if (!running) {
+                entry.result.completeExceptionally(new RejectedExecutionException("Outbound scheduler is shut down"));
+                return entry.result;
+            }
+            // Check capacity before displacing anything: a rejected request must not take the one it would replace along
+            Entry<?> replaced = request.supersedeKey() != null ? latestBySupersedeKey.get(request.supersedeKey()) : null;
+            if (replaced == null && queued >= maxQueued && request.lane() != Lane.INTERACTIVE) {
+                entry.result.completeExceptionally(new RejectedExecutionException("Outbound queue is full"));
+                return entry.result;
+            }
+            if (replaced != null) {
+                latestBySupersedeKey.put(request.supersedeKey(), entry);
+                replaced.superseded = true; // skipped (and unlinked) when the dispatcher reaches it
+                queued--;
+                superseded = replaced;
+            } else if (request.supersedeKey() != null) {
+                latestBySupersedeKey.put(request.supersedeKey(), entry);
+            }
+            lanes.get(request.lane()).addLast(entry);
+            queued++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (superseded != null) superseded.result.completeExceptionally(new CancellationException("Superseded"));
+        return entry.result;
+    }
+
+    /** Reports every REST call's queue and send time (default: nothing). */
+    public void metrics(EclipseMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    /** Requests waiting to be sent, per lane. */
+    public Map<Lane, Integer> pending() {
+        lock.lock();
+        try {
+            Map<Lane, Integer> out = new EnumMap<>(Lane.class);
+            for (Map.Entry<Lane, ArrayDeque<Entry<?>>> e : lanes.entrySet()) {
+                int n = 0;
+                for (Entry<?> entry : e.getValue()) if (!entry.superseded) n++;
+                out.put(e.getKey(), n);
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops the dispatcher; queued requests fail with RejectedExecutionException. */
+    public void shutdown() {
+        ArrayDeque<Entry<?>> dropped = new ArrayDeque<>();
+        lock.lock();
+        try {
+            running = false;
+            for (ArrayDeque<Entry<?>> q : lanes.values()) {
+                dropped.addAll(q);
+                q.clear();
+            }
+            latestBySupersedeKey.clear();
+            queued = 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        RejectedExecutionException stopped = new RejectedExecutionException("Outbound scheduler is shut down");
+        for (Entry<?> e : dropped) e.result.completeExceptionally(stopped);
+    }
+
+    // ---------------------------
+    // Dispatcher
+    // ---------------------------
+
+    private void run() {
+        while (true) {
+            Entry<?> next;
+            lock.lock();
+            try {
+                long waitNanos;
+                while (true) {
+                    if (!running) return;
+                    long now = System.nanoTime();
+                    long[] readyAt = {Long.MAX_VALUE};
+                    next = poll(now, readyAt);
+                    if (next != null) break;
+                    waitNanos = readyAt[0] == Long.MAX_VALUE ? Long.MAX_VALUE : readyAt[0] - now;
+                    try {
+                        if (waitNanos == Long.MAX_VALUE) changed.await();
+                        else changed.awaitNanos(Math.max(waitNanos, 1));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            send(next);
+        }
+    }
+
+    /** Takes the first sendable entry in lane order, or records when the earliest one could go. */
+    private Entry<?> poll(long now, long[] readyAt) {
+        for (Lane lane : Lane.values()) {
+            ArrayDeque<Entry<?>> q = lanes.get(lane);
+            int scanned = 0;
+            for (Iterator<Entry<?>> it = q.iterator(); it.hasNext() && scanned < SCAN_LIMIT; ) {
+                Entry<?> e = it.next();
+                if (e.superseded) {
+                    it.remove();
+                    continue;
+                }
+                scanned++;
+
+                Bucket route = route(e.request.route(), now);
+                boolean exempt = lane == Lane.INTERACTIVE;
+                long wait = Math.max(route != null ? route.waitNanos(now) : 0, exempt ? 0 : global.waitNanos(now));
+                if (wait > 0) {
+                    readyAt[0] = Math.min(readyAt[0], now + wait);
+                    continue;
+                }
+
+                if (route != null) route.take(now);
+                if (!exempt) global.take(now);
+                it.remove();
+                queued--;
+                String key = e.request.supersedeKey();
+                if (key != null) latestBySupersedeKey.remove(key, e);
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private Bucket route(String route, long now) {
+        if (route == null) return null;
+        Bucket b = routes.get(route);
+        if (b == null) {
+            if (routes.size() >= 4096) routes.values().removeIf(x -> x.idle(now)); // drop fully refilled buckets
+            b = new Bucket(routeInterval, routeTolerance);
+            routes.put(route, b);
+        }
+        return b;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void send(Entry<?> e) {
+        EclipseMetrics m = metrics;
+        long sentAt = System.nanoTime();
+        MessageSentEvent event = new MessageSentEvent();
+        event.begin();
+        CompletableFuture<?> call;
+        try {
+            call = transport.execute((OutboundRequest) e.request);
+        } catch (Throwable t) {
+            e.result.completeExceptionally(t);
+            return;
+        }
+        call.whenComplete((value, err) -> {
+            Lane lane = e.request.lane();
+            event.commit(lane.name(), e.request.route(), sentAt - e.queuedAt, err == null);
+            if (m.enabled()) m.restCall(lane, sentAt - e.queuedAt, System.nanoTime() - sentAt, err == null);
+            if (err == null) {
+                ((CompletableFuture) e.result).complete(value);
+                return;
+            }
+            long retryAfter = transport.retryAfterMillis(err);
+            if (retryAfter < 0 || e.attempts >= maxRetries) {
+                e.result.completeExceptionally(err);
+                return;
+            }
+            Throwable dropped = requeue(e, retryAfter);
+            if (dropped != null) e.result.completeExceptionally(dropped);
+        });
+    }
+
+    /** Queues a rate-limited request again; returns why it was dropped instead, or null. */
+    private Throwable requeue(Entry<?> e, long retryAfterMillis) {
+        lock.lock();
+        try {
+            if (!running) return new RejectedExecutionException("Outbound scheduler is shut down");
+            e.attempts++;
+            long now = System.nanoTime();
+            long quiet = TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+            Bucket route = route(e.request.route(), now);
+            if (route != null) route.blockFor(now, quiet);
+            else if (e.request.lane() != Lane.INTERACTIVE) global.blockFor(now, quiet);
+
+            String key = e.request.supersedeKey();
+            if (key != null) {
+                if (latestBySupersedeKey.containsKey(key)) return new CancellationException("Superseded"); // a newer one is queued
+                latestBySupersedeKey.put(key, e);
+            }
+            e.queuedAt = now;
+            lanes.get(e.request.lane()).addFirst(e);
+            queued++;
+            changed.signal();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------
+    // Internals
+    // ---------------------------
+
+    private static final class Entry<T> {
+        final OutboundRequest<T> request;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        boolean superseded; // guarded by the scheduler lock
+        int attempts;
+        long queuedAt = System.nanoTime(); // when (re)queued
+
+        Entry(OutboundRequest<T> request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * GCRA bucket: {@code interval} = period / capacity, {@code tolerance} = interval * (capacity - 1).
+     * Not thread-safe; guarded by the scheduler lock.
+     */
+    private static final class Bucket {
+        final long interval;
+        final long tolerance;
+        long tat; // theoretical arrival time of the next request
+
+        Bucket(long interval, long tolerance) {
+            this.interval = interval;
+            this.tolerance = tolerance;
+            this.tat = System.nanoTime();
+        }
+
+        long waitNanos(long now) {
+            return Math.max(0, tat - tolerance - now);
+        }
+
+        void take(long now) {
+            tat = Math.max(tat, now) + interval;
+        }
+
+        void blockFor(long now, long quietNanos) {
+            tat = Math.max(tat, now + quietNanos + tolerance);
+        }
+
+        boolean idle(long now) {
+            return tat - now <= 0;
+        }
+    }
+
+    // ---------------------------
+    // Builder
+    // ---------------------------
+
+    public static class Builder {
+        private RestTransport transport = RestTransport.JDA;
+        private long globalInterval;
+        private long globalTolerance;
+        private long routeInterval;
+        private long routeTolerance;
+        private int maxRetries = 3;
+        private int maxQueued = 10_000;
+
+        private Builder() {
+            globalLimit(50, Duration.ofSeconds(1));  // Discord's global limit
+            routeLimit(5, Duration.ofSeconds(5));    // message sends per channel
+        }
+
+        /** Where released requests go (default: JDA). */
+        public Builder transport(RestTransport transport) {
+            this.transport = Objects.requireNonNull(transport, "transport");
+            return this;
+        }
+
+        /** At most {@code requests} per {@code period} overall, bursts up to {@code requests}. */
+        public Builder globalLimit(int requests, Duration period) {
+            long interval = interval(requests, period);
+            this.globalInterval = interval;
+            this.globalTolerance = interval * (requests - 1);
+            return this;
+        }
+
+        /** At most {@code requests} per {@code period} per route, bursts up to {@code requests}. */
+        public Builder routeLimit(int requests, Duration period) {
+            long interval = interval(requests, period);
+            this.routeInterval = interval;
+            this.routeTolerance = interval * (requests - 1);
+            return this;
+        }
+
+        /** How often a rate-limited (429) request is re-queued before its future fails. */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) throw new IllegalArgumentException("maxRetries must be >= 0");
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /** Queue bound for NORMAL and BULK requests; INTERACTIVE ones are never rejected. */
+        public Builder maxQueued(int maxQueued) {
+            if (maxQueued <= 0) throw new IllegalArgumentException("maxQueued must be > 0");
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        public OutboundScheduler build() {
+            return new OutboundScheduler(this);
+        }
+
+        private static long interval(int requests, Duration period) {
+            if (requests <= 0) throw new IllegalArgumentException("requests must be > 0");
+            if (period.isZero() || period.isNegative()) throw new IllegalArgumentException("period must be > 0");
+            return Math.max(1, period.toNanos() / requests);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.darkmatterservers.rest;
+
+import net.dv8tion.jda.api.exceptions.RateLimitedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Executes requests released by the {@link OutboundScheduler}.
+ * <p>
+ * {@link #JDA} simply runs the request's call (a JDA {@code RestAction#submit()}). Tests
+ * and load drivers can plug in a transport that talks to a local fake endpoint instead,
+ * and report simulated 429s through {@link #retryAfterMillis(Throwable)}.
+ */
+public interface RestTransport {
+
+    /** Runs the call as-is; JDA's own requester sits underneath. */
+    RestTransport JDA = new RestTransport() {
+        @Override
+        public <T> CompletableFuture<T> execute(OutboundRequest<T> request) {
+            return request.call().get();
+        }
+    };
+
+    /** Sends the request; the future completes with the response or the failure. */
+    <T> CompletableFuture<T> execute(OutboundRequest<T> request);
+
+    /**
+     * If the failure was a rate limit, how long the route must stay quiet (ms); otherwise -1.
+     * Rate-limited requests are re-queued at the front of their lane.
+     */
+    default long retryAfterMillis(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof RateLimitedException rl ? Math.max(0, rl.getRetryAfter()) : -1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.darkmatterservers.router;
+
+import com.darkmatterservers.context.ComponentContext;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A component handler that finishes asynchronously (database lookups, HTTP calls, ...).
+ * <p>
+ * The runtime acks the click as soon as it sees an async handler, invokes it on its
+ * handler executor (never the JDA gateway thread) and re-renders the page through the
+ * interaction hook once the returned stage completes. If that takes longer than
+ * {@link #timeout()} the runtime renders its fallback page instead and moves on;
+ * later clicks for the same session wait until the handler finished or timed out.
+ * <p>
+ * Because it is also a {@link ComponentHandler}, an async handler can be registered
+ * anywhere a plain handler can; synchronous callers such as
+ * {@link InteractionRouter#handle(String, ComponentContext)} simply block on it.
+ */
+@SuppressWarnings("unused")
+@FunctionalInterface
+public interface AsyncComponentHandler extends ComponentHandler {
+
+    CompletionStage<Void> handleAsync(ComponentContext ctx);
+
+    /** How long the runtime waits before rendering the fallback page; null uses the runtime default. */
+    default Duration timeout() {
+        return null;
+    }
+
+    /** Blocking bridge for synchronous dispatch. */
+    @Override
+    default void handle(ComponentContext ctx) {
+        handleAsync(ctx).toCompletableFuture().join();
+    }
+
+    /** Returns this handler with its own timeout. */
+    default AsyncComponentHandler withTimeout(Duration timeout) {
+        Objects.requireNonNull(timeout, "timeout");
+        if (timeout.isZero() || timeout.isNegative()) throw new IllegalArgumentException("timeout must be > 0");
+        AsyncComponentHandler self = this;
+        return new AsyncComponentHandler() {
+            @Override
+            public CompletionStage<Void> handleAsync(ComponentContext ctx) {
+                return self.handleAsync(ctx);
+            }
+
+            @Override
+            public Duration timeout() {
+                return timeout;
+            }
+        };
+    }
+
+    /**
+     * Adapts blocking code: the runtime runs it on the handler executor instead of
+     * the gateway thread, and it counts as done when it returns.
+     */
+    static AsyncComponentHandler blocking(ComponentHandler handler) {
+        Objects.requireNonNull(handler, "handler");
+        return ctx -> {
+            handler.handle(ctx);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+}
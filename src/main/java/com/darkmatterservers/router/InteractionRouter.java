@@ -1,23 +1,39 @@
 package com.darkmatterservers.router;
 
 import com.darkmatterservers.context.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings("unused")
 public class InteractionRouter {
 
-    private static final Map<String, ComponentHandler> handlers = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(InteractionRouter.class);
+
+    // Plain IDs, with their match pre-built so exact hits allocate nothing
+    private static final Map<String, RouteTable.RouteMatch> handlers = new ConcurrentHashMap<>();
+
+    // Route templates ("shop.buy:{itemId}"), recompiled on registration (copy-on-write)
+    private static volatile RouteTable templates = RouteTable.empty();
 
     /**
-     * Registers a handler for a given component ID.
+     * Registers a handler for a given component ID or route template.
+     * Templates use {name} placeholders, e.g. "shop.buy:{itemId}" or "poll.{pollId}.vote";
+     * captured values are available through {@link ComponentContext#routeParam(String)}.
      * If a handler is already registered, it warns instead of replacing it.
      */
     public static void register(String id, ComponentHandler handler) {
-        if (handlers.putIfAbsent(id, handler) == null) {
-            System.out.println("✅ Registered handler for ID: " + id);
+        boolean added;
+        if (RouteTable.isTemplate(id)) {
+            added = registerTemplate(id, handler);
+        } else {
+            added = handlers.putIfAbsent(id, new RouteTable.RouteMatch(id, handler, Map.of())) == null;
+        }
+        if (added) {
+            log.debug("Registered handler for {}", id);
         } else {
-            System.out.println("⚠️ Handler already registered for ID: " + id);
+            log.warn("Handler already registered for {}; keeping the first one", id);
         }
     }
 
@@ -25,19 +41,38 @@ public class InteractionRouter {
      * Dispatches a handler by ID and invokes it with the given context.
      */
     public static void handle(String id, ComponentContext ctx) {
-        ComponentHandler handler = handlers.get(id);
-        if (handler != null) {
-            handler.handle(ctx);
+        RouteTable.RouteMatch match = match(id);
+        if (match != null) {
+            ctx.routeParams(match.params());
+            match.handler().handle(ctx);
         } else {
-            System.out.println("❌ No handler found for component: " + id);
+            log.atDebug().setMessage("No handler found").addKeyValue("componentId", id).log();
         }
     }
 
     /**
-     * Checks if a handler is registered for a given ID.
+     * Returns the handler registered for an ID, or null. Lets callers choose how to run it
+     * (e.g. asynchronously for {@link AsyncComponentHandler}s).
+     */
+    public static ComponentHandler resolve(String id) {
+        RouteTable.RouteMatch match = match(id);
+        return match != null ? match.handler() : null;
+    }
+
+    /**
+     * Resolves an ID against plain IDs first, then route templates.
+     * Returns null if nothing matches.
+     */
+    public static RouteTable.RouteMatch match(String id) {
+        RouteTable.RouteMatch hit = handlers.get(id);
+        return hit != null ? hit : templates.match(id);
+    }
+
+    /**
+     * Checks if a handler is registered for a given ID (or a template matching it).
      */
     public static boolean isRegistered(String id) {
-        return handlers.containsKey(id);
+        return match(id) != null;
     }
 
     /**
@@ -45,13 +80,31 @@ public class InteractionRouter {
      */
     public static void clear() {
         handlers.clear();
-        System.out.println("🧹 Cleared all registered component handlers.");
+        synchronized (InteractionRouter.class) {
+            templates = RouteTable.empty();
+        }
+        log.debug("Cleared all registered component handlers");
     }
 
     /**
-     * Returns the number of registered handlers.
+     * Returns the number of registered handlers (plain IDs + templates).
      */
     public static int count() {
-        return handlers.size();
+        return handlers.size() + templates.size();
+    }
+
+    private static synchronized boolean registerTemplate(String template, ComponentHandler handler) {
+        RouteTable current = templates;
+        RouteTable.Builder b = current.toBuilder();
+        int before = current.size();
+        try {
+            RouteTable next = b.add(template, handler).build();
+            if (next.size() == before) return false; // same template string already present
+            templates = next;
+            return true;
+        } catch (IllegalStateException conflict) {
+            // Equivalent template (same shape, different placeholder names) already registered
+            return false;
+        }
     }
 }
@@ -0,0 +1,259 @@
+package com.darkmatterservers.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable, precompiled handler lookup for component IDs.
+ * <p>
+ * Plain IDs ({@code "bytes.next"}) go into a hash map. Route templates with named
+ * placeholders ({@code "shop.buy:{itemId}"}, {@code "poll.{pollId}.vote"}) are compiled
+ * into a character trie, so one template serves every rendered button that matches it.
+ * <p>
+ * Matching walks the ID character by character; no regex is involved. A placeholder
+ * captures at least one character and first tries to stop at the first character that
+ * could continue the template after it (for {@code "poll.{pollId}.vote"} that is the next
+ * '.'). If the rest of the ID then matches nothing, the capture grows to the next such
+ * character, and finally to the end of the ID; so with {@code "x.{id}"} and
+ * {@code "x.{id}.edit"}, {@code "x.a.b"} still matches the first with id "a.b". Literal
+ * edges win over placeholders, so {@code "shop.buy:all"} beats {@code "shop.buy:{itemId}"}
+ * for that exact ID.
+ * <p>
+ * An ID that matches on the first try costs one pass. Retries only happen when templates
+ * share a prefix and the shortest capture leads nowhere, so a table of templates with
+ * distinct separators stays linear in the ID length.
+ */
+@SuppressWarnings("unused")
+public final class RouteTable {
+
+    /** A resolved handler plus the values captured by its template (empty for plain IDs). */
+    public record RouteMatch(String route, ComponentHandler handler, Map<String, String> params) {}
+
+    private static final RouteTable EMPTY = new Builder().build();
+
+    private final Map<String, ComponentHandler> exact;
+    private final Map<String, RouteMatch> exactMatches;
+    private final Node root;
+    private final int templates;
+
+    private RouteTable(Map<String, ComponentHandler> exact, Node root, int templates) {
+        this.exact = exact;
+        this.root = root;
+        this.templates = templates;
+        // Pre-built matches for plain IDs so exact hits allocate nothing
+        Map<String, RouteMatch> matches = new HashMap<>(Math.max(16, exact.size() * 2));
+        exact.forEach((id, h) -> matches.put(id, new RouteMatch(id, h, Map.of())));
+        this.exactMatches = matches;
+    }
+
+    public static RouteTable empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** True if the string contains a {@code {name}} placeholder. */
+    public static boolean isTemplate(String route) {
+        int open = route.indexOf('{');
+        return open >= 0 && route.indexOf('}', open) > open;
+    }
+
+    /** Resolves an ID to its handler and captured params, or null if nothing matches. */
+    public RouteMatch match(String id) {
+        RouteMatch hit = exactMatches.get(id);
+        if (hit != null || templates == 0) return hit;
+
+        String[] captured = new String[root.maxParams];
+        Node terminal = walk(root, id, 0, captured, 0);
+        if (terminal == null) return null;
+
+        Map<String, String> params;
+        String[] names = terminal.paramNames;
+        if (names.length == 1) {
+            params = Map.of(names[0], captured[0]);
+        } else {
+            Map<String, String> m = new LinkedHashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) m.put(names[i], captured[i]);
+            params = Collections.unmodifiableMap(m);
+        }
+        return new RouteMatch(terminal.route, terminal.handler, params);
+    }
+
+    /** Handler for an exact (non-template) ID only. */
+    public ComponentHandler exact(String id) {
+        return exact.get(id);
+    }
+
+    /** Number of registered routes (plain IDs + templates). */
+    public int size() {
+        return exact.size() + templates;
+    }
+
+    /** Returns a builder pre-filled with this table's routes. */
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        b.routes.putAll(exact);
+        collect(root, b.routes);
+        return b;
+    }
+
+    // -------------------- Matching --------------------
+
+    private static Node walk(Node node, String id, int pos, String[] captured, int depth) {
+        if (pos == id.length()) return node.handler != null ? node : null;
+
+        char c = id.charAt(pos);
+        Node lit = node.literal(c);
+        if (lit != null) {
+            Node found = walk(lit, id, pos + 1, captured, depth);
+            if (found != null) return found;
+        }
+
+        Node param = node.param;
+        if (param == null) return null;
+
+        // Shortest capture first: up to the next char that can continue a template, else the end
+        for (int end = pos + 1; end <= id.length(); end++) {
+            if (end < id.length() && !param.stops(id.charAt(end))) continue;
+            Node found = walk(param, id, end, captured, depth + 1);
+            if (found != null) {
+                captured[depth] = id.substring(pos, end);
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static void collect(Node node, Map<String, ComponentHandler> out) {
+        if (node.handler != null) out.put(node.route, node.handler);
+        for (Node child : node.children) collect(child, out);
+        if (node.param != null) collect(node.param, out);
+    }
+
+    // -------------------- Trie --------------------
+
+    private static final class Node {
+        char[] chars = new char[0];
+        Node[] children = new Node[0];
+        Node param;
+
+        // Terminal data
+        ComponentHandler handler;
+        String route;
+        String[] paramNames;
+
+        // Computed on build
+        int maxParams;
+
+        Node literal(char c) {
+            char[] cs = chars;
+            // Fan-out is small; a linear scan beats hashing here
+            for (int i = 0; i < cs.length; i++) {
+                if (cs[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node literalOrCreate(char c) {
+            Node n = literal(c);
+            if (n != null) return n;
+            n = new Node();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            chars[chars.length - 1] = c;
+            children[children.length - 1] = n;
+            return n;
+        }
+
+        /** For a node reached through a placeholder: does this char end the capture? */
+        boolean stops(char c) {
+            return literal(c) != null;
+        }
+
+        int computeMaxParams(int depth) {
+            int max = handler != null ? depth : 0;
+            for (Node child : children) max = Math.max(max, child.computeMaxParams(depth));
+            if (param != null) max = Math.max(max, param.computeMaxParams(depth + 1));
+            maxParams = max;
+            return max;
+        }
+    }
+
+    // -------------------- Builder --------------------
+
+    public static class Builder {
+        private final Map<String, ComponentHandler> routes = new LinkedHashMap<>();
+
+        /** Adds a plain ID or a template; a later add for the same route replaces the earlier one. */
+        public Builder add(String route, ComponentHandler handler) {
+            routes.put(Objects.requireNonNull(route, "route"), Objects.requireNonNull(handler, "handler"));
+            return this;
+        }
+
+        /** Adds all routes from the map. */
+        public Builder addAll(Map<String, ? extends ComponentHandler> routes) {
+            routes.forEach(this::add);
+            return this;
+        }
+
+        /**
+         * Compiles the routes. Throws IllegalArgumentException for malformed templates and
+         * IllegalStateException for templates that differ only in placeholder names.
+         */
+        public RouteTable build() {
+            Map<String, ComponentHandler> exact = new HashMap<>();
+            Node root = new Node();
+            int templates = 0;
+            for (Map.Entry<String, ComponentHandler> e : routes.entrySet()) {
+                if (isTemplate(e.getKey())) {
+                    insert(root, e.getKey(), e.getValue());
+                    templates++;
+                } else {
+                    exact.put(e.getKey(), e.getValue());
+                }
+            }
+            root.computeMaxParams(0);
+            return new RouteTable(Map.copyOf(exact), root, templates);
+        }
+
+        private static void insert(Node root, String template, ComponentHandler handler) {
+            List<String> names = new ArrayList<>(2);
+            Node node = root;
+            int i = 0;
+            while (i < template.length()) {
+                char c = template.charAt(i);
+                if (c == '{') {
+                    int close = template.indexOf('}', i);
+                    if (close < 0) throw new IllegalArgumentException("Unclosed '{' in route: " + template);
+                    String name = template.substring(i + 1, close).trim();
+                    if (name.isEmpty()) throw new IllegalArgumentException("Empty placeholder in route: " + template);
+                    if (names.contains(name)) throw new IllegalArgumentException("Duplicate placeholder '" + name + "' in route: " + template);
+                    if (close + 1 < template.length() && template.charAt(close + 1) == '{') {
+                        throw new IllegalArgumentException("Adjacent placeholders need a separator: " + template);
+                    }
+                    if (node.param == null) node.param = new Node();
+                    node = node.param;
+                    names.add(name);
+                    i = close + 1;
+                } else {
+                    node = node.literalOrCreate(c);
+                    i++;
+                }
+            }
+            if (node.handler != null) {
+                throw new IllegalStateException("Route " + template + " conflicts with " + node.route);
+            }
+            node.handler = handler;
+            node.route = template;
+            node.paramNames = names.toArray(String[]::new);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.darkmatterservers.session;
+
+/**
+ * Why a session was dropped by its store without an explicit remove.
+ */
+public enum EvictionCause {
+    /** No interaction within the idle TTL. */
+    IDLE,
+    /** Older than the absolute TTL, regardless of activity. */
+    EXPIRED,
+    /** Pushed out because the store reached its maximum size. */
+    SIZE
+}
@@ -0,0 +1,332 @@
+package com.darkmatterservers.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, self-expiring session store.
+ * <p>
+ * - maxSize: least-recently-used sessions are evicted once the store is full
+ * - idleTtl: sessions with no interaction for this long are evicted
+ * - absoluteTtl: sessions older than this are evicted even if still active
+ * <p>
+ * Keys are spread over lock-striped access-ordered maps so LRU bookkeeping never
+ * takes a store-wide lock. maxSize is enforced across all stripes, but the session
+ * evicted to make room is the least recently used of one stripe (the new key's, or the
+ * next non-empty one), so eviction order is approximately LRU; concurrent puts may
+ * briefly leave the store a few sessions over or under the cap. Time-based expiry runs on a single {@link HashedTimingWheel};
+ * each session holds at most one pending wheel entry which re-arms itself lazily
+ * when the session was touched since it was scheduled. Reads also check deadlines,
+ * so an overdue session is never returned even between ticks.
+ * <p>
+ * Use {@link #builder()} to configure; a TTL of zero disables that limit. Once closed,
+ * {@link #put(String, Session)} throws IllegalStateException.
+ */
+@SuppressWarnings("unused")
+public final class ExpiringSessionStore implements SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiringSessionStore.class);
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final int maxSize;
+    private final AtomicInteger count = new AtomicInteger();
+    private final long idleTtlNanos;
+    private final long absoluteTtlNanos;
+    private final List<SessionEvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private final HashedTimingWheel wheel;
+    private volatile boolean closed;
+
+    private ExpiringSessionStore(Builder b) {
+        this.stripes = new Stripe[b.stripes];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe();
+        this.maxSize = b.maxSize;
+        this.idleTtlNanos = b.idleTtl.toNanos();
+        this.absoluteTtlNanos = b.absoluteTtl.toNanos();
+        if (b.listener != null) listeners.add(b.listener);
+        this.wheel = (idleTtlNanos > 0 || absoluteTtlNanos > 0)
+                ? new HashedTimingWheel(b.tick.toNanos(), TimeUnit.NANOSECONDS, b.wheelSize, "eclipsebytes-session-reaper")
+                : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Age after which sessions are evicted however active they are (zero = no limit). */
+    public Duration absoluteTtl() {
+        return Duration.ofNanos(absoluteTtlNanos);
+    }
+
+    // -------------------- Store operations --------------------
+
+    /** Returns the live session for the key and marks it as used, or null if absent/expired. */
+    @Override
+    public Session get(String key) {
+        Stripe stripe = stripeFor(key);
+        Session session;
+        EvictionCause cause = null;
+        synchronized (stripe) {
+            session = stripe.map.get(key);
+            if (session == null) return null;
+            cause = overdue(session, System.nanoTime());
+            if (cause != null) {
+                stripe.map.remove(key);
+                count.decrementAndGet();
+            } else {
+                session.touch();
+            }
+        }
+        if (cause != null) {
+            evicted(key, session, cause);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Stores a session, replacing any previous one for the key (which is not reported as evicted).
+     * Throws IllegalStateException once the store is closed.
+     */
+    @Override
+    public void put(String key, Session session) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(session, "session");
+        Stripe stripe = stripeFor(key);
+        Session previous;
+        synchronized (stripe) {
+            // checked under the stripe lock, which close() takes after setting the flag
+            if (closed) throw new IllegalStateException("Session store is closed");
+            previous = stripe.map.put(key, session);
+            if (previous == null) count.incrementAndGet();
+            scheduleExpiry(key, session);
+        }
+        if (previous != null && previous != session) cancelExpiry(previous);
+        if (previous == null) evictOverflow(key);
+    }
+
+    /** Removes and returns the session for the key (no eviction callback). */
+    @Override
+    public Session remove(String key) {
+        Stripe stripe = stripeFor(key);
+        Session removed;
+        synchronized (stripe) {
+            removed = stripe.map.remove(key);
+            if (removed != null) count.decrementAndGet();
+        }
+        if (removed != null) cancelExpiry(removed);
+        return removed;
+    }
+
+    /** Current number of sessions (including any that are overdue but not yet reaped). */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    /** Drops every session without firing eviction callbacks. */
+    @Override
+    public void clear() {
+        for (Stripe s : stripes) {
+            List<Session> dropped;
+            synchronized (s) {
+                dropped = new ArrayList<>(s.map.values());
+                s.map.clear();
+                count.addAndGet(-dropped.size());
+            }
+            dropped.forEach(this::cancelExpiry);
+        }
+    }
+
+    @Override
+    public void addEvictionListener(SessionEvictionListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /** Clears the store and stops the reaper thread; later puts throw IllegalStateException. */
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+        if (wheel != null) wheel.close();
+    }
+
+    // -------------------- Size limit --------------------
+
+    /**
+     * Evicts least-recently-used sessions while the store is over maxSize, starting with the
+     * stripe that just grew and moving on to the next ones; never evicts the key just put.
+     */
+    private void evictOverflow(String justPut) {
+        if (count.get() <= maxSize) return;
+        int start = stripeIndex(justPut);
+        for (int i = 0; i < stripes.length && count.get() > maxSize; ) {
+            Stripe s = stripes[(start + i) & (stripes.length - 1)];
+            Map.Entry<String, Session> eldest = null;
+            synchronized (s) {
+                Iterator<Map.Entry<String, Session>> it = s.map.entrySet().iterator();
+                if (it.hasNext()) {
+                    Map.Entry<String, Session> e = it.next();
+                    if (!e.getKey().equals(justPut)) {
+                        it.remove();
+                        count.decrementAndGet();
+                        eldest = e;
+                    }
+                }
+            }
+            if (eldest == null) {
+                i++; // empty, or only holds the new session: try the next stripe
+                continue;
+            }
+            evicted(eldest.getKey(), eldest.getValue(), EvictionCause.SIZE);
+        }
+    }
+
+    // -------------------- Expiry --------------------
+
+    private void scheduleExpiry(String key, Session session) {
+        if (wheel == null) return;
+        cancelExpiry(session); // at most one pending entry per session
+        long delay = nextDeadline(session) - System.nanoTime();
+        session.expiry = wheel.schedule(() -> reap(key, session), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void reap(String key, Session session) {
+        Stripe stripe = stripeFor(key);
+        EvictionCause cause;
+        synchronized (stripe) {
+            if (stripe.map.get(key) != session) return; // replaced or removed meanwhile
+            cause = overdue(session, System.nanoTime());
+            if (cause == null) {
+                // Touched since we were scheduled: re-arm for the new deadline
+                scheduleExpiry(key, session);
+                return;
+            }
+            stripe.map.remove(key);
+            count.decrementAndGet();
+        }
+        evicted(key, session, cause);
+    }
+
+    private long nextDeadline(Session session) {
+        long deadline = Long.MAX_VALUE;
+        if (idleTtlNanos > 0) deadline = session.lastAccessNanos() + idleTtlNanos;
+        if (absoluteTtlNanos > 0) deadline = Math.min(deadline, session.createdNanos() + absoluteTtlNanos);
+        return deadline;
+    }
+
+    private EvictionCause overdue(Session session, long now) {
+        if (absoluteTtlNanos > 0 && now - session.createdNanos() >= absoluteTtlNanos) return EvictionCause.EXPIRED;
+        if (idleTtlNanos > 0 && now - session.lastAccessNanos() >= idleTtlNanos) return EvictionCause.IDLE;
+        return null;
+    }
+
+    private void cancelExpiry(Session session) {
+        HashedTimingWheel.Timeout t = session.expiry;
+        if (t != null) t.cancel();
+    }
+
+    private void evicted(String key, Session session, EvictionCause cause) {
+        cancelExpiry(session);
+        for (SessionEvictionListener listener : listeners) {
+            try {
+                listener.onEviction(key, session, cause);
+            } catch (Throwable t) {
+                log.error("Session eviction listener failed for {}", key, t);
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private int stripeIndex(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    private static final class Stripe {
+        // accessOrder=true: iteration starts at the least-recently-used entry
+        final LinkedHashMap<String, Session> map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // -------------------- Builder --------------------
+
+    public static class Builder {
+        private int maxSize = 100_000;
+        private Duration idleTtl = Duration.ofMinutes(30);
+        private Duration absoluteTtl = Duration.ofHours(24);
+        private Duration tick = Duration.ofSeconds(1);
+        private int wheelSize = 512;
+        private int stripes = DEFAULT_STRIPES;
+        private SessionEvictionListener listener;
+
+        /** Maximum number of live sessions (default 100,000). */
+        public Builder maxSize(int maxSize) {
+            if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be > 0");
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /** Evict sessions that saw no interaction for this long (default 30 minutes, zero disables). */
+        public Builder idleTtl(Duration idleTtl) {
+            this.idleTtl = requireNonNegative(idleTtl, "idleTtl");
+            return this;
+        }
+
+        /** Evict sessions this long after they started (default 24 hours, zero disables). */
+        public Builder absoluteTtl(Duration absoluteTtl) {
+            this.absoluteTtl = requireNonNegative(absoluteTtl, "absoluteTtl");
+            return this;
+        }
+
+        /** Reaper precision and bucket count of the timing wheel (default 1s x 512). */
+        public Builder wheel(Duration tick, int wheelSize) {
+            if (tick == null || tick.isZero() || tick.isNegative()) throw new IllegalArgumentException("tick must be > 0");
+            if (wheelSize <= 0) throw new IllegalArgumentException("wheelSize must be > 0");
+            this.tick = tick;
+            this.wheelSize = wheelSize;
+            return this;
+        }
+
+        /**
+         * Number of independently locked partitions, rounded up to a power of two (default 16).
+         * Raise it when many threads touch sessions at once, e.g. one or more per shard.
+         */
+        public Builder stripes(int stripes) {
+            if (stripes <= 0 || stripes > 1 << 16) throw new IllegalArgumentException("stripes must be within [1, 65536]");
+            this.stripes = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+            return this;
+        }
+
+        /** Called for every idle, expired or size eviction. */
+        public Builder onEviction(SessionEvictionListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public ExpiringSessionStore build() {
+            return new ExpiringSessionStore(this);
+        }
+
+        private static Duration requireNonNegative(Duration d, String name) {
+            Objects.requireNonNull(d, name);
+            if (d.isNegative()) throw new IllegalArgumentException(name + " must be >= 0");
+            return d;
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Session store that survives restarts by logging sessions to a memory-mapped, append-only file.
+ * <p>
+ * Live sessions are held by an in-memory delegate (an {@link ExpiringSessionStore} by default,
+ * so TTL and size limits still apply); this class mirrors every change into the log:
+ * - click path: the context is encoded (rawEvent and other live objects are skipped by
+ *   {@link ContextCodec}) and parked in a latest-wins map; nothing touches the disk
+ * - a background writer appends parked records every flushInterval, syncs the mapping
+ *   every syncInterval and compacts the log once most of it is superseded records
+ * <p>
+ * On open, the log is scanned up to the first torn or corrupt record (length + CRC32
+ * framing), which is where a crash mid-write would leave it. Only raw bytes are indexed
+ * at startup; a session is decoded the first time it is looked up, once its chain can be
+ * resolved by chainId through the configured resolver.
+ * <p>
+ * Records carry their session's creation time, so the absolute TTL keeps counting across
+ * restarts: expired records are skipped by the scan, dropped by compaction and, if never
+ * looked up again, deleted by the writer's periodic sweep, so the log stays bounded.
+ * <p>
+ * Record layout: [int length][int crc32][byte op][UTF key][long createdMillis][UTF chainId + context]
+ * (PUT), or [int length][int crc32][byte op][UTF key] (DELETE), after an [int magic][int version]
+ * header. Logs of another version are rejected.
+ */
+@SuppressWarnings("unused")
+public final class FileSessionStore implements SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSessionStore.class);
+
+    private static final int MAGIC = 0x4542534C; // "EBSL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int FRAME_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    // How often the writer deletes expired records nobody restored
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Marks a pending delete in the write queue
+    private static final byte[] TOMBSTONE = new byte[0];
+
+    private final Path path;
+    private final Function<String, PagedChain> chains;
+    private final SessionStore memory;
+    private final long minCompactBytes;
+    private final long syncIntervalNanos;
+    private final long absoluteTtlMillis;   // 0 = records never expire
+    private final ScheduledExecutorService writer;
+    private final List<SessionEvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object restoreLock = new Object();
+
+    /**
+     * Last persisted record body per key: source for lazy restores and for compaction.
+     * Only the writer changes it; compaction swaps in a new map rather than rebuilding this one.
+     */
+    private volatile Map<String, byte[]> records = new ConcurrentHashMap<>();
+    /** Records waiting for the writer; a newer update for the same key replaces an unwritten one. */
+    private final Map<String, byte[]> pending = new ConcurrentHashMap<>();
+
+    // Writer thread only (and the constructor)
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long liveBytes;
+    private long lastSyncNanos = System.nanoTime();
+    private long lastSweepNanos = System.nanoTime();
+
+    private volatile boolean closed;
+
+    private FileSessionStore(Builder b) throws IOException {
+        this.path = b.path;
+        this.chains = b.chains;
+        this.memory = b.memory != null ? b.memory : ExpiringSessionStore.builder().build();
+        this.minCompactBytes = b.initialSize;
+        this.syncIntervalNanos = b.syncInterval.toNanos();
+        Duration ttl = b.absoluteTtl != null ? b.absoluteTtl
+                : memory instanceof ExpiringSessionStore expiring ? expiring.absoluteTtl() : Duration.ZERO;
+        this.absoluteTtlMillis = ttl.toMillis();
+
+        open(b.initialSize);
+        this.memory.addEvictionListener(this::onMemoryEviction);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "eclipsebytes-session-log");
+            t.setDaemon(true);
+            return t;
+        });
+        long flushNanos = b.flushInterval.toNanos();
+        writer.scheduleWithFixedDelay(this::flushSafely, flushNanos, flushNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static Builder builder(Path path) {
+        return new Builder(path);
+    }
+
+    // -------------------- SessionStore --------------------
+
+    @Override
+    public Session get(String key) {
+        Session session = memory.get(key);
+        if (session != null) return session;
+
+        byte[] body = pending.get(key);
+        if (body == null) body = records.get(key);
+        if (body == null || body == TOMBSTONE) return null;
+        return restore(key, body);
+    }
+
+    @Override
+    public void put(String key, Session session) {
+        memory.put(key, session);
+        update(key, session);
+    }
+
+    @Override
+    public void update(String key, Session session) {
+        if (closed) return;
+        pending.put(key, encodePut(key, session));
+    }
+
+    @Override
+    public Session remove(String key) {
+        Session removed = memory.remove(key);
+        if (!closed) pending.put(key, TOMBSTONE);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    /** Drops every session, in memory and on disk. */
+    @Override
+    public void clear() {
+        memory.clear();
+        for (String key : pending.keySet()) pending.put(key, TOMBSTONE);
+        for (String key : records.keySet()) pending.put(key, TOMBSTONE);
+    }
+
+    @Override
+    public void addEvictionListener(SessionEvictionListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /** Writes everything still pending, syncs the file and stops the writer. Persisted sessions stay on disk. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            flush(true);
+            release();
+        }
+        memory.close();
+    }
+
+    /** Number of persisted sessions, including ones not yet restored into memory. */
+    public int persistedCount() {
+        return records.size();
+    }
+
+    // -------------------- Restore --------------------
+
+    private Session restore(String key, byte[] body) {
+        synchronized (restoreLock) {
+            Session session = memory.get(key);
+            if (session != null) return session; // restored by another thread meanwhile
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+                in.readByte();      // op
+                in.readUTF();       // key
+                long createdMillis = in.readLong();
+                if (expired(createdMillis, System.currentTimeMillis())) {
+                    pending.put(key, TOMBSTONE);
+                    return null;
+                }
+                String chainId = in.readUTF();
+                PagedChain chain = chains.apply(chainId);
+                if (chain == null) return null; // chain not registered (yet); keep the record
+
+                ComponentContext ctx = ContextCodec.read(in);
+                session = new Session(chain, ctx, createdMillis);
+                memory.put(key, session);
+                return session;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Dropping unreadable session {}: {}", key, e.toString());
+                pending.put(key, TOMBSTONE);
+                return null;
+            }
+        }
+    }
+
+    private void onMemoryEviction(String key, Session session, EvictionCause cause) {
+        if (!closed) pending.put(key, TOMBSTONE);
+        for (SessionEvictionListener listener : listeners) {
+            try {
+                listener.onEviction(key, session, cause);
+            } catch (Throwable t) {
+                log.error("Session eviction listener failed for {}", key, t);
+            }
+        }
+    }
+
+    // -------------------- Writer --------------------
+
+    private void flushSafely() {
+        try {
+            synchronized (this) {
+                if (!closed) flush(false);
+            }
+        } catch (Throwable t) {
+            log.error("Session log flush failed", t);
+        }
+    }
+
+    private void flush(boolean sync) {
+        for (String key : pending.keySet()) {
+            byte[] body = pending.remove(key);
+            if (body == null) continue;
+
+            // Indexed only once appended: a compaction inside append then neither writes the
+            // record twice nor, if it fails, leaves the index ahead of the file
+            try {
+                if (body == TOMBSTONE) {
+                    if (!records.containsKey(key)) continue; // never persisted
+                    append(encodeDelete(key));
+                    byte[] previous = records.remove(key);
+                    if (previous != null) liveBytes -= FRAME_SIZE + previous.length;
+                } else {
+                    append(body);
+                    byte[] previous = records.put(key, body);
+                    if (previous != null) liveBytes -= FRAME_SIZE + previous.length;
+                    liveBytes += FRAME_SIZE + body.length;
+                }
+            } catch (RuntimeException e) {
+                pending.putIfAbsent(key, body); // retried next flush unless a newer update came in
+                throw e;
+            }
+        }
+
+        long now = System.nanoTime();
+        if (absoluteTtlMillis > 0 && now - lastSweepNanos >= SWEEP_INTERVAL_NANOS) {
+            sweepExpired();
+            lastSweepNanos = now;
+        }
+
+        // Periodic compaction once superseded records dominate the log
+        long used = buffer.position() - HEADER_SIZE;
+        if (used > minCompactBytes / 2 && used > 4 * liveBytes) compact(0);
+
+        if (sync || now - lastSyncNanos >= syncIntervalNanos) {
+            buffer.force();
+            lastSyncNanos = now;
+        }
+    }
+
+    /** Deletes records past the absolute TTL; their sessions are gone from memory or about to be. */
+    private void sweepExpired() {
+        long nowMillis = System.currentTimeMillis();
+        for (Map.Entry<String, byte[]> e : records.entrySet()) {
+            if (!expired(createdMillis(e.getValue()), nowMillis)) continue;
+            append(encodeDelete(e.getKey()));
+            if (records.remove(e.getKey()) != null) liveBytes -= FRAME_SIZE + e.getValue().length;
+        }
+    }
+
+    private void append(byte[] body) {
+        int needed = FRAME_SIZE + body.length;
+        if (buffer.remaining() < needed + FRAME_SIZE) {
+            // Log is full: first try to reclaim superseded records, then grow the file
+            compact(needed);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        buffer.putInt(body.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body);
+        // Zero length after the last record marks the end of the log
+        buffer.putInt(buffer.position(), 0);
+    }
+
+    /**
+     * Rewrites the latest unexpired record per key into a fresh file and swaps it in atomically.
+     * The index of the new file is built alongside and replaces {@link #records} in one write,
+     * so concurrent lookups never see it half filled. The old mapping is released before the
+     * swap (a mapped file cannot be replaced on Windows); if the swap fails, the old file is
+     * mapped again and stays the log.
+     */
+    private void compact(int extra) {
+        long nowMillis = System.currentTimeMillis();
+        Map<String, byte[]> kept = new ConcurrentHashMap<>(records.size() * 4 / 3 + 1);
+        long keptBytes = 0;
+        for (Map.Entry<String, byte[]> e : records.entrySet()) {
+            if (expired(createdMillis(e.getValue()), nowMillis)) continue;
+            kept.put(e.getKey(), e.getValue());
+            keptBytes += FRAME_SIZE + e.getValue().length;
+        }
+
+        long required = HEADER_SIZE + keptBytes + extra + FRAME_SIZE;
+        long capacity = Math.max(minCompactBytes, buffer.capacity());
+        while (capacity < required * 2) capacity *= 2;
+        if (capacity > Integer.MAX_VALUE) throw new IllegalStateException("Session log exceeds 2 GiB of live data");
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer next = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                next.putInt(MAGIC);
+                next.putInt(VERSION);
+                CRC32 crc = new CRC32();
+                for (byte[] body : kept.values()) {
+                    crc.reset();
+                    crc.update(body, 0, body.length);
+                    next.putInt(body.length);
+                    next.putInt((int) crc.getValue());
+                    next.put(body);
+                }
+                next.putInt(next.position(), 0);
+                next.force();
+                unmap(next);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact session log " + path, e);
+        }
+
+        long oldCapacity = buffer.capacity();
+        int oldPosition = buffer.position();
+        buffer.force();
+        release();
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            remap(oldCapacity, oldPosition);
+            throw new UncheckedIOException("Could not compact session log " + path, e);
+        }
+        remap(capacity, (int) (HEADER_SIZE + keptBytes));
+        records = kept;
+        liveBytes = keptBytes;
+    }
+
+    /** Maps the log file again after {@link #release()}, positioned for the next append. */
+    private void remap(long capacity, int position) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reopen session log " + path, e);
+        }
+    }
+
+    /** Closes the file and unmaps it; {@link #buffer} must not be touched until it is mapped again. */
+    private void release() {
+        MappedByteBuffer mapped = buffer;
+        buffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close session log {}", path, e);
+        }
+        if (mapped != null) unmap(mapped);
+    }
+
+    /**
+     * Unmaps a buffer right away instead of whenever the GC collects it, which is what lets
+     * the file be replaced or deleted on Windows. Best effort: without access to the JDK's
+     * cleaner the mapping lingers until collected.
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap session log buffer; the GC will release it", e);
+        }
+    }
+
+    // -------------------- Log file --------------------
+
+    /**
+     * Maps the log file, replays it into {@link #records} and positions the buffer after the
+     * last good record. Expired records are dropped.
+     */
+    private void open(long minCapacity) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = Math.max(minCapacity, channel.size());
+        if (capacity > Integer.MAX_VALUE) throw new IOException("Session log too large: " + path);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.position(HEADER_SIZE);
+            records = new ConcurrentHashMap<>();
+            liveBytes = 0;
+            return;
+        }
+        if (buffer.getInt(4) != VERSION) {
+            int version = buffer.getInt(4);
+            release();
+            throw new IOException("Unsupported session log version " + version + " in " + path + " (expected " + VERSION + ")");
+        }
+
+        Map<String, byte[]> scanned = new ConcurrentHashMap<>();
+        long nowMillis = System.currentTimeMillis();
+        liveBytes = 0;
+        CRC32 crc = new CRC32();
+        int pos = HEADER_SIZE;
+        while (pos + FRAME_SIZE <= buffer.capacity()) {
+            int len = buffer.getInt(pos);
+            if (len <= 0 || pos + FRAME_SIZE + len > buffer.capacity()) break;
+            int expected = buffer.getInt(pos + 4);
+
+            byte[] body = new byte[len];
+            buffer.get(pos + FRAME_SIZE, body);
+            crc.reset();
+            crc.update(body, 0, len);
+            if ((int) crc.getValue() != expected) break; // torn write: everything after is garbage
+
+            pos += FRAME_SIZE + len;
+            String key = readKey(body);
+            boolean live = body[0] == OP_PUT && !expired(createdMillis(body), nowMillis);
+            byte[] previous = live ? scanned.put(key, body) : scanned.remove(key);
+            if (previous != null) liveBytes -= FRAME_SIZE + previous.length;
+            if (live) liveBytes += FRAME_SIZE + body.length;
+        }
+        records = scanned;
+        buffer.position(pos);
+        if (pos + 4 <= buffer.capacity()) buffer.putInt(pos, 0);
+    }
+
+    private static String readKey(byte[] body) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, 1, body.length - 1))) {
+            return in.readUTF();
+        }
+    }
+
+    private boolean expired(long createdMillis, long nowMillis) {
+        return absoluteTtlMillis > 0 && nowMillis - createdMillis >= absoluteTtlMillis;
+    }
+
+    // Creation time of a PUT body
+    private static long createdMillis(byte[] body) {
+        int keyLength = ((body[1] & 0xFF) << 8) | (body[2] & 0xFF);
+        int at = 3 + keyLength;
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (body[at + i] & 0xFF);
+        return v;
+    }
+
+    private static byte[] encodePut(String key, Session session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_PUT);
+            out.writeUTF(key);
+            out.writeLong(session.createdMillis());
+            out.writeUTF(session.chain().chainId());
+            ContextCodec.write(session.ctx(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDelete(String key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(OP_DELETE);
+            out.writeUTF(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // -------------------- Builder --------------------
+
+    public static class Builder {
+        private final Path path;
+        private Function<String, PagedChain> chains;
+        private SessionStore memory;
+        private long initialSize = 16L * 1024 * 1024;
+        private Duration flushInterval = Duration.ofMillis(50);
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private Duration absoluteTtl;
+
+        private Builder(Path path) {
+            this.path = Objects.requireNonNull(path, "path");
+        }
+
+        /** Resolves a persisted chainId back to its chain definition (required). */
+        public Builder chains(Function<String, PagedChain> chains) {
+            this.chains = chains;
+            return this;
+        }
+
+        /** In-memory store holding live sessions (default: {@link ExpiringSessionStore} with default limits). */
+        public Builder memory(SessionStore memory) {
+            this.memory = memory;
+            return this;
+        }
+
+        /** Initial mapped size of the log and the size below which it is never compacted (default 16 MiB). */
+        public Builder initialSize(long bytes) {
+            if (bytes < 4096 || bytes > Integer.MAX_VALUE) throw new IllegalArgumentException("initialSize must be 4 KiB..2 GiB");
+            this.initialSize = bytes;
+            return this;
+        }
+
+        /** How often parked records are appended to the log (default 50 ms). */
+        public Builder flushInterval(Duration flushInterval) {
+            if (flushInterval == null || flushInterval.isZero() || flushInterval.isNegative()) {
+                throw new IllegalArgumentException("flushInterval must be > 0");
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /** How often the mapping is forced to disk (default 1 s). */
+        public Builder syncInterval(Duration syncInterval) {
+            this.syncInterval = Objects.requireNonNull(syncInterval, "syncInterval");
+            return this;
+        }
+
+        /**
+         * Age after which persisted sessions are dropped, counted from their original creation
+         * (default: the memory store's absolute TTL if it is an {@link ExpiringSessionStore},
+         * else none). Zero keeps records until their session is removed.
+         */
+        public Builder absoluteTtl(Duration absoluteTtl) {
+            if (absoluteTtl == null || absoluteTtl.isNegative()) throw new IllegalArgumentException("absoluteTtl must be >= 0");
+            this.absoluteTtl = absoluteTtl;
+            return this;
+        }
+
+        /** Opens (or creates) the log and indexes the sessions it contains. */
+        public FileSessionStore build() {
+            Objects.requireNonNull(chains, "chains resolver is required");
+            try {
+                return new FileSessionStore(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open session log " + path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.darkmatterservers.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel: one daemon thread, a ring of buckets, O(1) schedule and cancel.
+ * <p>
+ * Tasks are bucketed by deadline tick; a task further out than one revolution
+ * carries a "rounds" counter that is decremented each time its bucket comes around.
+ * Precision is one tick, which is plenty for session expiry and far cheaper than
+ * a ScheduledExecutorService entry per session.
+ * <p>
+ * Scheduling threads only touch a lock-free inbox; buckets are owned by the worker.
+ */
+@SuppressWarnings("unused")
+public final class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /** Handle for a scheduled task. */
+    public interface Timeout {
+        /** Cancels the task; returns false if it already ran or was cancelled. */
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Entry[] buckets;
+    private final Queue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+    private long tick; // worker thread only
+
+    /**
+     * @param tick       duration of one tick (the expiry precision)
+     * @param unit       unit of {@code tick}
+     * @param wheelSize  number of buckets; rounded up to a power of two
+     * @param threadName name of the worker thread
+     */
+    public HashedTimingWheel(long tick, TimeUnit unit, int wheelSize, String threadName) {
+        if (tick <= 0) throw new IllegalArgumentException("tick must be > 0");
+        if (wheelSize <= 0) throw new IllegalArgumentException("wheelSize must be > 0");
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) size = 1;
+        this.buckets = new Entry[size];
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** Runs {@code task} once, after at least {@code delay}. */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("timing wheel is closed");
+        Entry e = new Entry(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        inbox.add(e);
+        return e;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    // ---------------------------
+    // Worker
+    // ---------------------------
+
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running) break;
+
+            transferInbox();
+            expireBucket(buckets[(int) (tick & mask)], (int) (tick & mask));
+            tick++;
+        }
+        inbox.clear();
+    }
+
+    private void transferInbox() {
+        // Bound the work per tick so a scheduling storm cannot starve expiry
+        for (int i = 0; i < 100_000; i++) {
+            Entry e = inbox.poll();
+            if (e == null) return;
+            if (e.cancelled) continue;
+
+            long due = (e.deadline - startNanos) / tickNanos;
+            e.rounds = (due - tick) / buckets.length;
+            int idx = (int) (Math.max(due, tick) & mask);
+            e.next = buckets[idx];
+            buckets[idx] = e;
+        }
+    }
+
+    private void expireBucket(Entry head, int idx) {
+        Entry prev = null;
+        Entry e = head;
+        while (e != null) {
+            Entry next = e.next;
+            boolean unlink = false;
+            if (e.cancelled) {
+                unlink = true;
+            } else if (e.rounds <= 0) {
+                unlink = true;
+                e.fire();
+            } else {
+                e.rounds--;
+            }
+
+            if (unlink) {
+                if (prev == null) buckets[idx] = next; else prev.next = next;
+                e.next = null;
+            } else {
+                prev = e;
+            }
+            e = next;
+        }
+    }
+
+    // ---------------------------
+    // Entry
+    // ---------------------------
+
+    private static final class Entry implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long rounds;  // worker thread only
+        private Entry next;   // worker thread only
+        private volatile boolean cancelled;
+        private volatile boolean fired;
+
+        Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (cancelled || fired) return false;
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void fire() {
+            fired = true;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Timing wheel task failed", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.dispatch.RenderCoalescer;
+import com.darkmatterservers.dispatch.SessionMailbox;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A running chain for one user: the chain definition plus its mutable context.
+ * <p>
+ * Timestamps use {@link System#nanoTime()} so they are only meaningful relative
+ * to each other within the same JVM; {@link #createdMillis()} is the wall-clock creation
+ * time that persistent stores write out and restore with.
+ */
+@SuppressWarnings("unused")
+public final class Session {
+
+    private final PagedChain chain;
+    private final ComponentContext ctx;
+    private final long createdNanos;
+    private final long createdMillis;
+    private volatile long lastAccessNanos;
+
+    // Serializes interactions for this session; created on first dispatch
+    private volatile SessionMailbox mailbox;
+
+    // Debounce state for re-renders during click bursts
+    private final RenderCoalescer.Burst renderBurst = new RenderCoalescer.Burst();
+
+    // Fingerprint of the content last sent to the chain message (0 = unknown)
+    private volatile long renderedFingerprint;
+
+    // Pending expiry check on the store's timing wheel (guarded by the owning store)
+    HashedTimingWheel.Timeout expiry;
+
+    public Session(PagedChain chain, ComponentContext ctx) {
+        this(chain, ctx, System.currentTimeMillis());
+    }
+
+    /**
+     * A session created at the given wall-clock time, e.g. one restored from disk, so that
+     * absolute TTLs keep counting from its original creation.
+     */
+    public Session(PagedChain chain, ComponentContext ctx, long createdMillis) {
+        this.chain = Objects.requireNonNull(chain, "chain");
+        this.ctx = Objects.requireNonNull(ctx, "ctx");
+        long now = System.nanoTime();
+        long ageMillis = Math.max(0L, System.currentTimeMillis() - createdMillis);
+        this.createdMillis = createdMillis;
+        this.createdNanos = now - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+        this.lastAccessNanos = now;
+    }
+
+    public PagedChain chain() {
+        return chain;
+    }
+
+    public ComponentContext ctx() {
+        return ctx;
+    }
+
+    /** Returns this session's mailbox, creating it with the runtime's settings on first use. */
+    public SessionMailbox mailbox(Supplier<SessionMailbox> factory) {
+        SessionMailbox m = mailbox;
+        if (m != null) return m;
+        synchronized (this) {
+            if (mailbox == null) mailbox = factory.get();
+            return mailbox;
+        }
+    }
+
+    /** Render debounce state used by the runtime's {@link RenderCoalescer}. */
+    public RenderCoalescer.Burst renderBurst() {
+        return renderBurst;
+    }
+
+    /**
+     * Fingerprint of what the chain message currently shows, as last sent by the runtime
+     * (see PageRenderer.Rendered#fingerprint()); 0 when unknown.
+     */
+    public long renderedFingerprint() {
+        return renderedFingerprint;
+    }
+
+    public void renderedFingerprint(long fingerprint) {
+        this.renderedFingerprint = fingerprint;
+    }
+
+    /** When this session was created (System.nanoTime()). */
+    public long createdNanos() {
+        return createdNanos;
+    }
+
+    /** When this session was created (epoch millis). */
+    public long createdMillis() {
+        return createdMillis;
+    }
+
+    /** When this session was last read from its store (System.nanoTime()). */
+    public long lastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /** Records an access; idle expiry is measured from the most recent touch. */
+    public void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "Session[chain='%s', userId='%s']".formatted(chain.chainId(), ctx.userId());
+    }
+}
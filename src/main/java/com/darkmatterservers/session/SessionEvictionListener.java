@@ -0,0 +1,15 @@
+package com.darkmatterservers.session;
+
+/**
+ * Callback fired after a session has been evicted from its store.
+ * <p>
+ * The session is already gone from the store when this runs, so it is safe to
+ * edit or delete the stale chain message using the ids in its context
+ * (see {@link com.darkmatterservers.chain.PagedChain.Keys}).
+ * Listeners run on the reaper thread or on the thread that triggered a size
+ * eviction; keep them short and hand off anything slow.
+ */
+@FunctionalInterface
+public interface SessionEvictionListener {
+    void onEviction(String key, Session session, EvictionCause cause);
+}
@@ -0,0 +1,134 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.context.ContextKey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes over a {@link SessionStore}:
+ * - messageId -> session key, so a click finds its session in O(1) whatever the scope
+ * - userId -> that user's session keys (oldest first), to cap concurrent sessions per user
+ * <p>
+ * Register it as an eviction listener of the store so TTL/size evictions clean up after
+ * themselves; explicit removals are untracked by the runtime. Index entries can still go
+ * stale (e.g. a USER session replaced by a newer chain), so callers verify that the session
+ * found actually owns the clicked message.
+ */
+@SuppressWarnings("unused")
+public final class SessionIndex implements SessionEvictionListener {
+
+    private volatile int maxPerUser;
+    private final Map<String, String> byMessage = new ConcurrentHashMap<>();
+    private final Map<String, ArrayDeque<String>> byUser = new ConcurrentHashMap<>();
+
+    public SessionIndex(int maxPerUser) {
+        if (maxPerUser <= 0) throw new IllegalArgumentException("maxPerUser must be > 0");
+        this.maxPerUser = maxPerUser;
+    }
+
+    public int maxPerUser() {
+        return maxPerUser;
+    }
+
+    /** Changes the cap; applies from the next {@link #track(String, String)} of each user. */
+    public void maxPerUser(int maxPerUser) {
+        if (maxPerUser <= 0) throw new IllegalArgumentException("maxPerUser must be > 0");
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * Records a session key for the user (moving it to newest if already known).
+     * Returns the user's oldest keys beyond the cap; they are no longer tracked and the
+     * caller should remove them from the store.
+     */
+    public List<String> track(String userId, String key) {
+        List<String> over = new ArrayList<>(0);
+        byUser.compute(userId, (u, keys) -> {
+            if (keys == null) keys = new ArrayDeque<>(2);
+            keys.remove(key);
+            keys.addLast(key);
+            int cap = maxPerUser;
+            while (keys.size() > cap) over.add(keys.pollFirst());
+            return keys;
+        });
+        return over;
+    }
+
+    /**
+     * Renames a tracked key (MESSAGE sessions get their final key once the message exists).
+     * Message bindings are not rewritten; bind the message after re-keying.
+     */
+    public void rekey(String userId, String from, String to) {
+        byUser.computeIfPresent(userId, (u, keys) -> {
+            if (keys.remove(from)) keys.addLast(to);
+            return keys;
+        });
+    }
+
+    public void bindMessage(String messageId, String key) {
+        if (messageId != null) byMessage.put(messageId, key);
+    }
+
+    /** Session key last bound to the message, or null. */
+    public String keyForMessage(String messageId) {
+        return messageId != null ? byMessage.get(messageId) : null;
+    }
+
+    /** Drops a binding, but only if it still points at the key. */
+    public void unbindMessage(String messageId, String key) {
+        if (messageId != null) byMessage.remove(messageId, key);
+    }
+
+    /** Forgets a session that left the store. */
+    public void untrack(String key, Session session) {
+        Objects.requireNonNull(key, "key");
+        String userId = session.ctx().userId();
+        if (userId != null) {
+            byUser.computeIfPresent(userId, (u, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+        unbindMessage(session.ctx().get(ContextKey.MESSAGE_ID), key);
+    }
+
+    /** Number of sessions tracked for the user. */
+    public int sessionsOf(String userId) {
+        int[] n = {0};
+        byUser.computeIfPresent(userId, (u, keys) -> { // deques are only touched under the map's bin lock
+            n[0] = keys.size();
+            return keys;
+        });
+        return n[0];
+    }
+
+    /** Snapshot of the users with tracked sessions. */
+    public List<String> users() {
+        return List.copyOf(byUser.keySet());
+    }
+
+    /** Snapshot of the user's session keys, oldest first. */
+    public List<String> keysOf(String userId) {
+        List<String> out = new ArrayList<>(0);
+        byUser.computeIfPresent(userId, (u, keys) -> {
+            out.addAll(keys);
+            return keys;
+        });
+        return out;
+    }
+
+    public void clear() {
+        byMessage.clear();
+        byUser.clear();
+    }
+
+    @Override
+    public void onEviction(String key, Session session, EvictionCause cause) {
+        untrack(key, session);
+    }
+}
@@ -0,0 +1,80 @@
+package com.darkmatterservers.session;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store key of a chain session, derived from its {@link SessionScope}.
+ * <p>
+ * {@link #value()} is the string the {@link SessionStore} sees. USER keys are the bare
+ * userId, so stores written before scoping existed keep working. MESSAGE sessions start
+ * under a provisional key and are re-keyed to {@code "m:<messageId>"} once their message
+ * exists, which keeps every scope derivable from a click event alone (see
+ * {@link #candidates(String, String, String, String)}).
+ */
+@SuppressWarnings("unused")
+public record SessionKey(SessionScope scope, String userId, String value) {
+
+    private static final AtomicLong PROVISIONAL = new AtomicLong();
+
+    public SessionKey {
+        Objects.requireNonNull(scope, "scope");
+        Objects.requireNonNull(userId, "userId");
+        Objects.requireNonNull(value, "value");
+    }
+
+    public static SessionKey user(String userId) {
+        return new SessionKey(SessionScope.USER, userId, userId);
+    }
+
+    public static SessionKey userChannel(String userId, String channelId) {
+        return new SessionKey(SessionScope.USER_CHANNEL, userId, "uc:" + userId + ':' + channelId);
+    }
+
+    /** guildId may be null for DMs. */
+    public static SessionKey guildUser(String guildId, String userId) {
+        return new SessionKey(SessionScope.GUILD_USER, userId, "gu:" + (guildId != null ? guildId : "dm") + ':' + userId);
+    }
+
+    public static SessionKey message(String userId, String messageId) {
+        return new SessionKey(SessionScope.MESSAGE, userId, "m:" + messageId);
+    }
+
+    /** A unique placeholder for a MESSAGE session whose message has not been sent yet. */
+    public static SessionKey pendingMessage(String userId) {
+        return new SessionKey(SessionScope.MESSAGE, userId, "m:pending:" + PROVISIONAL.incrementAndGet());
+    }
+
+    /** Key for a new session of the given scope. */
+    public static SessionKey of(SessionScope scope, String userId, String channelId, String guildId) {
+        return switch (scope) {
+            case USER -> user(userId);
+            case USER_CHANNEL -> userChannel(userId, channelId);
+            case GUILD_USER -> guildUser(guildId, userId);
+            case MESSAGE -> pendingMessage(userId);
+        };
+    }
+
+    /** Scope of a store key built by this class ({@link #value()}); bare userIds are USER. */
+    public static SessionScope scopeOf(String value) {
+        if (value.startsWith("m:")) return SessionScope.MESSAGE;
+        if (value.startsWith("uc:")) return SessionScope.USER_CHANNEL;
+        if (value.startsWith("gu:")) return SessionScope.GUILD_USER;
+        return SessionScope.USER;
+    }
+
+    /** Every key a click on this message could belong to, most specific first. */
+    public static SessionKey[] candidates(String userId, String messageId, String channelId, String guildId) {
+        return new SessionKey[] {
+                message(userId, messageId),
+                userChannel(userId, channelId),
+                guildUser(guildId, userId),
+                user(userId)
+        };
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
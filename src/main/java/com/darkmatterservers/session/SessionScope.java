@@ -0,0 +1,22 @@
+package com.darkmatterservers.session;
+
+/**
+ * What a chain session is keyed by, i.e. which running chain a new one replaces, and who
+ * may click it: only the user a session was started for drives it, except MESSAGE
+ * sessions, which anyone who can see the message may use (see {@link #sharedWithOthers()}).
+ */
+public enum SessionScope {
+    /** One chain per user; starting another replaces it (the classic behaviour). */
+    USER,
+    /** One chain per user and channel. */
+    USER_CHANNEL,
+    /** One chain per user and guild (DMs count as one pseudo-guild per user). */
+    GUILD_USER,
+    /** Every chain message is its own session; nothing is replaced (polls, parallel wizards). Shared. */
+    MESSAGE;
+
+    /** True if users other than the one the session was started for may click it. */
+    public boolean sharedWithOthers() {
+        return this == MESSAGE;
+    }
+}
@@ -0,0 +1,42 @@
+package com.darkmatterservers.session;
+
+/**
+ * Storage SPI for running chain sessions, keyed by an opaque session key
+ * (see {@link SessionKey}; the bare userId for USER-scoped chains).
+ * <p>
+ * Built-in implementations:
+ * - {@link ExpiringSessionStore}: in-memory, bounded, with idle/absolute TTLs
+ * - {@link FileSessionStore}: persists sessions to a memory-mapped log so they survive restarts
+ * <p>
+ * The runtime calls {@link #update(String, Session)} after every interaction that may
+ * have changed a session's context; in-memory stores can ignore it.
+ * Implementations must be safe for concurrent use.
+ */
+@SuppressWarnings("unused")
+public interface SessionStore extends AutoCloseable {
+
+    /** Returns the live session for the key, or null if there is none. */
+    Session get(String key);
+
+    /** Stores a session, replacing any previous one for the key. */
+    void put(String key, Session session);
+
+    /** Removes and returns the session for the key (no eviction callback). */
+    Session remove(String key);
+
+    /** Signals that the session's context changed; persistent stores write it out. */
+    default void update(String key, Session session) {}
+
+    /** Current number of sessions. */
+    int size();
+
+    /** Drops every session without firing eviction callbacks. */
+    void clear();
+
+    /** Adds a listener for sessions the store drops on its own (TTL, size). */
+    void addEvictionListener(SessionEvictionListener listener);
+
+    /** Releases resources; sessions that the store persists remain on disk. */
+    @Override
+    void close();
+}
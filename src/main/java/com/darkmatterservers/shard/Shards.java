@@ -0,0 +1,94 @@
+package com.darkmatterservers.shard;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The JDA connections EclipseBytes sends through: one for a plain bot, one per shard for
+ * a bot run by a {@link ShardManager}.
+ * <p>
+ * Shards are looked up on every call and never cached, so a shard that the manager
+ * restarts (a new JDA instance under the same shard id) is picked up by the next send.
+ * Sessions hold no JDA references and survive restarts as they are. Clicks need no
+ * routing: JDA delivers them on the shard of their guild, and responses go out through
+ * the event itself.
+ * <p>
+ * Discord serves DMs on shard 0, so DM channels are opened there; guild traffic goes to
+ * {@code (guildId >> 22) % total}.
+ */
+public interface Shards {
+
+    /** Number of shards (1 when not sharded). */
+    int total();
+
+    /** The current connection of a shard, or null if it has none right now. */
+    JDA shard(int shardId);
+
+    /** A guild or DM channel by id, from the caches of all shards; null if none knows it. */
+    MessageChannel channel(String channelId);
+
+    /** The shard serving a guild. */
+    default JDA forGuild(long guildId) {
+        return shard(shardId(guildId, total()));
+    }
+
+    /** The shard that opens and serves DM channels. */
+    default JDA forDms() {
+        return shard(0);
+    }
+
+    /** Discord's shard formula. */
+    static int shardId(long guildId, int total) {
+        return (int) ((guildId >>> 22) % total);
+    }
+
+    /** A single connection, read from the reference on every call so it may be swapped later. */
+    static Shards single(AtomicReference<JDA> jda) {
+        Objects.requireNonNull(jda, "jda");
+        return new Shards() {
+            @Override
+            public int total() {
+                return 1;
+            }
+
+            @Override
+            public JDA shard(int shardId) {
+                return jda.get();
+            }
+
+            @Override
+            public MessageChannel channel(String channelId) {
+                JDA j = jda.get();
+                if (j == null) return null;
+                MessageChannel channel = j.getChannelById(MessageChannel.class, channelId);
+                return channel != null ? channel : j.getPrivateChannelById(channelId);
+            }
+        };
+    }
+
+    /** Every shard of the manager. */
+    static Shards of(ShardManager manager) {
+        Objects.requireNonNull(manager, "manager");
+        return new Shards() {
+            @Override
+            public int total() {
+                return manager.getShardsTotal();
+            }
+
+            @Override
+            public JDA shard(int shardId) {
+                return manager.getShardById(shardId);
+            }
+
+            @Override
+            public MessageChannel channel(String channelId) {
+                MessageChannel channel = manager.getChannelById(MessageChannel.class, channelId);
+                return channel != null ? channel : manager.getPrivateChannelById(channelId);
+            }
+        };
+    }
+}
@@ -0,0 +1,226 @@
+package com.darkmatterservers.stateless;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Packs chain state into Discord component custom IDs and verifies it on the way back.
+ * <p>
+ * Layout: {@code "~"} + base64url(payload + mac), at most 100 characters, where payload is
+ * <pre>
+ *   version(1) | issuedAt(varint) | len(1) chainId | pageIndex(varint) | len(1) componentId
+ *   | presence bitmask(1) | per present value: len(1) value
+ * </pre>
+ * issuedAt counts seconds since 2024-01-01T00:00:00Z. Values are positional: value i belongs
+ * to the chain's i-th state key (at most 8). Strings are UTF-8 with a one-byte length.
+ * mac is the first 8 bytes of HMAC-SHA256(secret, payload + userId), so a client cannot
+ * forge page jumps or selections.
+ * <p>
+ * IDs are bound to the user they were rendered for: the user ID is signed but not carried,
+ * so another user's click (or a copied ID) fails verification. They expire {@code ttl} after
+ * they were issued; every render issues fresh ones, so only messages left alone that long
+ * stop answering.
+ * <p>
+ * Nothing here is encrypted: state is visible to anyone who inspects the message.
+ */
+@SuppressWarnings("unused")
+public final class StatelessCodec {
+
+    /** Custom IDs starting with this are stateless; plain component IDs never should. */
+    public static final String PREFIX = "~";
+
+    /** Discord's custom_id limit. */
+    public static final int MAX_ID_LENGTH = 100;
+
+    /** Most state keys a chain may carry (one presence bit each). */
+    public static final int MAX_VALUES = 8;
+
+    /** How long an ID is honoured after it was issued unless configured otherwise. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    private static final byte VERSION = 2;
+    private static final long EPOCH_SECONDS = 1704067200L; // 2024-01-01T00:00:00Z
+    private static final int MAC_BYTES = 8;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final long ttlSeconds;
+
+    /**
+     * Decoded state of one clicked component.
+     *
+     * @param values positional values for the chain's state keys (null = absent)
+     */
+    public record State(String chainId, int pageIndex, String componentId, List<String> values) {}
+
+    public StatelessCodec(byte[] secret) {
+        this(secret, DEFAULT_TTL);
+    }
+
+    public StatelessCodec(byte[] secret, Duration ttl) {
+        Objects.requireNonNull(secret, "secret");
+        if (secret.length < 16) throw new IllegalArgumentException("secret must be at least 16 bytes");
+        if (ttl == null || ttl.getSeconds() <= 0) throw new IllegalArgumentException("ttl must be at least one second");
+        this.ttlSeconds = ttl.getSeconds();
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+            }
+        });
+    }
+
+    /** True if the custom ID was produced by a StatelessCodec (signature not checked). */
+    public static boolean isStateless(String customId) {
+        return customId != null && customId.startsWith(PREFIX);
+    }
+
+    public Duration ttl() {
+        return Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Encodes the state into a custom ID that only verifies for {@code userId}, issued now.
+     * Throws IllegalStateException if it does not fit into {@link #MAX_ID_LENGTH} characters.
+     */
+    public String encode(State state, String userId) {
+        return encode(state, userId, System.currentTimeMillis());
+    }
+
+    /** Decodes and verifies a custom ID clicked by {@code userId}; null if forged, expired, someone else's or malformed. */
+    public State decode(String customId, String userId) {
+        return decode(customId, userId, System.currentTimeMillis());
+    }
+
+    // -------------------- internals --------------------
+
+    String encode(State state, String userId, long nowMillis) {
+        Objects.requireNonNull(userId, "userId");
+        List<String> values = state.values();
+        if (values.size() > MAX_VALUES) throw new IllegalArgumentException("At most " + MAX_VALUES + " state values");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        writeVarint(out, (int) (nowMillis / 1000 - EPOCH_SECONDS));
+        writeString(out, state.chainId());
+        writeVarint(out, state.pageIndex());
+        writeString(out, state.componentId());
+        int mask = 0;
+        for (int i = 0; i < values.size(); i++) if (values.get(i) != null) mask |= 1 << i;
+        out.write(mask);
+        for (String v : values) if (v != null) writeString(out, v);
+
+        byte[] payload = out.toByteArray();
+        byte[] mac = mac(payload, payload.length, userId);
+        byte[] signed = Arrays.copyOf(payload, payload.length + MAC_BYTES);
+        System.arraycopy(mac, 0, signed, payload.length, MAC_BYTES);
+
+        String id = PREFIX + B64.encodeToString(signed);
+        if (id.length() > MAX_ID_LENGTH) {
+            throw new IllegalStateException("Stateless state for '" + state.componentId() + "' needs "
+                    + id.length() + " chars (max " + MAX_ID_LENGTH + "); carry fewer or shorter values");
+        }
+        return id;
+    }
+
+    State decode(String customId, String userId, long nowMillis) {
+        if (!isStateless(customId) || customId.length() > MAX_ID_LENGTH || userId == null) return null;
+        byte[] signed;
+        try {
+            signed = B64D.decode(customId.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (signed.length <= MAC_BYTES + 1) return null;
+
+        int payloadLen = signed.length - MAC_BYTES;
+        byte[] expected = Arrays.copyOf(mac(signed, payloadLen, userId), MAC_BYTES);
+        byte[] actual = Arrays.copyOfRange(signed, payloadLen, signed.length);
+        if (!MessageDigest.isEqual(expected, actual)) return null;
+
+        try {
+            int[] pos = {0};
+            if (signed[pos[0]++] != VERSION) return null;
+            long issuedAt = EPOCH_SECONDS + readVarint(signed, pos, payloadLen);
+            if (nowMillis / 1000 - issuedAt > ttlSeconds) return null;
+            String chainId = readString(signed, pos, payloadLen);
+            int pageIndex = readVarint(signed, pos, payloadLen);
+            String componentId = readString(signed, pos, payloadLen);
+            int mask = signed[pos[0]++] & 0xFF;
+
+            List<String> values;
+            if (mask == 0) {
+                values = List.of();
+            } else {
+                int n = 32 - Integer.numberOfLeadingZeros(mask);
+                values = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) values.add((mask & (1 << i)) != 0 ? readString(signed, pos, payloadLen) : null);
+                values = Collections.unmodifiableList(values);
+            }
+            if (pos[0] != payloadLen) return null;
+            return new State(chainId, pageIndex, componentId, values);
+        } catch (IndexOutOfBoundsException e) {
+            return null; // signed but truncated: only possible with a reused secret and another layout
+        }
+    }
+
+    private byte[] mac(byte[] payload, int length, String userId) {
+        Mac mac = macs.get();
+        mac.update(payload, 0, length);
+        return mac.doFinal(userId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 255) throw new IllegalStateException("State string too long: " + s);
+        out.write(b.length);
+        out.write(b, 0, b.length);
+    }
+
+    private static String readString(byte[] in, int[] pos, int limit) {
+        int len = in[pos[0]++] & 0xFF;
+        if (pos[0] + len > limit) throw new IndexOutOfBoundsException();
+        String s = new String(in, pos[0], len, StandardCharsets.UTF_8);
+        pos[0] += len;
+        return s;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        if (v < 0) throw new IllegalArgumentException("negative varint");
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarint(byte[] in, int[] pos, int limit) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (pos[0] >= limit) throw new IndexOutOfBoundsException();
+            int b = in[pos[0]++] & 0xFF;
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+}
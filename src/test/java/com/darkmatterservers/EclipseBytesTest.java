@@ -0,0 +1,220 @@
+package com.darkmatterservers;
+
+import com.darkmatterservers.builder.Buttons;
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.session.ExpiringSessionStore;
+import com.darkmatterservers.session.SessionScope;
+import com.darkmatterservers.testkit.FakeDiscord;
+import com.darkmatterservers.testkit.RestRecorder.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EclipseBytesTest {
+
+    private static final String USER = "7";
+    private static final String CHANNEL = "42";
+
+    private final FakeDiscord discord = new FakeDiscord();
+    private final EclipseBytes bytes = new EclipseBytes(new AtomicReference<>(discord.jda()), ExpiringSessionStore.builder().build());
+
+    @AfterEach
+    void shutdown() {
+        bytes.shutdown();
+    }
+
+    @Test
+    void clicksEditTheChainMessageInPlace() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("edit"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        for (int i = 0; i < 3; i++) bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 2 && discord.rest().count(Kind.ACK) == 1);
+
+        // page 0 -> 1 -> 2 are edits of the clicked message; "next" on the last page changes nothing
+        assertEquals(1, discord.rest().count(Kind.SEND));
+        assertEquals(message, discord.lastMessageId(CHANNEL));
+    }
+
+    @Test
+    void finishingTheChainEditsTheMessageToo() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("done"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_DONE));
+        await(() -> discord.rest().count(Kind.EDIT) == 1);
+
+        // The session is gone: a later click is only acked
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.ACK) == 1);
+        assertEquals(Map.of(Kind.SEND, 1L, Kind.EDIT, 1L, Kind.ACK, 1L, Kind.HOOK_EDIT, 0L, Kind.CHANNEL_EDIT, 0L),
+                discord.rest().snapshot());
+    }
+
+    @Test
+    void onlyTheUserAChainWasStartedForDrivesIt() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("owner"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        bytes.handleButtonInteraction(discord.click("8", CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.ACK) == 1);
+        assertEquals(0, discord.rest().count(Kind.EDIT));
+
+        // The stranger's click did not move the chain: the owner's click still goes to page 1
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_BACK));
+        await(() -> discord.rest().count(Kind.ACK) == 2);
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 1);
+    }
+
+    @Test
+    void messageScopedChainsAreSharedWithEveryone() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("poll"), SessionScope.MESSAGE);
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        bytes.handleButtonInteraction(discord.click("8", CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 1);
+        assertEquals(0, discord.rest().count(Kind.ACK));
+    }
+
+    @Test
+    void userChannelScopeKeepsOneChainPerChannel() throws InterruptedException {
+        bytes.configureSessions(SessionScope.USER_CHANNEL, 25);
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("first"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String first = discord.lastMessageId(CHANNEL);
+        bytes.startChannelPagedChain(USER, discord.channel("43"), chain("second"));
+        await(() -> discord.rest().count(Kind.SEND) == 2);
+        String second = discord.lastMessageId("43");
+
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, first, Buttons.ID_NEXT));
+        bytes.handleButtonInteraction(discord.click(USER, "43", second, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 2);
+        assertEquals(0, discord.rest().count(Kind.ACK));
+    }
+
+    @Test
+    void userScopeReplacesTheEarlierChain() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("first"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String first = discord.lastMessageId(CHANNEL);
+        bytes.startChannelPagedChain(USER, discord.channel("43"), chain("second"));
+        await(() -> discord.rest().count(Kind.SEND) == 2);
+
+        // The first message no longer has a session behind it
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, first, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.ACK) == 1);
+        assertEquals(0, discord.rest().count(Kind.EDIT));
+    }
+
+    @Test
+    void clicksThatChangeNothingVisibleAreOnlyAcked() throws InterruptedException {
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("same"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        // "back" on page 0 renders the page the message already shows
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_BACK));
+        await(() -> discord.rest().count(Kind.ACK) == 1);
+        assertEquals(0, discord.rest().count(Kind.EDIT));
+
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 1);
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_BACK));
+        await(() -> discord.rest().count(Kind.EDIT) == 2);
+        assertEquals(1, discord.rest().count(Kind.ACK));
+    }
+
+    @Test
+    void clickBurstRendersTheFirstClickAndTheFinalState() throws InterruptedException {
+        bytes.configureRenderCoalescing(200);
+        bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain("burst"));
+        await(() -> discord.rest().count(Kind.SEND) == 1);
+        String message = discord.lastMessageId(CHANNEL);
+
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, Buttons.ID_NEXT));
+        await(() -> discord.rest().count(Kind.EDIT) == 1 && discord.rest().count(Kind.ACK) == 1);
+        assertEquals(0, discord.rest().count(Kind.HOOK_EDIT));
+
+        // Page 2, rendered once the burst settled
+        await(() -> discord.rest().count(Kind.HOOK_EDIT) == 1);
+        Thread.sleep(300);
+        assertEquals(Map.of(Kind.SEND, 1L, Kind.EDIT, 1L, Kind.ACK, 1L, Kind.HOOK_EDIT, 1L, Kind.CHANNEL_EDIT, 0L),
+                discord.rest().snapshot());
+    }
+
+    @Test
+    void timedOutAsyncHandlerHandsTheMailboxBackOffTheTimerThread() throws InterruptedException {
+        ExecutorService handlers = Executors.newCachedThreadPool(r -> new Thread(r, "test-handler"));
+        try {
+            bytes.configureAsyncHandlers(handlers, Duration.ofSeconds(10), new Page("Slow", "try again"));
+            AtomicReference<String> probe = new AtomicReference<>();
+            PagedChain chain = new PagedChain.Builder().chainId("async")
+                    .addPage(new Page("Page", "body").withButton(0, Buttons.next()))
+                    .onAsync("slow", Duration.ofMillis(50), ctx -> new CompletableFuture<>())
+                    .on("probe", ctx -> probe.set(Thread.currentThread().getName()))
+                    .build();
+            bytes.startChannelPagedChain(USER, discord.channel(CHANNEL), chain);
+            await(() -> discord.rest().count(Kind.SEND) == 1);
+            String message = discord.lastMessageId(CHANNEL);
+
+            bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, "slow"));
+            bytes.handleButtonInteraction(discord.click(USER, CHANNEL, message, "probe"));
+            await(() -> probe.get() != null && discord.rest().count(Kind.HOOK_EDIT) == 1);
+
+            // The fallback was rendered and the queued click ran, but not on the timing wheel
+            assertEquals("test-handler", probe.get());
+        } finally {
+            handlers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shutdownLeavesACallerSuppliedHandlerExecutorRunning() {
+        ExecutorService handlers = Executors.newSingleThreadExecutor();
+        try {
+            bytes.configureAsyncHandlers(handlers, Duration.ofSeconds(1), new Page("Slow", "try again"));
+            bytes.configureAsyncHandlers(handlers, Duration.ofSeconds(2), new Page("Slow", "try again"));
+            bytes.shutdown();
+            assertFalse(handlers.isShutdown());
+        } finally {
+            handlers.shutdownNow();
+        }
+    }
+
+    // -------------------- helpers --------------------
+
+    static PagedChain chain(String id) {
+        PagedChain.Builder b = new PagedChain.Builder().chainId(id);
+        for (int i = 0; i < 3; i++) {
+            b.addPage(new Page("Page " + i, "body " + i)
+                    .withButton(0, Buttons.back()).withButton(1, Buttons.next()).withButton(2, Buttons.done()));
+        }
+        return b.wireNavigation(Buttons.ID_BACK, Buttons.ID_NEXT, Buttons.ID_DONE).build();
+    }
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(2);
+        }
+    }
+}
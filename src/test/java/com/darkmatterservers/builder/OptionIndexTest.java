@@ -0,0 +1,143 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import net.dv8tion.jda.api.interactions.components.selections.SelectOption;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionIndexTest {
+
+    private static final List<String> FRUIT = List.of("Banana", "apple", "Pineapple", "Apricot", "grape", "Grapefruit");
+
+    @Test
+    void dropsNullsAndDuplicatesAndKeepsTheOrder() {
+        List<String> options = new ArrayList<>(List.of("b", "a", "b"));
+        options.add(null);
+        OptionIndex index = OptionIndex.of(options);
+        assertEquals(List.of("b", "a"), index);
+        assertThrows(IllegalArgumentException.class, () -> OptionIndex.of(List.of(Dropdowns.WINDOW_NEXT)));
+    }
+
+    @Test
+    void prefixMatchesComeFirstAlphabeticallyThenSubstringsInOriginalOrder() {
+        OptionIndex index = OptionIndex.of(FRUIT);
+        assertEquals(List.of("apple", "Pineapple"), names(index, index.search("PLE")));
+
+        OptionIndex grapes = OptionIndex.of(List.of("Sour grape", "grapevine seeds", "Grape", "grapefruit"));
+        assertEquals(List.of("Grape", "grapefruit", "grapevine seeds", "Sour grape"), names(grapes, grapes.search("grape")));
+        assertEquals(List.of("apple", "Pineapple"), names(index, index.search(" Apple ")));
+    }
+
+    @Test
+    void shortQueriesOnlyMatchPrefixes() {
+        OptionIndex index = OptionIndex.of(FRUIT);
+        assertEquals(List.of("apple", "Apricot"), names(index, index.search("ap")));
+        assertEquals(2, index.count("ap"));
+    }
+
+    @Test
+    void blankQueryMatchesEverything() {
+        OptionIndex index = OptionIndex.of(FRUIT);
+        assertNull(index.search(null));
+        assertNull(index.search("  "));
+        assertEquals(FRUIT.size(), index.count(""));
+        assertEquals(0, index.count("kiwi"));
+    }
+
+    @Test
+    void repeatedSearchesAreServedFromTheResultCache() {
+        OptionIndex index = OptionIndex.of(FRUIT);
+        assertSame(index.search("grape"), index.search("GRAPE "));
+    }
+
+    @Test
+    void windowsPageThroughTheMatchesAndClampStaleOffsets() {
+        OptionIndex index = OptionIndex.of(IntStream.range(0, 50).mapToObj(i -> "item " + i).toList());
+
+        OptionIndex.Window first = index.window(null, 0, 21);
+        assertEquals(21, first.options().size());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+
+        OptionIndex.Window last = index.window(null, 42, 21);
+        assertEquals(List.of("item 42", "item 43", "item 44", "item 45", "item 46", "item 47", "item 48", "item 49"), last.options());
+        assertTrue(last.hasPrevious());
+        assertFalse(last.hasNext());
+
+        // An offset from before a narrower search still lands on the last window
+        OptionIndex.Window clamped = index.window("item 4", 500, 21);
+        assertEquals(0, clamped.from());
+        assertEquals(11, clamped.total());
+        assertEquals(0, index.window("nothing", 21, 21).options().size());
+    }
+
+    @Test
+    void equalityIsByIdentity() {
+        OptionIndex a = OptionIndex.of(FRUIT);
+        assertNotEquals(a, OptionIndex.of(FRUIT));
+        assertEquals(a, a);
+    }
+
+    @Test
+    void windowControlsMoveTheOffsetAndSearchResetsIt() {
+        ComponentContext ctx = new ComponentContext("u");
+        assertTrue(Dropdowns.applyWindowControl(ctx, "pick", Dropdowns.WINDOW_NEXT));
+        assertEquals(Dropdowns.WINDOW_SIZE, ctx.getInt("pick.offset"));
+        assertTrue(Dropdowns.applyWindowControl(ctx, "pick", Dropdowns.WINDOW_PREVIOUS));
+        assertTrue(Dropdowns.applyWindowControl(ctx, "pick", Dropdowns.WINDOW_PREVIOUS));
+        assertEquals(0, ctx.getInt("pick.offset"));
+
+        Dropdowns.search(ctx, "pick", " item 4 ");
+        assertEquals("item 4", ctx.get("pick.query"));
+        assertTrue(Dropdowns.applyWindowControl(ctx, "pick", Dropdowns.WINDOW_CLEAR));
+        assertFalse(ctx.has("pick.query"));
+        assertFalse(Dropdowns.applyWindowControl(ctx, "pick", Dropdowns.WINDOW_SEARCH));
+        assertFalse(Dropdowns.applyWindowControl(ctx, "pick", "item 4"));
+    }
+
+    @Test
+    void rendersOneWindowWithItsNavigationEntries() {
+        OptionIndex index = OptionIndex.of(IntStream.range(0, 50).mapToObj(i -> "item " + i).toList());
+        PagedChain chain = new PagedChain.Builder().chainId("items")
+                .addPage(new Page("Items", "Pick one").withDropdown(Dropdowns.searchable("pick", "Item", index)))
+                .build();
+        ComponentContext ctx = new ComponentContext("u");
+
+        List<String> first = values(PageRenderer.render(chain, 0, ctx));
+        assertEquals(Dropdowns.WINDOW_SIZE + 2, first.size());
+        assertEquals("item 0", first.get(0));
+        assertEquals(List.of(Dropdowns.WINDOW_NEXT, Dropdowns.WINDOW_SEARCH), first.subList(first.size() - 2, first.size()));
+
+        Dropdowns.search(ctx, "pick", "item 4");
+        List<String> searched = values(PageRenderer.render(chain, 0, ctx));
+        assertEquals("item 4", searched.get(0));
+        assertEquals(List.of(Dropdowns.WINDOW_SEARCH, Dropdowns.WINDOW_CLEAR), searched.subList(searched.size() - 2, searched.size()));
+        assertTrue(searched.size() <= Dropdowns.MAX_OPTIONS);
+    }
+
+    // -------------------- helpers --------------------
+
+    private static List<String> names(OptionIndex index, int[] matches) {
+        return Arrays.stream(matches).mapToObj(index::get).toList();
+    }
+
+    private static List<String> values(PageRenderer.Rendered rendered) {
+        StringSelectMenu menu = (StringSelectMenu) rendered.rows().get(rendered.rows().size() - 1).getComponents().get(0);
+        return menu.getOptions().stream().map(SelectOption::getValue).toList();
+    }
+}
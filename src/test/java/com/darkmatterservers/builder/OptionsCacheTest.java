@@ -0,0 +1,119 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptionsCacheTest {
+
+    private final Map<String, CompletableFuture<List<String>>> loads = new ConcurrentHashMap<>();
+    private final AtomicInteger started = new AtomicInteger();
+
+    // Each load stays open until the test completes it
+    private final OptionsLoader loader = (dropdownId, scope) -> {
+        started.incrementAndGet();
+        CompletableFuture<List<String>> load = new CompletableFuture<>();
+        loads.put(scope, load);
+        return load;
+    };
+
+    @Test
+    void coldMissNeverBlocksAndReportsTheLoad() {
+        OptionsCache cache = OptionsCache.builder().loader(loader).build();
+        ComponentContext ctx = new ComponentContext("u1");
+
+        assertNull(cache.options("roles", ctx));
+        CompletionStage<?> loading = cache.loading("roles", ctx);
+        assertNotNull(loading);
+
+        loads.get("").complete(List.of("admin", "mod"));
+        assertTrue(loading.toCompletableFuture().isDone());
+        assertNull(cache.loading("roles", ctx));
+        assertEquals(List.of("admin", "mod"), cache.options("roles", ctx));
+    }
+
+    @Test
+    void everyScopeMemberSharesOneLoadAndOneList() {
+        OptionsCache cache = OptionsCache.builder().loader(loader).scope(OptionsCache.PER_GUILD).build();
+        ComponentContext a = guildMember("u1", "g1"), b = guildMember("u2", "g1"), other = guildMember("u3", "g2");
+        cache.options("roles", a);
+        cache.options("roles", b);
+        cache.options("roles", other);
+        assertEquals(2, started.get());
+
+        loads.get("g1").complete(List.of("admin"));
+        assertSame(cache.options("roles", a), cache.options("roles", b));
+        assertNull(cache.options("roles", other));
+    }
+
+    @Test
+    void staleEntriesAreServedWhileRefreshing() throws InterruptedException {
+        OptionsCache cache = OptionsCache.builder().loader(loader)
+                .ttl(Duration.ofMinutes(1)).refreshAfter(Duration.ofMillis(20)).build();
+        ComponentContext ctx = new ComponentContext("u1");
+        cache.options("roles", ctx);
+        loads.get("").complete(List.of("old"));
+        Thread.sleep(40);
+
+        assertEquals(List.of("old"), cache.options("roles", ctx)); // starts the refresh
+        assertEquals(2, started.get());
+        assertEquals(List.of("old"), cache.options("roles", ctx)); // joins it
+        assertEquals(2, started.get());
+
+        loads.get("").complete(List.of("new"));
+        assertEquals(List.of("new"), cache.options("roles", ctx));
+    }
+
+    @Test
+    void failedLoadsAreRetried() {
+        OptionsCache cache = OptionsCache.builder().loader(loader).build();
+        ComponentContext ctx = new ComponentContext("u1");
+        cache.options("roles", ctx);
+        loads.get("").completeExceptionally(new IllegalStateException("backend down"));
+
+        assertNull(cache.options("roles", ctx));
+        assertEquals(2, started.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidatedLoadsAreNotCached() {
+        OptionsCache cache = OptionsCache.builder().loader(loader).build();
+        ComponentContext ctx = new ComponentContext("u1");
+        cache.options("roles", ctx);
+        cache.invalidate();
+        loads.get("").complete(List.of("outdated"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void reservedValuesAreDropped() {
+        OptionsCache cache = OptionsCache.builder().loader(loader).build();
+        ComponentContext ctx = new ComponentContext("u1");
+        cache.options("roles", ctx);
+        loads.get("").complete(List.of("admin", Dropdowns.WINDOW_NEXT));
+
+        assertEquals(List.of("admin"), cache.options("roles", ctx));
+    }
+
+    private static ComponentContext guildMember(String userId, String guildId) {
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.put(ContextKey.GUILD_ID, guildId);
+        return ctx;
+    }
+}
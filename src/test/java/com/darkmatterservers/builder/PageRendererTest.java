@@ -0,0 +1,80 @@
+package com.darkmatterservers.builder;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageRendererTest {
+
+    @Test
+    void equalContentHasEqualNonZeroFingerprints() {
+        long a = PageRenderer.render("Shop", 0, 2, page("Welcome", "Pick an item")).fingerprint();
+        long b = PageRenderer.render("Shop", 0, 2, page("Welcome", "Pick an item")).fingerprint();
+
+        assertNotEquals(0L, a);
+        assertEquals(a, b);
+    }
+
+    @Test
+    void anyVisibleChangeChangesTheFingerprint() {
+        long base = PageRenderer.render("Shop", 0, 2, page("Welcome", "Pick an item")).fingerprint();
+
+        assertNotEquals(base, PageRenderer.render("Shop", 1, 2, page("Welcome", "Pick an item")).fingerprint());
+        assertNotEquals(base, PageRenderer.render("Shop", 0, 3, page("Welcome", "Pick an item")).fingerprint());
+        assertNotEquals(base, PageRenderer.render("Shop!", 0, 2, page("Welcome", "Pick an item")).fingerprint());
+        assertNotEquals(base, PageRenderer.render("Shop", 0, 2, page("Welcome", "Pick an item.")).fingerprint());
+        assertNotEquals(base, PageRenderer.render("Shop", 0, 2,
+                page("Welcome", "Pick an item").withButton(1, Buttons.next())).fingerprint());
+    }
+
+    @Test
+    void textsWithCollidingHashCodesStillDiffer() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(PageRenderer.render("Shop", 0, 1, page("Aa", "x")).fingerprint(),
+                PageRenderer.render("Shop", 0, 1, page("BB", "x")).fingerprint());
+        // Field boundaries count: moving text between the lines is a change
+        assertNotEquals(PageRenderer.render("Shop", 0, 1, page("ab", "c")).fingerprint(),
+                PageRenderer.render("Shop", 0, 1, page("a", "bc")).fingerprint());
+    }
+
+    @Test
+    void dropdownSelectionAndOptionsFromTheContextCount() {
+        PagedChain chain = new PagedChain.Builder().chainId("colors")
+                .addPage(page("Colors", "Pick one").withDropdown(Page.ComponentRef.dropdown("color", "Color", List.of("red", "green"))))
+                .build();
+        ComponentContext ctx = new ComponentContext("u");
+        long plain = PageRenderer.render(chain, 0, ctx).fingerprint();
+        assertEquals(plain, PageRenderer.render(chain, 0, ctx).fingerprint());
+
+        ctx.put("color.selected", "green");
+        long selected = PageRenderer.render(chain, 0, ctx).fingerprint();
+        assertNotEquals(plain, selected);
+
+        ctx.put("color.options", List.of("red", "green", "blue"));
+        assertNotEquals(selected, PageRenderer.render(chain, 0, ctx).fingerprint());
+    }
+
+    @Test
+    void unknownFingerprintsNeverMatch() {
+        PageRenderer.Rendered unknown = new PageRenderer.Rendered(null, List.of());
+        assertFalse(unknown.sameAs(0L));
+
+        PageRenderer.Rendered known = PageRenderer.render("Shop", 0, 1, page("a", "b"));
+        assertTrue(known.sameAs(known.fingerprint()));
+        assertFalse(known.sameAs(0L));
+    }
+
+    // -------------------- helpers --------------------
+
+    private static Page page(String line1, String line2) {
+        return new Page(line1, line2).withButton(0, Buttons.back());
+    }
+}
@@ -0,0 +1,122 @@
+package com.darkmatterservers.chain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyPageSourceTest {
+
+    private static final Page LOADING = new Page("loading", "");
+    private static final Page ERROR = new Page("error", "");
+
+    // Holds loads until run() so the test decides when they finish
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final Executor manual = tasks::add;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Set<Integer> failing = new HashSet<>();
+
+    @Test
+    void missShowsTheLoadingPageUntilTheLoadCompletes() {
+        LazyPageSource source = source(0);
+
+        Page shown = source.page(2);
+        assertSame(LOADING, shown);
+        CompletionStage<?> loading = source.loading(2, shown);
+        assertNotNull(loading);
+        assertFalse(loading.toCompletableFuture().isDone());
+
+        runTasks();
+        assertTrue(loading.toCompletableFuture().isDone());
+        assertEquals("page 2", source.page(2).line1());
+        assertNull(source.loading(2, source.page(2)));
+    }
+
+    @Test
+    void hitServesTheCachedPageWithoutLoadingAgain() {
+        LazyPageSource source = source(0);
+        source.page(1);
+        source.page(1); // shares the load in flight
+        runTasks();
+        assertEquals(1, loads.get());
+
+        Page first = source.page(1);
+        assertSame(first, source.page(1));
+        assertEquals(1, loads.get());
+        assertEquals(1, source.cachedPages());
+    }
+
+    @Test
+    void failedLoadShowsTheErrorPageOnceThenRetries() {
+        LazyPageSource source = source(0);
+        failing.add(3);
+        source.page(3);
+        runTasks();
+
+        assertSame(ERROR, source.page(3));
+        failing.clear();
+        assertSame(LOADING, source.page(3));
+        runTasks();
+        assertEquals("page 3", source.page(3).line1());
+    }
+
+    @Test
+    void failedPrefetchIsNotShownToTheNextClick() {
+        LazyPageSource source = source(1);
+        failing.add(1);
+        source.page(0); // loads 0 and prefetches 0's neighbour 1
+        runTasks();
+        assertEquals(2, loads.get());
+
+        failing.clear();
+        assertSame(LOADING, source.page(1));
+        runTasks();
+        assertEquals("page 1", source.page(1).line1());
+    }
+
+    @Test
+    void rejectedPrefetchIsNotShownEither() {
+        AtomicInteger accepted = new AtomicInteger();
+        Executor oneOnly = r -> {
+            if (accepted.getAndIncrement() > 0) throw new RejectedExecutionException("busy");
+            tasks.add(r);
+        };
+        LazyPageSource source = LazyPageSource.builder().totalPages(5).loader(this::load).prefetch(1)
+                .executor(oneOnly).loadingPage(LOADING).errorPage((i, err) -> ERROR).build();
+        source.page(0); // page 0 is accepted, the prefetch of page 1 is rejected
+        runTasks();
+
+        assertSame(LOADING, source.page(1));
+    }
+
+    // -------------------- helpers --------------------
+
+    private LazyPageSource source(int prefetch) {
+        return LazyPageSource.builder().totalPages(5).loader(this::load).prefetch(prefetch).cacheSize(4)
+                .executor(manual).loadingPage(LOADING).errorPage((i, err) -> ERROR).build();
+    }
+
+    private Page load(int index) {
+        loads.incrementAndGet();
+        if (failing.contains(index)) throw new IllegalStateException("database down");
+        return new Page("page " + index, "");
+    }
+
+    private void runTasks() {
+        Runnable r;
+        while ((r = tasks.poll()) != null) r.run();
+    }
+}
@@ -0,0 +1,37 @@
+package com.darkmatterservers.chain;
+
+import com.darkmatterservers.builder.Dropdowns;
+import com.darkmatterservers.builder.OptionIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageTest {
+
+    @Test
+    void dropdownKeepsACopyOfItsOptions() {
+        List<String> options = new ArrayList<>(List.of("red", "green"));
+        Page.ComponentRef ref = Page.ComponentRef.dropdown("color", "Pick one", options);
+
+        options.add("blue");
+        assertEquals(List.of("red", "green"), ref.options());
+        assertThrows(UnsupportedOperationException.class, () -> ref.options().add("blue"));
+    }
+
+    @Test
+    void searchableDropdownKeepsItsSharedIndex() {
+        OptionIndex index = OptionIndex.of(List.of("red", "green"));
+        assertSame(index, Dropdowns.searchable("color", "Pick one", index).options());
+    }
+
+    @Test
+    void buttonsHaveNoOptions() {
+        assertNull(Page.ComponentRef.button("next", "Next").options());
+    }
+}
@@ -0,0 +1,93 @@
+package com.darkmatterservers.chain;
+
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import com.darkmatterservers.router.ComponentHandler;
+import com.darkmatterservers.router.InteractionRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedChainTest {
+
+    @AfterEach
+    void clearRouter() {
+        InteractionRouter.clear();
+    }
+
+    @Test
+    void chainsWiringTheSameIdKeepTheirOwnHandlers() {
+        ComponentHandler first = ctx -> ctx.put("by", "first");
+        ComponentHandler second = ctx -> ctx.put("by", "second");
+        PagedChain a = chain("a").on("pick", first).build();
+        PagedChain b = chain("b").on("pick", second).build();
+
+        assertSame(first, a.match("pick").handler());
+        assertSame(second, b.match("pick").handler());
+    }
+
+    @Test
+    void buildingAChainRegistersNothingGlobally() {
+        int before = InteractionRouter.count();
+        chain("a").on("pick", ctx -> {}).wireNavigation("back", "next", "done").build();
+
+        assertEquals(before, InteractionRouter.count());
+        assertFalse(InteractionRouter.isRegistered("pick"));
+    }
+
+    @Test
+    void chainHandlersWinAndTheGlobalRouterIsTheFallback() {
+        ComponentHandler local = ctx -> {};
+        ComponentHandler global = ctx -> {};
+        InteractionRouter.register("pick", global);
+        InteractionRouter.register("help", global);
+        PagedChain chain = chain("a").on("pick", local).build();
+
+        assertSame(local, chain.match("pick").handler());
+        assertSame(global, chain.match("help").handler());
+        assertNull(chain.match("unknown"));
+    }
+
+    @Test
+    void templatesCaptureParamsPerChain() {
+        PagedChain chain = chain("a").on("shop.buy:{itemId}", ctx -> {}).build();
+
+        assertNull(chain("b").build().match("shop.buy:sword"));
+        assertEquals(Map.of("itemId", "sword"), chain.match("shop.buy:sword").params());
+    }
+
+    @Test
+    void wireNavigationKeepsHandlersRegisteredFirst() {
+        ComponentContext ctx = new ComponentContext("u");
+        PagedChain chain = chain("a")
+                .on("done", c -> c.put("custom", true))
+                .wireNavigation("back", "next", "done")
+                .build();
+        ctx.putInt(ContextKey.TOTAL_PAGES, chain.totalPages());
+
+        chain.match("next").handler().handle(ctx);
+        assertEquals(1, PagedChain.getPageIndex(ctx));
+        chain.match("done").handler().handle(ctx);
+        assertEquals(true, ctx.get("custom"));
+        assertFalse(ctx.isComplete());
+
+        chain.match("back").handler().handle(ctx);
+        assertEquals(0, PagedChain.getPageIndex(ctx));
+        assertTrue(chain.routes().size() >= 3);
+    }
+
+    // -------------------- helpers --------------------
+
+    private static PagedChain.Builder chain(String id) {
+        return new PagedChain.Builder().chainId(id)
+                .addPage(new Page("One", "1"))
+                .addPage(new Page("Two", "2"));
+    }
+}
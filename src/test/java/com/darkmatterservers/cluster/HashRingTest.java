@@ -0,0 +1,78 @@
+package com.darkmatterservers.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+
+    private static final int KEYS = 50_000;
+
+    @Test
+    void emptyRingOwnsNothing() {
+        assertNull(HashRing.empty().owner("123"));
+        assertNull(HashRing.of(List.of(" ", "")).owner("123"));
+    }
+
+    @Test
+    void everyProcessAgreesOnOwnersWhateverTheMemberOrder() {
+        HashRing a = HashRing.of(List.of("node-1", "node-2", "node-3"));
+        HashRing b = HashRing.of(List.of("node-3", "node-1", "node-2", "node-1"));
+        assertEquals(a.members(), b.members());
+        for (int i = 0; i < KEYS; i++) assertEquals(a.owner(key(i)), b.owner(key(i)));
+    }
+
+    @Test
+    void spreadsKeysEvenly() {
+        HashRing ring = HashRing.of(List.of("a", "b", "c", "d"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) counts.merge(ring.owner(key(i)), 1, Integer::sum);
+
+        assertEquals(4, counts.size());
+        for (int n : counts.values()) assertTrue(n > KEYS * 0.15 && n < KEYS * 0.35, "skewed: " + counts);
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        HashRing before = HashRing.of(List.of("a", "b", "c", "d"));
+        HashRing after = before.with("e");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String was = before.owner(key(i)), now = after.owner(key(i));
+            if (!was.equals(now)) {
+                assertEquals("e", now);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS * 0.10 && moved < KEYS * 0.30, "moved " + moved);
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        HashRing before = HashRing.of(List.of("a", "b", "c", "d"));
+        HashRing after = before.without("b");
+        for (int i = 0; i < KEYS; i++) {
+            String was = before.owner(key(i));
+            if (!was.equals("b")) assertEquals(was, after.owner(key(i)));
+        }
+    }
+
+    @Test
+    void unchangedMembershipReturnsTheSameRing() {
+        HashRing ring = HashRing.of(List.of("a", "b"));
+        assertSame(ring, ring.with("a"));
+        assertSame(ring, ring.without("z"));
+    }
+
+    // Snowflake-like user IDs
+    private static String key(int i) {
+        return Long.toString(300_000_000_000_000_000L + i * 7_919L);
+    }
+}
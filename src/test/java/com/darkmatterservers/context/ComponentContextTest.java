@@ -0,0 +1,146 @@
+package com.darkmatterservers.context;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComponentContextTest {
+
+    @Test
+    void stringAndTypedViewsShareSlots() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.put("score", 3);
+        assertEquals(3, ctx.get(ContextKey.of("score", Integer.class)));
+        assertNull(ctx.get(ContextKey.of("score", String.class)));
+
+        ctx.putInt(ContextKey.PAGE_INDEX, 4);
+        assertEquals(4, ctx.get("pageIndex"));
+        ctx.put("totalPages", "7");
+        assertEquals(7, ctx.getInt(ContextKey.TOTAL_PAGES, -1));
+    }
+
+    @Test
+    void stringApiKeepsNonNumericValuesInIntSlots() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.putInt(ContextKey.PAGE_INDEX, 2);
+
+        ctx.put("pageIndex", "abc");
+        assertEquals("abc", ctx.get("pageIndex"));
+        assertTrue(ctx.has(ContextKey.PAGE_INDEX));
+        assertEquals(-1, ctx.getInt(ContextKey.PAGE_INDEX, -1));
+        assertNull(ctx.get(ContextKey.PAGE_INDEX));
+
+        Object marker = new Object();
+        ctx.put("totalPages", marker);
+        assertSame(marker, ctx.get("totalPages"));
+    }
+
+    @Test
+    void stringApiReturnsNumericStringsAsStoredAndTypedReadersParseThem() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.put("pageIndex", "3");
+
+        assertEquals("3", ctx.get("pageIndex"));
+        assertEquals("3", ctx.getString("pageIndex"));
+        assertEquals(3, ctx.getInt("pageIndex"));
+        assertEquals(3, ctx.getInt(ContextKey.PAGE_INDEX, -1));
+        assertEquals(3, ctx.get(ContextKey.PAGE_INDEX));
+
+        ctx.put("pageIndex", 5);
+        assertEquals(5, ctx.get("pageIndex"));
+        assertNull(ctx.getString("pageIndex"));
+    }
+
+    @Test
+    void stringApiStoresNullInIntSlotsInsteadOfClearingThem() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.putInt(ContextKey.PAGE_INDEX, 2);
+
+        ctx.put("pageIndex", null);
+        assertTrue(ctx.has("pageIndex"));
+        assertNull(ctx.get("pageIndex"));
+        assertNull(ctx.getOrDefault("pageIndex", "fallback"));
+        assertEquals(-1, ctx.getInt(ContextKey.PAGE_INDEX, -1));
+        assertTrue(ctx.all().containsKey("pageIndex"));
+
+        ctx.putIfAbsent("pageIndex", 4);
+        assertEquals(4, ctx.get("pageIndex"));
+
+        ctx.remove("pageIndex");
+        assertFalse(ctx.has("pageIndex"));
+    }
+
+    @Test
+    void typedApiOnlyAcceptsIntsInIntSlots() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.put(ContextKey.PAGE_INDEX, 2);
+
+        ContextKey<String> asString = ContextKey.of("pageIndex", String.class);
+        assertThrows(IllegalArgumentException.class, () -> ctx.put(asString, "abc"));
+        assertEquals(2, ctx.getInt(ContextKey.PAGE_INDEX, -1));
+
+        ctx.put(ContextKey.PAGE_INDEX, null);
+        assertFalse(ctx.has(ContextKey.PAGE_INDEX));
+        assertFalse(ctx.has("pageIndex"));
+    }
+
+    @Test
+    void typedIntWritesReplaceAValueStoredThroughTheStringApi() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.put("totalPages", "abc");
+
+        ctx.putInt(ContextKey.TOTAL_PAGES, 9);
+        assertEquals(9, ctx.get("totalPages"));
+        assertEquals(9, ctx.getInt(ContextKey.TOTAL_PAGES, -1));
+
+        ctx.put("totalPages", "x");
+        ctx.clear();
+        assertFalse(ctx.has("totalPages"));
+        assertNull(ctx.get("totalPages"));
+    }
+
+    @Test
+    void putIfAbsentReturnKeepsAStringStoredInAnIntSlot() {
+        ComponentContext ctx = new ComponentContext("u");
+        assertEquals("first", ctx.putIfAbsentReturn("pageIndex", "first"));
+        assertEquals("first", ctx.putIfAbsentReturn("pageIndex", "second"));
+        assertEquals("first", ctx.get("pageIndex"));
+    }
+
+    @Test
+    void codecRoundTripsValuesStoredInIntSlotsThroughTheStringApi() {
+        ComponentContext ctx = new ComponentContext("u");
+        ctx.put("pageIndex", "abc");
+        ctx.putInt(ContextKey.TOTAL_PAGES, 7);
+
+        ComponentContext copy = ContextCodec.decode(ContextCodec.encode(ctx));
+        assertEquals("abc", copy.get("pageIndex"));
+        assertEquals(7, copy.getInt(ContextKey.TOTAL_PAGES, -1));
+        assertEquals(ctx.all(), copy.all());
+    }
+
+    @Test
+    void namesBeyondTheInternCapAreStoredPerContext() {
+        for (int i = 0; i < ContextKey.MAX_INTERNED; i++) ContextKey.index("cap.filler." + i);
+
+        ContextKey<String> late = ContextKey.of("cap.late", String.class);
+        assertEquals(ContextKey.UNINTERNED, late.index());
+
+        ComponentContext a = new ComponentContext("a");
+        ComponentContext b = new ComponentContext("b");
+        a.put(late, "x");
+        assertEquals("x", a.get("cap.late"));
+        assertTrue(a.has("cap.late"));
+        assertEquals("x", a.all().get("cap.late"));
+        assertFalse(b.has(late));
+
+        a.remove("cap.late");
+        assertNull(a.get(late));
+        assertEquals(ContextKey.of("cap.late", String.class), late);
+    }
+}
@@ -0,0 +1,99 @@
+package com.darkmatterservers.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InteractionDedupeTest {
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Test
+    void acceptsAnInteractionOnce() {
+        InteractionDedupe dedupe = new InteractionDedupe(1024, Duration.ofMinutes(15));
+        long id = snowflake(0);
+
+        assertTrue(dedupe.firstSeen(id));
+        assertFalse(dedupe.firstSeen(id));
+        assertTrue(dedupe.firstSeen(snowflake(0)));
+    }
+
+    @Test
+    void rejectsInteractionsOlderThanTheWindow() {
+        InteractionDedupe dedupe = new InteractionDedupe(1024, Duration.ofSeconds(10));
+        assertFalse(dedupe.firstSeen(snowflake(11_000)));
+        assertTrue(dedupe.firstSeen(snowflake(9_000)));
+    }
+
+    @Test
+    void slotsOfExpiredIdsAreReused() throws InterruptedException {
+        InteractionDedupe dedupe = new InteractionDedupe(16, Duration.ofMillis(100));
+        for (int i = 0; i < 16; i++) assertTrue(dedupe.firstSeen(snowflake(50)));
+        Thread.sleep(100);
+
+        // Every slot holds an ID that has left the window, so every slot counts as free
+        List<Long> fresh = new ArrayList<>();
+        for (int i = 0; i < 16; i++) fresh.add(snowflake(0));
+        for (long id : fresh) assertTrue(dedupe.firstSeen(id));
+        for (long id : fresh) assertFalse(dedupe.firstSeen(id));
+    }
+
+    @Test
+    void overloadedTableOverwritesTheOldestId() {
+        InteractionDedupe dedupe = new InteractionDedupe(16, Duration.ofMinutes(15));
+        long oldest = snowflake(1_000);
+        assertTrue(dedupe.firstSeen(oldest));
+        for (int i = 0; i < 16; i++) assertTrue(dedupe.firstSeen(snowflake(0)));
+
+        assertTrue(dedupe.firstSeen(oldest)); // forgotten: best effort once the table is full
+    }
+
+    @Test
+    void concurrentRepeatsLetExactlyOneThrough() throws Exception {
+        InteractionDedupe dedupe = new InteractionDedupe(8192, Duration.ofMinutes(15));
+        long[] ids = new long[2_000];
+        for (int i = 0; i < ids.length; i++) ids[i] = snowflake(0);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                start.await();
+                for (long id : ids) if (dedupe.firstSeen(id)) accepted.incrementAndGet();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+
+        assertEquals(ids.length, accepted.get());
+    }
+
+    @Test
+    void disabledLetsEverythingThrough() {
+        long id = snowflake(0);
+        assertTrue(InteractionDedupe.DISABLED.firstSeen(id));
+        assertTrue(InteractionDedupe.DISABLED.firstSeen(id));
+    }
+
+    /** A unique snowflake created {@code ageMillis} ago. */
+    private long snowflake(long ageMillis) {
+        long millis = System.currentTimeMillis() - ageMillis - InteractionDedupe.DISCORD_EPOCH_MILLIS;
+        return millis << 22 | (sequence.incrementAndGet() & 0x3FFFFF);
+    }
+}
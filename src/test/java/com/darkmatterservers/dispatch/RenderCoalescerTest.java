@@ -0,0 +1,83 @@
+package com.darkmatterservers.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderCoalescerTest {
+
+    private final RenderCoalescer coalescer = new RenderCoalescer(Duration.ofMillis(100));
+    private final List<Long> trailing = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void disabledRendersEveryRequestRightAway() {
+        RenderCoalescer.Burst burst = new RenderCoalescer.Burst();
+        for (int i = 0; i < 3; i++) assertTrue(RenderCoalescer.DISABLED.request(burst, trailing::add));
+        assertFalse(RenderCoalescer.DISABLED.enabled());
+        assertTrue(trailing.isEmpty());
+    }
+
+    @Test
+    void burstRendersTheFirstRequestAndOnlyTheLastOneAfterIt() throws InterruptedException {
+        RenderCoalescer.Burst burst = new RenderCoalescer.Burst();
+        assertTrue(coalescer.request(burst, trailing::add));
+        assertFalse(coalescer.request(burst, trailing::add));
+        assertFalse(coalescer.request(burst, trailing::add));
+        assertFalse(coalescer.request(burst, trailing::add));
+
+        Thread.sleep(300);
+        assertEquals(List.of(4L), trailing);
+        assertTrue(burst.isCurrent(4L));
+    }
+
+    @Test
+    void requestAfterAQuietWindowRendersRightAwayAgain() throws InterruptedException {
+        RenderCoalescer.Burst burst = new RenderCoalescer.Burst();
+        assertTrue(coalescer.request(burst, trailing::add));
+        Thread.sleep(150);
+        assertTrue(coalescer.request(burst, trailing::add));
+        Thread.sleep(150);
+        assertTrue(trailing.isEmpty());
+    }
+
+    @Test
+    void cancelDropsThePendingTrailingRender() throws InterruptedException {
+        RenderCoalescer.Burst burst = new RenderCoalescer.Burst();
+        coalescer.request(burst, trailing::add);
+        assertFalse(coalescer.request(burst, trailing::add));
+        coalescer.cancel(burst);
+
+        Thread.sleep(300);
+        assertTrue(trailing.isEmpty());
+    }
+
+    @Test
+    void burstsOfDifferentSessionsAreIndependent() throws InterruptedException {
+        RenderCoalescer.Burst a = new RenderCoalescer.Burst();
+        RenderCoalescer.Burst b = new RenderCoalescer.Burst();
+        assertTrue(coalescer.request(a, trailing::add));
+        assertTrue(coalescer.request(b, trailing::add));
+        assertFalse(coalescer.request(a, trailing::add));
+
+        Thread.sleep(300);
+        assertEquals(List.of(2L), trailing);
+    }
+
+    @Test
+    void rejectsAnEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new RenderCoalescer(Duration.ZERO));
+    }
+}
@@ -0,0 +1,171 @@
+package com.darkmatterservers.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionMailboxTest {
+
+    // Holds drains until run() so tasks pile up in the queue
+    private final ArrayDeque<Runnable> drains = new ArrayDeque<>();
+    private final Executor manual = drains::add;
+
+    private final List<String> ran = new ArrayList<>();
+    private final List<String> dropped = new ArrayList<>();
+
+    @Test
+    void runsTasksInArrivalOrder() {
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, manual);
+        for (String t : List.of("a", "b", "c")) submit(mailbox, t, t);
+
+        assertEquals(1, drains.size()); // one drain for the whole backlog
+        runDrains();
+        assertEquals(List.of("a", "b", "c"), ran);
+    }
+
+    @Test
+    void dropNewestRejectsWhenFull() {
+        SessionMailbox mailbox = new SessionMailbox(2, OverflowPolicy.DROP_NEWEST, manual);
+        assertTrue(submit(mailbox, "a", "a"));
+        assertTrue(submit(mailbox, "b", "b"));
+        assertFalse(submit(mailbox, "c", "c"));
+
+        assertEquals(List.of("c"), dropped);
+        runDrains();
+        assertEquals(List.of("a", "b"), ran);
+    }
+
+    @Test
+    void dropOldestMakesRoom() {
+        SessionMailbox mailbox = new SessionMailbox(2, OverflowPolicy.DROP_OLDEST, manual);
+        submit(mailbox, "a", "a");
+        submit(mailbox, "b", "b");
+        assertTrue(submit(mailbox, "c", "c"));
+
+        assertEquals(List.of("a"), dropped);
+        runDrains();
+        assertEquals(List.of("b", "c"), ran);
+    }
+
+    @Test
+    void coalesceReplacesQueuedWorkWithTheSameKey() {
+        SessionMailbox mailbox = new SessionMailbox(2, OverflowPolicy.COALESCE, manual);
+        submit(mailbox, "select", "pick 1");
+        submit(mailbox, "next", "next");
+        assertTrue(submit(mailbox, "select", "pick 2"));
+        assertFalse(submit(mailbox, "back", "back")); // nothing to replace
+
+        assertEquals(List.of("pick 1", "back"), dropped);
+        assertEquals(2, mailbox.pending());
+        runDrains();
+        assertEquals(List.of("next", "pick 2"), ran);
+    }
+
+    @Test
+    void asyncTaskHoldsTheMailboxUntilItsStageCompletes() {
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, manual);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        mailbox.submitAsync("a", () -> {
+            ran.add("a");
+            return slow;
+        }, null);
+        submit(mailbox, "b", "b");
+        runDrains();
+        assertEquals(List.of("a"), ran);
+
+        slow.complete(null);
+        runDrains();
+        assertEquals(List.of("a", "b"), ran);
+    }
+
+    @Test
+    void failingTaskDoesNotStallTheQueue() {
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, manual);
+        mailbox.submit("boom", () -> {
+            throw new IllegalStateException("handler bug");
+        }, null);
+        submit(mailbox, "b", "b");
+        runDrains();
+        assertEquals(List.of("b"), ran);
+    }
+
+    @Test
+    void refusedDrainDropsTheQueuedWorkAndLeavesTheMailboxUsable() {
+        AtomicBoolean refuse = new AtomicBoolean(true);
+        Executor flaky = r -> {
+            if (refuse.get()) throw new RejectedExecutionException("shut down");
+            drains.add(r);
+        };
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, flaky);
+        assertFalse(submit(mailbox, "a", "a"));
+        assertEquals(List.of("a"), dropped);
+        assertEquals(0, mailbox.pending());
+
+        refuse.set(false);
+        assertTrue(submit(mailbox, "b", "b"));
+        runDrains();
+        assertEquals(List.of("b"), ran);
+    }
+
+    @Test
+    void refusedResumeDropsTheWorkQueuedBehindAnAsyncTask() {
+        Executor refusing = r -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, manual, refusing);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        mailbox.submitAsync("a", () -> slow, () -> dropped.add("a"));
+        submit(mailbox, "b", "b");
+        submit(mailbox, "c", "c");
+        runDrains();
+
+        slow.complete(null);
+        assertEquals(List.of("b", "c"), dropped);
+        assertEquals(0, mailbox.pending());
+
+        // Not stuck in the draining state
+        assertTrue(submit(mailbox, "d", "d"));
+        runDrains();
+        assertEquals(List.of("d"), ran);
+    }
+
+    @Test
+    void directMailboxResumesOnTheResumeExecutorNotTheCompletingThread() throws Exception {
+        ArrayDeque<Runnable> resumes = new ArrayDeque<>();
+        SessionMailbox mailbox = new SessionMailbox(8, OverflowPolicy.DROP_NEWEST, SessionMailbox.DIRECT, resumes::add);
+        CompletableFuture<Void> slow = new CompletableFuture<>();
+        mailbox.submitAsync("a", () -> slow, null);
+        List<String> threads = new ArrayList<>();
+        mailbox.submit("b", () -> threads.add(Thread.currentThread().getName()), null);
+
+        Thread completer = new Thread(() -> slow.complete(null), "completer");
+        completer.start();
+        completer.join();
+        assertTrue(threads.isEmpty());
+        assertEquals(1, resumes.size());
+
+        resumes.poll().run();
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+    }
+
+    // -------------------- helpers --------------------
+
+    private boolean submit(SessionMailbox mailbox, String key, String name) {
+        return mailbox.submit(key, () -> ran.add(name), () -> dropped.add(name));
+    }
+
+    private void runDrains() {
+        Runnable r;
+        while ((r = drains.poll()) != null) r.run();
+    }
+}
@@ -0,0 +1,234 @@
+package com.darkmatterservers.rest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundSchedulerTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+    private OutboundScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    @Test
+    void routeBucketLetsABurstThroughThenSpacesRequests() throws Exception {
+        // 2 per 200 ms: a burst of 2, then one every 100 ms
+        scheduler = OutboundScheduler.builder().transport(direct()).routeLimit(2, Duration.ofMillis(200)).build();
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> calls = List.of(
+                send("channel:1", Lane.NORMAL, null, "1"),
+                send("channel:1", Lane.NORMAL, null, "2"),
+                send("channel:1", Lane.NORMAL, null, "3"),
+                send("channel:1", Lane.NORMAL, null, "4"));
+        for (CompletableFuture<String> c : calls) c.get(2, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1", "2", "3", "4"), sent);
+        assertTrue(millis(sentAt.get(1) - start) < 80, "burst was delayed");
+        assertTrue(millis(sentAt.get(2) - sentAt.get(1)) >= 80);
+        assertTrue(millis(sentAt.get(3) - sentAt.get(1)) >= 180);
+    }
+
+    @Test
+    void routesHaveSeparateBuckets() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct()).routeLimit(1, Duration.ofSeconds(10)).build();
+        long start = System.nanoTime();
+        send("channel:1", Lane.NORMAL, null, "1").get(2, TimeUnit.SECONDS);
+        send("channel:2", Lane.NORMAL, null, "2").get(2, TimeUnit.SECONDS);
+        CompletableFuture<String> blocked = send("channel:1", Lane.NORMAL, null, "3");
+
+        assertTrue(millis(System.nanoTime() - start) < 1_000);
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+    }
+
+    @Test
+    void interactionResponsesBypassTheGlobalBucket() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct()).globalLimit(1, Duration.ofSeconds(10)).build();
+        send(null, Lane.NORMAL, null, "first").get(2, TimeUnit.SECONDS);
+        CompletableFuture<String> waiting = send(null, Lane.NORMAL, null, "second");
+        send(null, Lane.INTERACTIVE, null, "ack").get(2, TimeUnit.SECONDS);
+
+        assertFalse(waiting.isDone());
+        assertEquals(List.of("first", "ack"), sent);
+    }
+
+    @Test
+    void interactiveLaneGoesFirst() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct()).routeLimit(1, Duration.ofMillis(200)).build();
+        send("channel:1", Lane.NORMAL, null, "first").get(2, TimeUnit.SECONDS);
+        CompletableFuture<String> bulk = send("channel:1", Lane.BULK, null, "bulk");
+        CompletableFuture<String> interactive = send("channel:1", Lane.INTERACTIVE, null, "interactive");
+        CompletableFuture.allOf(bulk, interactive).get(2, TimeUnit.SECONDS);
+
+        assertEquals(List.of("first", "interactive", "bulk"), sent);
+    }
+
+    @Test
+    void newerRenderSupersedesAQueuedOne() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct()).routeLimit(1, Duration.ofMillis(200)).build();
+        send("channel:1", Lane.NORMAL, null, "first").get(2, TimeUnit.SECONDS);
+        CompletableFuture<String> older = send("channel:1", Lane.NORMAL, "render:9", "page 2");
+        CompletableFuture<String> newer = send("channel:1", Lane.NORMAL, "render:9", "page 3");
+
+        assertThrows(CancellationException.class, () -> older.get(2, TimeUnit.SECONDS));
+        assertEquals("page 3", newer.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "page 3"), sent);
+    }
+
+    @Test
+    void rateLimitedRequestsAreRetriedAfterTheQuietPeriod() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RestTransport limitedOnce = new RestTransport() {
+            @Override
+            public <T> CompletableFuture<T> execute(OutboundRequest<T> request) {
+                if (attempts.incrementAndGet() == 1) return CompletableFuture.failedFuture(new RateLimited());
+                return request.call().get();
+            }
+
+            @Override
+            public long retryAfterMillis(Throwable error) {
+                return error instanceof RateLimited ? 100 : -1;
+            }
+        };
+        scheduler = OutboundScheduler.builder().transport(limitedOnce).build();
+        long start = System.nanoTime();
+
+        assertEquals("x", send("channel:1", Lane.NORMAL, null, "x").get(2, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertTrue(millis(System.nanoTime() - start) >= 90);
+    }
+
+    @Test
+    void rateLimitedRenderIsCancelledWhenANewerOneIsQueued() throws Exception {
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        RestTransport slowThenLimited = new RestTransport() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> CompletableFuture<T> execute(OutboundRequest<T> request) {
+                if (attempts.incrementAndGet() == 1) return (CompletableFuture<T>) inFlight;
+                return request.call().get();
+            }
+
+            @Override
+            public long retryAfterMillis(Throwable error) {
+                return error instanceof RateLimited ? 10 : -1;
+            }
+        };
+        scheduler = OutboundScheduler.builder().transport(slowThenLimited).routeLimit(1, Duration.ofMillis(300)).build();
+        CompletableFuture<String> older = send("channel:1", Lane.NORMAL, "render:9", "page 2");
+        while (attempts.get() == 0) Thread.onSpinWait();
+        CompletableFuture<String> newer = send("channel:1", Lane.NORMAL, "render:9", "page 3");
+        inFlight.completeExceptionally(new RateLimited());
+
+        assertThrows(CancellationException.class, () -> older.get(2, TimeUnit.SECONDS));
+        assertEquals("page 3", newer.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of("page 3"), sent);
+    }
+
+    @Test
+    void fullQueueRejectsAllButInteractiveRequests() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct())
+                .routeLimit(1, Duration.ofSeconds(10)).maxQueued(1).build();
+        send("channel:1", Lane.NORMAL, null, "first").get(2, TimeUnit.SECONDS);
+        send("channel:1", Lane.NORMAL, null, "queued");
+        CompletableFuture<String> rejected = send("channel:1", Lane.BULK, null, "rejected");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals("ack", send(null, Lane.INTERACTIVE, null, "ack").get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void supersedingRequestIsAcceptedWhenARetryOverfilledTheQueue() throws Exception {
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        RestTransport slowThenLimited = new RestTransport() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> CompletableFuture<T> execute(OutboundRequest<T> request) {
+                if (attempts.incrementAndGet() == 1) return (CompletableFuture<T>) inFlight;
+                return request.call().get();
+            }
+
+            @Override
+            public long retryAfterMillis(Throwable error) {
+                return error instanceof RateLimited ? 10 : -1;
+            }
+        };
+        scheduler = OutboundScheduler.builder().transport(slowThenLimited)
+                .routeLimit(1, Duration.ofMillis(200)).maxQueued(1).build();
+        CompletableFuture<String> first = send("channel:1", Lane.NORMAL, null, "first");
+        while (attempts.get() == 0) Thread.onSpinWait();
+        CompletableFuture<String> older = send("channel:1", Lane.NORMAL, "render:9", "page 2");
+        // The retry goes back in on top of the full queue
+        inFlight.completeExceptionally(new RateLimited());
+        while (scheduler.pending().get(Lane.NORMAL) < 2) Thread.onSpinWait();
+
+        CompletableFuture<String> newer = send("channel:1", Lane.NORMAL, "render:9", "page 3");
+        assertThrows(CancellationException.class, () -> older.get(2, TimeUnit.SECONDS));
+        assertEquals("first", first.get(2, TimeUnit.SECONDS));
+        assertEquals("page 3", newer.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "page 3"), sent);
+    }
+
+    @Test
+    void rejectedRequestLeavesTheQueuedOneWithItsKeyAlone() throws Exception {
+        scheduler = OutboundScheduler.builder().transport(direct())
+                .routeLimit(1, Duration.ofMillis(200)).maxQueued(1).build();
+        send("channel:1", Lane.NORMAL, null, "first").get(2, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = send("channel:1", Lane.NORMAL, "render:9", "page 2");
+        CompletableFuture<String> rejected = send("channel:1", Lane.NORMAL, "render:8", "other");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals("page 2", queued.get(2, TimeUnit.SECONDS));
+    }
+
+    // -------------------- helpers --------------------
+
+    private static final class RateLimited extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private RestTransport direct() {
+        return new RestTransport() {
+            @Override
+            public <T> CompletableFuture<T> execute(OutboundRequest<T> request) {
+                return request.call().get();
+            }
+        };
+    }
+
+    private CompletableFuture<String> send(String route, Lane lane, String supersedeKey, String name) {
+        return scheduler.submit(new OutboundRequest<>(route, lane, supersedeKey, () -> {
+            sent.add(name);
+            sentAt.add(System.nanoTime());
+            return CompletableFuture.completedFuture(name);
+        }));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
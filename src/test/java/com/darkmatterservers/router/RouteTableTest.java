@@ -0,0 +1,119 @@
+package com.darkmatterservers.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouteTableTest {
+
+    private static final ComponentHandler NOOP = ctx -> {};
+
+    @Test
+    void plainIdsMatchExactlyWithoutParams() {
+        RouteTable table = RouteTable.builder().add("bytes.next", NOOP).build();
+
+        RouteTable.RouteMatch match = table.match("bytes.next");
+        assertEquals("bytes.next", match.route());
+        assertSame(NOOP, match.handler());
+        assertEquals(Map.of(), match.params());
+        assertNull(table.match("bytes.nex"));
+    }
+
+    @Test
+    void literalRoutesWinOverPlaceholders() {
+        ComponentHandler all = ctx -> {};
+        RouteTable table = RouteTable.builder()
+                .add("shop.buy:{itemId}", NOOP)
+                .add("shop.buy:all", all)
+                .add("shop.{action}:x", NOOP)
+                .build();
+
+        assertSame(all, table.match("shop.buy:all").handler());
+        assertEquals(Map.of("itemId", "sword"), table.match("shop.buy:sword").params());
+        assertEquals("shop.buy:{itemId}", table.match("shop.buy:x").route());
+        assertEquals(Map.of("action", "sell"), table.match("shop.sell:x").params());
+    }
+
+    @Test
+    void templatesSharingAPrefixKeepTheirOwnParams() {
+        RouteTable table = RouteTable.builder()
+                .add("poll.{pollId}.vote", NOOP)
+                .add("poll.{pollId}.close", NOOP)
+                .add("poll.{pollId}.option.{optionId}", NOOP)
+                .build();
+
+        assertEquals("poll.{pollId}.close", table.match("poll.7.close").route());
+        RouteTable.RouteMatch vote = table.match("poll.7.option.3");
+        assertEquals("poll.{pollId}.option.{optionId}", vote.route());
+        assertEquals(Map.of("pollId", "7", "optionId", "3"), vote.params());
+    }
+
+    @Test
+    void captureSkipsStopCharactersOfOtherTemplates() {
+        RouteTable table = RouteTable.builder()
+                .add("a.{x}.b", NOOP)
+                .add("a.{y}-c", NOOP)
+                .build();
+
+        RouteTable.RouteMatch match = table.match("a.foo-bar.b");
+        assertEquals("a.{x}.b", match.route());
+        assertEquals(Map.of("x", "foo-bar"), match.params());
+        assertEquals(Map.of("y", "foo"), table.match("a.foo-c").params());
+    }
+
+    @Test
+    void lastPlaceholderTakesTheRestWhenNoLongerTemplateFits() {
+        RouteTable table = RouteTable.builder()
+                .add("x.{id}", NOOP)
+                .add("x.{id}.edit", NOOP)
+                .build();
+
+        assertEquals("x.{id}.edit", table.match("x.a.edit").route());
+        assertEquals(Map.of("id", "a"), table.match("x.a.edit").params());
+        RouteTable.RouteMatch rest = table.match("x.a.b");
+        assertEquals("x.{id}", rest.route());
+        assertEquals(Map.of("id", "a.b"), rest.params());
+    }
+
+    @Test
+    void missesReturnNull() {
+        RouteTable table = RouteTable.builder()
+                .add("poll.{pollId}.vote", NOOP)
+                .add("shop.buy:{itemId}", NOOP)
+                .build();
+
+        assertNull(table.match("poll.7"));
+        assertNull(table.match("poll.7.vote.extra"));
+        assertNull(table.match("poll..vote"));
+        assertNull(table.match("shop.buy:"));
+        assertNull(table.match("other"));
+        assertNull(RouteTable.empty().match("poll.7.vote"));
+    }
+
+    @Test
+    void rejectsMalformedAndConflictingTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> RouteTable.builder().add("a.{}.b", NOOP).build());
+        assertThrows(IllegalArgumentException.class, () -> RouteTable.builder().add("a.{x}{y}", NOOP).build());
+        assertThrows(IllegalArgumentException.class, () -> RouteTable.builder().add("a.{x}.{x}", NOOP).build());
+        assertThrows(IllegalStateException.class, () -> RouteTable.builder()
+                .add("a.{x}", NOOP).add("a.{y}", NOOP).build());
+    }
+
+    @Test
+    void toBuilderKeepsEveryRoute() {
+        RouteTable table = RouteTable.builder()
+                .add("bytes.next", NOOP)
+                .add("poll.{pollId}.vote", NOOP)
+                .build();
+
+        RouteTable copy = table.toBuilder().add("x.{id}", NOOP).build();
+        assertEquals(3, copy.size());
+        assertEquals("poll.{pollId}.vote", copy.match("poll.1.vote").route());
+        assertEquals("bytes.next", copy.match("bytes.next").route());
+    }
+}
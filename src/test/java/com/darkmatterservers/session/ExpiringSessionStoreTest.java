@@ -0,0 +1,148 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringSessionStoreTest {
+
+    private static final PagedChain CHAIN = new PagedChain.Builder().chainId("test").addPage(new Page("a", "b")).build();
+
+    private final List<String> evicted = new CopyOnWriteArrayList<>();
+    private final Map<String, EvictionCause> causes = new ConcurrentHashMap<>();
+    private ExpiringSessionStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) store.close();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        store = builder().maxSize(2).stripes(1).build();
+        store.put("a", session("a"));
+        store.put("b", session("b"));
+        store.get("a"); // b is now the least recently used
+        store.put("c", session("c"));
+
+        assertEquals(List.of("b"), evicted);
+        assertEquals(EvictionCause.SIZE, causes.get("b"));
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void stripedStoreStaysWithinMaxSize() {
+        store = builder().maxSize(64).stripes(8).build();
+        for (int i = 0; i < 1_000; i++) store.put("user-" + i, session("user-" + i));
+
+        assertEquals(64, store.size());
+        assertEquals(1_000 - 64, evicted.size());
+        assertNotNull(store.get("user-999"));
+    }
+
+    @Test
+    void unevenStripesDoNotEvictBeforeTheStoreIsFull() {
+        store = builder().maxSize(8).stripes(8).build();
+        for (int i = 0; i < 8; i++) store.put("k" + i, session("k" + i)); // several share a stripe
+
+        assertEquals(List.of(), evicted);
+        assertEquals(8, store.size());
+        store.put("k8", session("k8"));
+        assertEquals(8, store.size());
+        assertEquals(1, evicted.size());
+        assertNotNull(store.get("k8"));
+    }
+
+    @Test
+    void putAfterCloseFailsClearly() {
+        store = builder().build();
+        store.close();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> store.put("a", session("a")));
+        assertEquals("Session store is closed", e.getMessage());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void idleSessionsExpire() throws InterruptedException {
+        store = builder().idleTtl(Duration.ofMillis(50)).build();
+        store.put("a", session("a"));
+
+        awaitEviction("a");
+        assertEquals(EvictionCause.IDLE, causes.get("a"));
+        assertNull(store.get("a"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void activeSessionsOutliveTheIdleTtl() throws InterruptedException {
+        store = builder().idleTtl(Duration.ofMillis(100)).build();
+        store.put("a", session("a"));
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(40);
+            assertNotNull(store.get("a"));
+        }
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    void absoluteTtlEvictsEvenActiveSessions() throws InterruptedException {
+        store = builder().idleTtl(Duration.ofMinutes(1)).absoluteTtl(Duration.ofMillis(80)).build();
+        store.put("a", session("a"));
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (store.get("a") != null && System.nanoTime() < deadline) Thread.sleep(10);
+
+        assertNull(store.get("a"));
+        assertEquals(EvictionCause.EXPIRED, causes.get("a"));
+    }
+
+    @Test
+    void removeAndReplaceAreNotEvictions() throws InterruptedException {
+        store = builder().idleTtl(Duration.ofMillis(50)).build();
+        Session first = session("a");
+        store.put("a", first);
+        Session second = session("a");
+        store.put("a", second);
+        assertSame(second, store.remove("a"));
+
+        Thread.sleep(150);
+        assertTrue(evicted.isEmpty());
+    }
+
+    // -------------------- helpers --------------------
+
+    private ExpiringSessionStore.Builder builder() {
+        return ExpiringSessionStore.builder()
+                .wheel(Duration.ofMillis(5), 64)
+                .onEviction((key, session, cause) -> {
+                    evicted.add(key);
+                    causes.put(key, cause);
+                });
+    }
+
+    private static Session session(String userId) {
+        return new Session(CHAIN, new ComponentContext(userId));
+    }
+
+    private void awaitEviction(String key) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!evicted.contains(key) && System.nanoTime() < deadline) Thread.sleep(5);
+        assertTrue(evicted.contains(key), "not evicted: " + key);
+    }
+}
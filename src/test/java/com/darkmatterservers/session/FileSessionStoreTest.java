@@ -0,0 +1,187 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSessionStoreTest {
+
+    private static final PagedChain CHAIN = new PagedChain.Builder().chainId("test")
+            .addPage(new Page("a", "b")).addPage(new Page("c", "d")).addPage(new Page("e", "f")).build();
+
+    // [int magic][int version], then [int length][int crc32][body] per record
+    private static final int HEADER_SIZE = 8;
+    private static final int FRAME_SIZE = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoresSessionsAfterReopen() {
+        Path log = dir.resolve("sessions.log");
+        try (FileSessionStore store = open(log)) {
+            store.put("a", session("a", 2));
+        }
+        try (FileSessionStore store = open(log)) {
+            assertEquals(1, store.persistedCount());
+            Session restored = store.get("a");
+            assertNotNull(restored);
+            assertEquals("a", restored.ctx().userId());
+            assertEquals(2, restored.ctx().getInt(ContextKey.PAGE_INDEX, -1));
+        }
+    }
+
+    @Test
+    void latestUpdateAndRemovalWin() {
+        Path log = dir.resolve("sessions.log");
+        try (FileSessionStore store = open(log)) {
+            Session a = session("a", 0);
+            store.put("a", a);
+            store.put("b", session("b", 0));
+            awaitWriter();
+            a.ctx().putInt(ContextKey.PAGE_INDEX, 1);
+            store.update("a", a);
+            store.remove("b");
+        }
+        try (FileSessionStore store = open(log)) {
+            assertEquals(1, store.get("a").ctx().getInt(ContextKey.PAGE_INDEX, -1));
+            assertNull(store.get("b"));
+        }
+    }
+
+    @Test
+    void replayStopsAtTheFirstCorruptRecord() throws IOException {
+        Path log = dir.resolve("sessions.log");
+        try (FileSessionStore store = open(log)) {
+            store.put("a", session("a", 1));
+        }
+        try (FileSessionStore store = open(log)) {
+            store.put("b", session("b", 2)); // the last record in the log
+        }
+        corruptLastRecord(log);
+
+        try (FileSessionStore store = open(log)) {
+            assertNotNull(store.get("a"));
+            assertNull(store.get("b"));
+            store.put("c", session("c", 0)); // appended where the corrupt record was
+        }
+        try (FileSessionStore store = open(log)) {
+            assertNotNull(store.get("a"));
+            assertNull(store.get("b"));
+            assertNotNull(store.get("c"));
+        }
+    }
+
+    @Test
+    void absoluteTtlCountsAcrossRestarts() throws InterruptedException {
+        Path log = dir.resolve("sessions.log");
+        try (FileSessionStore store = open(log, Duration.ofMillis(100))) {
+            store.put("a", session("a", 0));
+        }
+        Thread.sleep(150);
+        try (FileSessionStore store = open(log, Duration.ofMillis(100))) {
+            assertEquals(0, store.persistedCount());
+            assertNull(store.get("a"));
+        }
+    }
+
+    @Test
+    void compactionKeepsTheLatestRecordOfEveryKey() throws IOException {
+        Path log = dir.resolve("sessions.log");
+        try (FileSessionStore store = open(log, Duration.ZERO, 4096)) {
+            for (int round = 0; round <= 20; round++) {
+                for (int k = 0; k < 20; k++) store.put("k" + k, session("k" + k, round));
+                awaitWriter(); // one record per key and round: the 4 KiB log fills every few rounds
+            }
+        }
+        assertTrue(Files.size(log) <= 16 * 1024, "log was not compacted: " + Files.size(log));
+        assertFalse(Files.exists(log.resolveSibling("sessions.log.compact")));
+        try (FileSessionStore store = open(log, Duration.ZERO, 4096)) {
+            assertEquals(20, store.persistedCount());
+            for (int k = 0; k < 20; k++) assertEquals(20, store.get("k" + k).ctx().getInt(ContextKey.PAGE_INDEX, -1));
+        }
+    }
+
+    @Test
+    void rejectsLogsOfAnotherVersion() throws IOException {
+        Path log = dir.resolve("sessions.log");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(log))) {
+            out.writeInt(0x4542534C); // magic
+            out.writeInt(1);          // first, pre-release format
+            out.writeInt(0);
+        }
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> open(log));
+        assertTrue(e.getCause().getMessage().contains("Unsupported session log version 1"), e.getCause().getMessage());
+    }
+
+    // -------------------- helpers --------------------
+
+    private static FileSessionStore open(Path log) {
+        return open(log, Duration.ZERO);
+    }
+
+    private static FileSessionStore open(Path log, Duration absoluteTtl) {
+        return open(log, absoluteTtl, 64 * 1024);
+    }
+
+    private static FileSessionStore open(Path log, Duration absoluteTtl, long initialSize) {
+        return FileSessionStore.builder(log)
+                .chains(id -> CHAIN.chainId().equals(id) ? CHAIN : null)
+                .initialSize(initialSize)
+                .flushInterval(Duration.ofMillis(10))
+                .absoluteTtl(absoluteTtl)
+                .build();
+    }
+
+    private static Session session(String userId, int page) {
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.putInt(ContextKey.PAGE_INDEX, page);
+        return new Session(CHAIN, ctx);
+    }
+
+    // Lets the writer append what is parked, so later changes become separate records
+    private static void awaitWriter() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Flips a byte in the body of the last record, as a torn write would leave it. */
+    private static void corruptLastRecord(Path log) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            long pos = HEADER_SIZE, last = -1;
+            while (pos + FRAME_SIZE <= file.length()) {
+                file.seek(pos);
+                int len = file.readInt();
+                if (len <= 0) break;
+                last = pos;
+                pos += FRAME_SIZE + len;
+            }
+            long at = last + FRAME_SIZE + 1;
+            file.seek(at);
+            int b = file.read();
+            file.seek(at);
+            file.write(b ^ 0xFF);
+        }
+    }
+}
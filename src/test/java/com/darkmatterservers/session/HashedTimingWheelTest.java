@@ -0,0 +1,75 @@
+package com.darkmatterservers.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private final HashedTimingWheel wheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 8, "test-wheel");
+
+    @AfterEach
+    void close() {
+        wheel.close();
+    }
+
+    @Test
+    void runsTaskNoEarlierThanItsDelay() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicLong ranAt = new AtomicLong();
+        long start = System.nanoTime();
+        wheel.schedule(() -> {
+            ranAt.set(System.nanoTime());
+            ran.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(ranAt.get() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    void waitsOutSeveralRevolutions() throws InterruptedException {
+        // 8 buckets of 5 ms: 100 ms is two and a half turns of the wheel
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(ran::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        HashedTimingWheel.Timeout timeout = wheel.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        Thread.sleep(100);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void ranTaskCannotBeCancelled() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = wheel.schedule(ran::countDown, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void rejectsTasksOnceClosed() {
+        wheel.close();
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> {}, 1, TimeUnit.MILLISECONDS));
+    }
+}
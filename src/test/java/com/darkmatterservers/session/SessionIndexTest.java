@@ -0,0 +1,89 @@
+package com.darkmatterservers.session;
+
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionIndexTest {
+
+    private final SessionIndex index = new SessionIndex(2);
+
+    @Test
+    void trackingBeyondTheCapReturnsTheOldestKeys() {
+        assertTrue(index.track("7", "uc:7:1").isEmpty());
+        assertTrue(index.track("7", "uc:7:2").isEmpty());
+        assertEquals(List.of("uc:7:1"), index.track("7", "uc:7:3"));
+        assertEquals(List.of("uc:7:2", "uc:7:3"), index.keysOf("7"));
+
+        // Other users have their own cap
+        assertTrue(index.track("8", "uc:8:1").isEmpty());
+        assertEquals(2, index.sessionsOf("7"));
+        assertEquals(1, index.sessionsOf("8"));
+    }
+
+    @Test
+    void retrackingMovesAKeyToNewest() {
+        index.track("7", "a");
+        index.track("7", "b");
+        index.track("7", "a");
+        assertEquals(List.of("b"), index.track("7", "c"));
+        assertEquals(List.of("a", "c"), index.keysOf("7"));
+    }
+
+    @Test
+    void loweringTheCapAppliesOnTheNextTrack() {
+        index.track("7", "a");
+        index.track("7", "b");
+        index.maxPerUser(1);
+        assertEquals(List.of("a", "b"), index.track("7", "c"));
+        assertThrows(IllegalArgumentException.class, () -> index.maxPerUser(0));
+    }
+
+    @Test
+    void rekeyReplacesAPendingMessageKey() {
+        index.track("7", "m:pending:1");
+        index.rekey("7", "m:pending:1", "m:99");
+        assertEquals(List.of("m:99"), index.keysOf("7"));
+    }
+
+    @Test
+    void messageBindingsOnlyDropWhenTheyStillPointAtTheKey() {
+        index.bindMessage("99", "7");
+        index.bindMessage("99", "uc:7:42"); // replaced by a newer chain on the same message
+        index.unbindMessage("99", "7");
+        assertEquals("uc:7:42", index.keyForMessage("99"));
+
+        index.unbindMessage("99", "uc:7:42");
+        assertNull(index.keyForMessage("99"));
+        assertNull(index.keyForMessage(null));
+    }
+
+    @Test
+    void evictionForgetsTheSessionAndItsMessage() {
+        Session session = session("7", "99");
+        index.track("7", "7");
+        index.bindMessage("99", "7");
+
+        index.onEviction("7", session, EvictionCause.EXPIRED);
+        assertEquals(0, index.sessionsOf("7"));
+        assertTrue(index.users().isEmpty());
+        assertNull(index.keyForMessage("99"));
+    }
+
+    // -------------------- helpers --------------------
+
+    private static Session session(String userId, String messageId) {
+        ComponentContext ctx = new ComponentContext(userId);
+        ctx.put(ContextKey.MESSAGE_ID, messageId);
+        return new Session(new PagedChain.Builder().chainId("c").addPage(new Page("a", "b")).build(), ctx);
+    }
+}
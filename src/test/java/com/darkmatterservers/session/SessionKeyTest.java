@@ -0,0 +1,53 @@
+package com.darkmatterservers.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionKeyTest {
+
+    @Test
+    void everyScopeGetsItsOwnKeySpace() {
+        assertEquals("7", SessionKey.of(SessionScope.USER, "7", "42", "1").value());
+        assertEquals("uc:7:42", SessionKey.of(SessionScope.USER_CHANNEL, "7", "42", "1").value());
+        assertEquals("gu:1:7", SessionKey.of(SessionScope.GUILD_USER, "7", "42", "1").value());
+        assertEquals("gu:dm:7", SessionKey.guildUser(null, "7").value());
+        assertEquals("m:99", SessionKey.message("7", "99").value());
+    }
+
+    @Test
+    void scopeIsRecoveredFromTheStoreKey() {
+        for (SessionKey key : List.of(SessionKey.user("7"), SessionKey.userChannel("7", "42"),
+                SessionKey.guildUser("1", "7"), SessionKey.message("7", "99"), SessionKey.pendingMessage("7"))) {
+            assertEquals(key.scope(), SessionKey.scopeOf(key.value()), key.value());
+        }
+    }
+
+    @Test
+    void pendingMessageKeysAreUniqueUntilTheMessageExists() {
+        SessionKey a = SessionKey.of(SessionScope.MESSAGE, "7", "42", null);
+        SessionKey b = SessionKey.of(SessionScope.MESSAGE, "7", "42", null);
+        assertNotEquals(a.value(), b.value());
+        assertEquals(SessionScope.MESSAGE, a.scope());
+    }
+
+    @Test
+    void candidatesGoFromTheMostSpecificScopeToTheUser() {
+        List<String> values = Arrays.stream(SessionKey.candidates("7", "99", "42", "1")).map(SessionKey::value).toList();
+        assertEquals(List.of("m:99", "uc:7:42", "gu:1:7", "7"), values);
+    }
+
+    @Test
+    void onlyMessageSessionsAreSharedWithOtherUsers() {
+        assertTrue(SessionScope.MESSAGE.sharedWithOthers());
+        assertFalse(SessionScope.USER.sharedWithOthers());
+        assertFalse(SessionScope.USER_CHANNEL.sharedWithOthers());
+        assertFalse(SessionScope.GUILD_USER.sharedWithOthers());
+    }
+}
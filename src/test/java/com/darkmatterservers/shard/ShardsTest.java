@@ -0,0 +1,146 @@
+package com.darkmatterservers.shard;
+
+import com.darkmatterservers.EclipseBytes;
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ComponentContext;
+import com.darkmatterservers.context.ContextKey;
+import com.darkmatterservers.session.ExpiringSessionStore;
+import com.darkmatterservers.session.Session;
+import com.darkmatterservers.testkit.FakeDiscord;
+import com.darkmatterservers.testkit.RestRecorder.Kind;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardsTest {
+
+    // Two shards; a slot may be replaced (restart) or emptied (disconnected)
+    private final AtomicReferenceArray<FakeDiscord> shards = new AtomicReferenceArray<>(
+            new FakeDiscord[] {new FakeDiscord(), new FakeDiscord()});
+    private final EclipseBytes bytes = new EclipseBytes(fake(), ExpiringSessionStore.builder().build());
+
+    @AfterEach
+    void shutdown() {
+        bytes.shutdown();
+    }
+
+    @Test
+    void guildsMapToShardsWithDiscordsFormula() {
+        long guild = (5L << 22) | 123;
+        assertEquals(1, Shards.shardId(guild, 4));
+        assertEquals(0, Shards.shardId(guild, 1));
+        assertEquals(0, Shards.shardId(123, 2));
+
+        assertSame(shards.get(1).jda(), bytes.shards().forGuild(guild));
+        assertSame(shards.get(0).jda(), bytes.shards().forDms());
+    }
+
+    @Test
+    void singleConnectionIsReadOnEveryCall() {
+        FakeDiscord first = new FakeDiscord();
+        FakeDiscord second = new FakeDiscord();
+        AtomicReference<JDA> ref = new AtomicReference<>(first.jda());
+        Shards single = Shards.single(ref);
+        MessageChannel channel = first.channel("42");
+
+        assertEquals(1, single.total());
+        assertSame(channel, single.channel("42"));
+        ref.set(second.jda());
+        assertSame(second.jda(), single.forGuild(1L << 40));
+        assertNull(single.channel("42"));
+        ref.set(null);
+        assertNull(single.channel("42"));
+    }
+
+    @Test
+    void channelSendsGoThroughTheShardThatKnowsTheChannel() throws InterruptedException {
+        shards.get(1).channel("42");
+        bytes.expireChainMessage(session("42", "900"), "expired");
+
+        await(() -> shards.get(1).rest().count(Kind.CHANNEL_EDIT) == 1);
+        assertEquals(0, shards.get(0).rest().count(Kind.CHANNEL_EDIT));
+    }
+
+    @Test
+    void restartedShardIsUsedByTheNextSend() throws InterruptedException {
+        shards.get(1).channel("42");
+        bytes.expireChainMessage(session("42", "900"), "expired");
+        await(() -> shards.get(1).rest().count(Kind.CHANNEL_EDIT) == 1);
+
+        FakeDiscord restarted = new FakeDiscord();
+        restarted.channel("42");
+        FakeDiscord old = shards.getAndSet(1, restarted);
+        bytes.expireChainMessage(session("42", "901"), "expired");
+
+        await(() -> restarted.rest().count(Kind.CHANNEL_EDIT) == 1);
+        assertEquals(1, old.rest().count(Kind.CHANNEL_EDIT));
+    }
+
+    @Test
+    void dmLaunchesFailWithoutAConnectionOnShardZero() {
+        shards.set(0, null);
+        PagedChain chain = new PagedChain.Builder().chainId("dm").addPage(new Page("a", "b")).build();
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> bytes.startDmPagedChains(List.of("7"), chain).get(2, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    // -------------------- helpers --------------------
+
+    private Shards fake() {
+        return new Shards() {
+            @Override
+            public int total() {
+                return shards.length();
+            }
+
+            @Override
+            public JDA shard(int shardId) {
+                FakeDiscord d = shards.get(shardId);
+                return d != null ? d.jda() : null;
+            }
+
+            @Override
+            public MessageChannel channel(String channelId) {
+                for (int i = 0; i < shards.length(); i++) {
+                    JDA jda = shard(i);
+                    MessageChannel channel = jda != null ? jda.getChannelById(MessageChannel.class, channelId) : null;
+                    if (channel != null) return channel;
+                }
+                return null;
+            }
+        };
+    }
+
+    private static Session session(String channelId, String messageId) {
+        ComponentContext ctx = new ComponentContext("7");
+        ctx.put(ContextKey.CHANNEL_ID, channelId);
+        ctx.put(ContextKey.MESSAGE_ID, messageId);
+        return new Session(new PagedChain.Builder().chainId("c").addPage(new Page("a", "b")).build(), ctx);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(2);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.darkmatterservers.stateless;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatelessCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String USER = "123456789012345678";
+    private static final long NOW = 1_790_000_000_000L;
+
+    private final StatelessCodec codec = new StatelessCodec(SECRET, Duration.ofMinutes(10));
+    private final StatelessCodec.State state = new StatelessCodec.State("shop", 3, "next", Arrays.asList("red", null, "xl"));
+
+    @Test
+    void roundTripsForTheUserItWasIssuedTo() {
+        String id = codec.encode(state, USER, NOW);
+        assertTrue(StatelessCodec.isStateless(id));
+        assertTrue(id.length() <= StatelessCodec.MAX_ID_LENGTH);
+
+        StatelessCodec.State decoded = codec.decode(id, USER, NOW + 1_000);
+        assertNotNull(decoded);
+        assertEquals("shop", decoded.chainId());
+        assertEquals(3, decoded.pageIndex());
+        assertEquals("next", decoded.componentId());
+        assertEquals(List.of("red", "xl"), decoded.values().stream().filter(v -> v != null).toList());
+    }
+
+    @Test
+    void rejectsOtherUsers() {
+        String id = codec.encode(state, USER, NOW);
+        assertNull(codec.decode(id, "999999999999999999", NOW));
+        assertNull(codec.decode(id, null, NOW));
+    }
+
+    @Test
+    void expiresAfterTheTtl() {
+        String id = codec.encode(state, USER, NOW);
+        assertNotNull(codec.decode(id, USER, NOW + Duration.ofMinutes(10).toMillis()));
+        assertNull(codec.decode(id, USER, NOW + Duration.ofMinutes(10).toMillis() + 1_000));
+    }
+
+    @Test
+    void rejectsTamperingAndOtherSecrets() {
+        String id = codec.encode(state, USER, NOW);
+        char last = id.charAt(id.length() - 1);
+        String tampered = id.substring(0, id.length() - 1) + (last == 'A' ? 'B' : 'A');
+        assertNull(codec.decode(tampered, USER, NOW));
+
+        byte[] other = SECRET.clone();
+        other[0] ^= 1;
+        assertNull(new StatelessCodec(other).decode(id, USER, NOW));
+        assertNull(codec.decode("plain-id", USER, NOW));
+    }
+}
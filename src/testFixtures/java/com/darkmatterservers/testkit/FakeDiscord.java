@@ -0,0 +1,167 @@
+package com.darkmatterservers.testkit;
+
+import com.darkmatterservers.dispatch.InteractionDedupe;
+import com.darkmatterservers.testkit.RestRecorder.Kind;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.components.buttons.ButtonInteraction;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectInteraction;
+import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
+import net.dv8tion.jda.api.requests.restaction.MessageEditAction;
+import net.dv8tion.jda.api.requests.restaction.WebhookMessageEditAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.MessageEditCallbackAction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An offline stand-in for the Discord gateway and REST API, built from {@link Stubs}.
+ * <p>
+ * Channels accept message sends and edits; interaction events answer deferEdit, message
+ * edits and hook edits. Every REST call completes immediately and is counted by the
+ * {@link RestRecorder} together with the time the originating click was created, so a
+ * driver can measure click-to-response latency of the library alone.
+ * <p>
+ * Message ids are handed out from a counter; {@link #lastMessageId(String)} tells which
+ * message a channel shows last, i.e. where the next click on a chain should land.
+ */
+@SuppressWarnings("unused")
+public final class FakeDiscord {
+
+    private final RestRecorder rest = new RestRecorder();
+    private final AtomicLong messageIds = new AtomicLong(1_000_000L);
+    private final AtomicLong interactionSeq = new AtomicLong();
+    private final Map<String, MessageChannel> channels = new ConcurrentHashMap<>();
+    private final Map<String, String> lastMessage = new ConcurrentHashMap<>();
+    private final JDA jda;
+
+    public FakeDiscord() {
+        Map<String, Object> api = new HashMap<>();
+        api.put("getChannelById", (Stubs.Answer) args -> channels.get(String.valueOf(args[args.length - 1])));
+        api.put("getPrivateChannelById", null);
+        this.jda = Stubs.stub(JDA.class, api);
+    }
+
+    public RestRecorder rest() {
+        return rest;
+    }
+
+    /** A JDA whose getChannelById finds the channels created here. */
+    public JDA jda() {
+        return jda;
+    }
+
+    /** The channel with this (numeric) id; created on first use. */
+    public MessageChannel channel(String channelId) {
+        return channels.computeIfAbsent(channelId, this::newChannel);
+    }
+
+    /** Id of the last message sent to the channel, or null if none was sent yet. */
+    public String lastMessageId(String channelId) {
+        return lastMessage.get(channelId);
+    }
+
+    /** A button click by the user on the message; its latency clock starts now. */
+    public ButtonInteractionEvent click(String userId, String channelId, String messageId, String componentId) {
+        Map<String, Object> in = interaction(userId, channelId, messageId, componentId, System.nanoTime());
+        return new ButtonInteractionEvent(jda, 0L, Stubs.stub(ButtonInteraction.class, in));
+    }
+
+    /** A dropdown pick by the user on the message; its latency clock starts now. */
+    public StringSelectInteractionEvent select(String userId, String channelId, String messageId, String componentId, String... values) {
+        Map<String, Object> in = interaction(userId, channelId, messageId, componentId, System.nanoTime());
+        in.put("getValues", List.of(values));
+        return new StringSelectInteractionEvent(jda, 0L, Stubs.stub(StringSelectInteraction.class, in));
+    }
+
+    // -------------------- internals --------------------
+
+    private MessageChannel newChannel(String channelId) {
+        MessageChannelUnion union = channelUnion(channelId);
+        Stubs.Answer send = args -> Stubs.action(MessageCreateAction.class, null, () -> {
+            String id = Long.toString(messageIds.incrementAndGet());
+            lastMessage.put(channelId, id);
+            rest.record(Kind.SEND, 0L);
+            return message(id, union);
+        });
+        Stubs.Answer edit = args -> Stubs.action(MessageEditAction.class, null, () -> {
+            rest.record(Kind.CHANNEL_EDIT, 0L);
+            return message(String.valueOf(args[0]), union);
+        });
+
+        Map<String, Object> ch = new HashMap<>();
+        ch.put("getId", channelId);
+        ch.put("getIdLong", Long.parseLong(channelId));
+        ch.put("sendMessage", send);
+        ch.put("sendMessageEmbeds", send);
+        ch.put("editMessageById", edit);
+        ch.put("editMessageEmbedsById", edit);
+        return Stubs.stub(MessageChannel.class, ch);
+    }
+
+    private static MessageChannelUnion channelUnion(String channelId) {
+        Map<String, Object> ch = new HashMap<>();
+        ch.put("getId", channelId);
+        ch.put("getIdLong", Long.parseLong(channelId));
+        return Stubs.stub(MessageChannelUnion.class, ch);
+    }
+
+    private static Message message(String messageId, MessageChannelUnion channel) {
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("getId", messageId);
+        msg.put("getIdLong", Long.parseLong(messageId));
+        msg.put("getChannel", channel);
+        return Stubs.stub(Message.class, msg);
+    }
+
+    private Map<String, Object> interaction(String userId, String channelId, String messageId, String componentId, long clickNanos) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("getId", userId);
+        user.put("getIdLong", Long.parseLong(userId));
+
+        // editMessage*(...) on the event is deferEdit().set*(...), so a touched builder is an edit
+        Stubs.Answer deferEdit = args -> {
+            AtomicBoolean modified = new AtomicBoolean();
+            return Stubs.action(MessageEditCallbackAction.class, modified, () -> {
+                rest.record(modified.get() ? Kind.EDIT : Kind.ACK, clickNanos);
+                return null;
+            });
+        };
+        Stubs.Answer hookEdit = args -> Stubs.action(WebhookMessageEditAction.class, null, () -> {
+            rest.record(Kind.HOOK_EDIT, clickNanos);
+            return null;
+        });
+        Map<String, Object> hook = new HashMap<>();
+        hook.put("editOriginal", hookEdit);
+        hook.put("editOriginalEmbeds", hookEdit);
+        hook.put("editOriginalComponents", hookEdit);
+
+        // Real snowflakes, so the runtime's replay filter treats every click as new and fresh
+        long interactionId = ((System.currentTimeMillis() - InteractionDedupe.DISCORD_EPOCH_MILLIS) << 22)
+                | (interactionSeq.incrementAndGet() & 0x3FFFFF);
+
+        Map<String, Object> in = new HashMap<>();
+        in.put("getId", Long.toString(interactionId));
+        in.put("getIdLong", interactionId);
+        in.put("getComponentId", componentId);
+        in.put("getUser", Stubs.stub(User.class, user));
+        in.put("getMessageId", messageId);
+        in.put("getMessageIdLong", Long.parseLong(messageId));
+        in.put("getChannel", channelUnion(channelId));
+        in.put("getGuild", null);
+        in.put("deferEdit", deferEdit);
+        in.put("getHook", Stubs.stub(InteractionHook.class, hook));
+        in.put("getToken", "token-" + interactionId);
+        return in;
+    }
+}
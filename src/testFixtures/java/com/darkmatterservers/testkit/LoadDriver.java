@@ -0,0 +1,266 @@
+package com.darkmatterservers.testkit;
+
+import com.darkmatterservers.EclipseBytes;
+import com.darkmatterservers.builder.Buttons;
+import com.darkmatterservers.builder.Dropdowns;
+import com.darkmatterservers.chain.Page;
+import com.darkmatterservers.chain.PagedChain;
+import com.darkmatterservers.context.ContextKey;
+import com.darkmatterservers.rest.OutboundScheduler;
+import com.darkmatterservers.session.ExpiringSessionStore;
+import com.darkmatterservers.testkit.RestRecorder.Kind;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a {@link LoadProfile} against a real EclipseBytes instance wired to a
+ * {@link FakeDiscord}, entirely offline.
+ * <p>
+ * Phases: start one chain per user and wait until every first message was sent
+ * (heap per session is measured here), warm up for a fifth of the duration (at most
+ * 5s), then measure. Outbound rate limits are lifted, so the numbers show the library's
+ * own cost; Discord's limits would cap a real bot far earlier.
+ * <p>
+ * Run with {@code gradle loadTest -PloadArgs="users=50000 seconds=30 rate=20000"}.
+ */
+@SuppressWarnings("unused")
+public final class LoadDriver {
+
+    private static final String DROPDOWN_ID = "region";
+    private static final int DROPDOWN_OPTIONS = 25;
+    private static final long USER_ID_BASE = 100_000_000_000L;
+    private static final long CHANNEL_ID_BASE = 200_000_000_000L;
+
+    private final LoadProfile profile;
+    private final FakeDiscord discord = new FakeDiscord();
+    private final PagedChain chain;
+    private final String[] options;
+
+    // Click-to-response samples in nanos, kept while measuring
+    private final Samples responses = new Samples();
+    private final Samples renders = new Samples();
+    private volatile boolean measuring;
+
+    // Users who walked away; each worker only touches its own slice
+    private boolean[] abandoned;
+
+    public LoadDriver(LoadProfile profile) {
+        this(profile, demoChain());
+    }
+
+    /** Drives the given chain; it should wire back/next/done and show dropdown "region" on every page. */
+    public LoadDriver(LoadProfile profile, PagedChain chain) {
+        this.profile = profile;
+        this.chain = chain;
+        this.options = new String[DROPDOWN_OPTIONS];
+        for (int i = 0; i < options.length; i++) options[i] = "Option " + i;
+    }
+
+    /** Three pages with back/next/done and a 25-option dropdown each that records the pick. */
+    public static PagedChain demoChain() {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < DROPDOWN_OPTIONS; i++) options.add("Option " + i);
+        PagedChain.Builder b = new PagedChain.Builder().chainId("LoadTest");
+        for (int i = 0; i < 3; i++) {
+            b.addPage(new Page("Step " + (i + 1), "Pick what suits you best.")
+                    .withButton(0, Buttons.back())
+                    .withButton(1, Buttons.next())
+                    .withButton(2, Buttons.done())
+                    .withDropdown(Dropdowns.dropdown(DROPDOWN_ID, "Region", options)));
+        }
+        return b.on(DROPDOWN_ID, ctx -> Dropdowns.markSelected(ctx, DROPDOWN_ID, ctx.get(ContextKey.INTERACTION_VALUE)))
+                .wireNavigation(Buttons.ID_BACK, Buttons.ID_NEXT, Buttons.ID_DONE)
+                .build();
+    }
+
+    public LoadReport run() throws InterruptedException {
+        int users = profile.users();
+        abandoned = new boolean[users];
+        EclipseBytes bytes = new EclipseBytes(new AtomicReference<>(discord.jda()),
+                ExpiringSessionStore.builder()
+                        .maxSize(users * 2)
+                        .idleTtl(Duration.ofHours(1))
+                        .build());
+        bytes.configureOutbound(OutboundScheduler.builder()
+                .globalLimit(1_000_000, Duration.ofSeconds(1))
+                .routeLimit(1_000_000, Duration.ofSeconds(1))
+                .maxQueued(Integer.MAX_VALUE)
+                .build());
+        discord.rest().listener(this::onRestCall);
+
+        try {
+            for (int u = 0; u < users; u++) discord.channel(channelId(u));
+            long heapBefore = usedHeap();
+            for (int u = 0; u < users; u++) bytes.startChannelPagedChain(userId(u), discord.channel(channelId(u)), chain);
+            awaitSends(users, Duration.ofMinutes(2));
+            long heapPerSession = Math.max(0, usedHeap() - heapBefore) / users;
+
+            long warmupNanos = Math.min(TimeUnit.SECONDS.toNanos(5), profile.duration().toNanos() / 5);
+            drive(bytes, warmupNanos, profile.seed() ^ 0x5DEECE66DL);
+
+            discord.rest().reset();
+            measuring = true;
+            long start = System.nanoTime();
+            long clicks = drive(bytes, profile.duration().toNanos(), profile.seed());
+            Thread.sleep(200); // let the last responses leave the outbound queue
+            measuring = false;
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Map<Kind, Long> calls = discord.rest().snapshot();
+            long answered = calls.get(Kind.EDIT) + calls.get(Kind.ACK) + calls.get(Kind.HOOK_EDIT);
+            return new LoadReport(clicks, answered, answered / seconds,
+                    responses.percentile(0.50) / 1e3, responses.percentile(0.99) / 1e3,
+                    renders.percentile(0.50) / 1e3, renders.percentile(0.99) / 1e3,
+                    clicks == 0 ? 0 : (double) discord.rest().total() / clicks,
+                    heapPerSession, calls);
+        } finally {
+            bytes.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        LoadProfile profile = LoadProfile.parse(options);
+        System.out.println("🚀 Load test: " + profile);
+        System.out.println(new LoadDriver(profile).run());
+    }
+
+    // -------------------- internals --------------------
+
+    /** Clicks at the profile's rate for the given time; returns the number of clicks sent. */
+    private long drive(EclipseBytes bytes, long durationNanos, long seed) throws InterruptedException {
+        int threads = profile.threads();
+        LongAdder clicks = new LongAdder();
+        List<Thread> workers = new ArrayList<>(threads);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long deadline = System.nanoTime() + durationNanos;
+
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) profile.users() * t / threads);
+            int to = (int) ((long) profile.users() * (t + 1) / threads);
+            SplittableRandom random = seeds.split();
+            Thread worker = new Thread(() -> clickLoop(bytes, from, to, random, deadline, clicks), "load-driver-" + t);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread w : workers) w.join();
+        return clicks.sum();
+    }
+
+    private void clickLoop(EclipseBytes bytes, int from, int to, SplittableRandom random, long deadline, LongAdder clicks) {
+        if (from >= to) return;
+        long interval = (long) (1e9 * profile.threads() / profile.clicksPerSecond());
+        int left = 0;
+        for (int u = from; u < to; u++) if (!abandoned[u]) left++;
+        long next = System.nanoTime();
+
+        while (left > 0) {
+            long now = System.nanoTime();
+            if (now - deadline >= 0) return;
+            if (next - now > 0) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            next += interval;
+
+            int u = from + random.nextInt(to - from);
+            while (abandoned[u]) u = u + 1 < to ? u + 1 : from;
+            String userId = userId(u);
+            String channelId = channelId(u);
+            String messageId = discord.lastMessageId(channelId);
+            if (messageId == null) continue; // restart still in flight
+
+            double roll = random.nextDouble();
+            if (roll < profile.dropdownRate()) {
+                String value = options[random.nextInt(options.length)];
+                bytes.handleDropdownInteraction(discord.select(userId, channelId, messageId, DROPDOWN_ID, value));
+            } else if (roll < profile.dropdownRate() + profile.doneRate()) {
+                bytes.handleButtonInteraction(discord.click(userId, channelId, messageId, Buttons.ID_DONE));
+                bytes.startChannelPagedChain(userId, discord.channel(channelId), chain);
+            } else {
+                String button = random.nextBoolean() ? Buttons.ID_NEXT : Buttons.ID_BACK;
+                bytes.handleButtonInteraction(discord.click(userId, channelId, messageId, button));
+            }
+            clicks.increment();
+
+            if (random.nextDouble() < profile.abandonRate()) {
+                abandoned[u] = true;
+                left--;
+            }
+        }
+    }
+
+    private void onRestCall(Kind kind, long clickNanos, long nowNanos) {
+        if (!measuring || clickNanos == 0L) return;
+        long latency = nowNanos - clickNanos;
+        switch (kind) {
+            case EDIT, HOOK_EDIT -> {
+                responses.add(latency);
+                renders.add(latency);
+            }
+            case ACK -> responses.add(latency);
+            default -> { }
+        }
+    }
+
+    private void awaitSends(int expected, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (discord.rest().count(Kind.SEND) < expected) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException("Only " + discord.rest().count(Kind.SEND) + " of " + expected + " chains started");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static String userId(int u) {
+        return Long.toString(USER_ID_BASE + u);
+    }
+
+    private static String channelId(int u) {
+        return Long.toString(CHANNEL_ID_BASE + u);
+    }
+
+    /** Growable array of latency samples; percentiles sort a copy. */
+    private static final class Samples {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void add(long v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        synchronized double percentile(double p) {
+            if (size == 0) return 0;
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(size - 1, Math.ceil(p * size) - 1)];
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.darkmatterservers.testkit;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Simulated user behavior for {@link LoadDriver}.
+ * <p>
+ * Every user runs one chain in a channel of their own. Clicks are spread evenly across
+ * the worker threads and go to random users; each click is a dropdown pick with
+ * {@code dropdownRate}, "done" with {@code doneRate} (the user then starts a new chain),
+ * and back/next otherwise. After each click the user walks away with {@code abandonRate}
+ * and leaves their session to expire.
+ */
+@SuppressWarnings("unused")
+public final class LoadProfile {
+
+    private final int users;
+    private final Duration duration;
+    private final int clicksPerSecond;
+    private final int threads;
+    private final double abandonRate;
+    private final double dropdownRate;
+    private final double doneRate;
+    private final long seed;
+
+    private LoadProfile(Builder b) {
+        this.users = b.users;
+        this.duration = b.duration;
+        this.clicksPerSecond = b.clicksPerSecond;
+        this.threads = b.threads;
+        this.abandonRate = b.abandonRate;
+        this.dropdownRate = b.dropdownRate;
+        this.doneRate = b.doneRate;
+        this.seed = b.seed;
+    }
+
+    public int users() { return users; }
+    public Duration duration() { return duration; }
+    public int clicksPerSecond() { return clicksPerSecond; }
+    public int threads() { return threads; }
+    public double abandonRate() { return abandonRate; }
+    public double dropdownRate() { return dropdownRate; }
+    public double doneRate() { return doneRate; }
+    public long seed() { return seed; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads {@code key=value} pairs (users, seconds, rate, threads, abandon, dropdown, done,
+     * seed) on top of the defaults, e.g. from the command line.
+     */
+    public static LoadProfile parse(Map<String, String> args) {
+        Builder b = builder();
+        args.forEach((k, v) -> {
+            switch (k) {
+                case "users" -> b.users(Integer.parseInt(v));
+                case "seconds" -> b.duration(Duration.ofSeconds(Long.parseLong(v)));
+                case "rate" -> b.clicksPerSecond(Integer.parseInt(v));
+                case "threads" -> b.threads(Integer.parseInt(v));
+                case "abandon" -> b.abandonRate(Double.parseDouble(v));
+                case "dropdown" -> b.dropdownRate(Double.parseDouble(v));
+                case "done" -> b.doneRate(Double.parseDouble(v));
+                case "seed" -> b.seed(Long.parseLong(v));
+                default -> throw new IllegalArgumentException("Unknown load option: " + k);
+            }
+        });
+        return b.build();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d users, %ds, %,d clicks/s on %d threads, abandon=%.3f dropdown=%.2f done=%.3f seed=%d",
+                users, duration.toSeconds(), clicksPerSecond, threads, abandonRate, dropdownRate, doneRate, seed);
+    }
+
+    public static final class Builder {
+        private int users = 10_000;
+        private Duration duration = Duration.ofSeconds(10);
+        private int clicksPerSecond = 5_000;
+        private int threads = 4;
+        private double abandonRate = 0.01;
+        private double dropdownRate = 0.2;
+        private double doneRate = 0.02;
+        private long seed = 42L;
+
+        public Builder users(int users) {
+            if (users <= 0) throw new IllegalArgumentException("users must be > 0");
+            this.users = users;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            if (duration.isZero() || duration.isNegative()) throw new IllegalArgumentException("duration must be > 0");
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder clicksPerSecond(int clicksPerSecond) {
+            if (clicksPerSecond <= 0) throw new IllegalArgumentException("clicksPerSecond must be > 0");
+            this.clicksPerSecond = clicksPerSecond;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder abandonRate(double abandonRate) {
+            this.abandonRate = probability("abandonRate", abandonRate);
+            return this;
+        }
+
+        public Builder dropdownRate(double dropdownRate) {
+            this.dropdownRate = probability("dropdownRate", dropdownRate);
+            return this;
+        }
+
+        public Builder doneRate(double doneRate) {
+            this.doneRate = probability("doneRate", doneRate);
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public LoadProfile build() {
+            if (dropdownRate + doneRate > 1.0) throw new IllegalArgumentException("dropdownRate + doneRate must be <= 1");
+            return new LoadProfile(this);
+        }
+
+        private static double probability(String name, double p) {
+            if (p < 0 || p > 1) throw new IllegalArgumentException(name + " must be within [0, 1]");
+            return p;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.darkmatterservers.testkit;
+
+import java.util.Map;
+
+/**
+ * Outcome of one {@link LoadDriver} run.
+ *
+ * @param clicks          interactions delivered to EclipseBytes
+ * @param responses       interaction responses (edits and acks) Discord received
+ * @param throughput      responses per second over the measured phase
+ * @param responseP50Micros / responseP99Micros click to first response (edit or ack)
+ * @param renderP50Micros / renderP99Micros click to a response that changed the message
+ * @param restPerClick    REST calls of any kind (incl. restarts) per interaction
+ * @param heapPerSession  retained heap per started session, in bytes (after full GC; approximate)
+ * @param restCalls       REST calls by kind
+ */
+public record LoadReport(long clicks, long responses, double throughput,
+                         double responseP50Micros, double responseP99Micros,
+                         double renderP50Micros, double renderP99Micros,
+                         double restPerClick, long heapPerSession,
+                         Map<RestRecorder.Kind, Long> restCalls) {
+
+    @Override
+    public String toString() {
+        return String.format("""
+                clicks          %,d
+                responses       %,d (%,.0f/s)
+                response p50/99 %,.1f / %,.1f µs
+                render   p50/99 %,.1f / %,.1f µs
+                REST per click  %.3f %s
+                heap / session  %,d B""",
+                clicks, responses, throughput,
+                responseP50Micros, responseP99Micros,
+                renderP50Micros, renderP99Micros,
+                restPerClick, restCalls, heapPerSession);
+    }
+}
@@ -0,0 +1,69 @@
+package com.darkmatterservers.testkit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the REST calls the fake gateway received, by kind, and forwards each one with
+ * the originating click's timestamp to an optional listener (for latency measurements).
+ */
+@SuppressWarnings("unused")
+public final class RestRecorder {
+
+    public enum Kind {
+        /** New message in a channel. */
+        SEND,
+        /** Interaction response that edits the clicked message. */
+        EDIT,
+        /** Interaction response without changes (deferEdit). */
+        ACK,
+        /** Edit of the original message through the interaction hook. */
+        HOOK_EDIT,
+        /** Edit of a message by id outside an interaction (e.g. expiring a chain). */
+        CHANNEL_EDIT
+    }
+
+    /** Receives every call; clickNanos is 0 for calls not caused by a click. */
+    @FunctionalInterface
+    public interface Listener {
+        void onCall(Kind kind, long clickNanos, long nowNanos);
+    }
+
+    private final Map<Kind, LongAdder> counts = new EnumMap<>(Kind.class);
+    private volatile Listener listener;
+
+    public RestRecorder() {
+        for (Kind k : Kind.values()) counts.put(k, new LongAdder());
+    }
+
+    public void listener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void record(Kind kind, long clickNanos) {
+        counts.get(kind).increment();
+        Listener l = listener;
+        if (l != null) l.onCall(kind, clickNanos, System.nanoTime());
+    }
+
+    public long count(Kind kind) {
+        return counts.get(kind).sum();
+    }
+
+    public long total() {
+        long n = 0;
+        for (LongAdder a : counts.values()) n += a.sum();
+        return n;
+    }
+
+    public Map<Kind, Long> snapshot() {
+        Map<Kind, Long> out = new EnumMap<>(Kind.class);
+        counts.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    public void reset() {
+        counts.values().forEach(LongAdder::reset);
+    }
+}
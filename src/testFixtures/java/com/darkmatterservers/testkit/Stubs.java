@@ -0,0 +1,116 @@
+package com.darkmatterservers.testkit;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Minimal dynamic-proxy stubs for JDA interfaces, enough to drive EclipseBytes offline.
+ * <p>
+ * Methods answer, in order: an explicit answer by method name; {@code this} for fluent
+ * builder calls (return type implemented by the stub); a completed future for
+ * {@code submit()}; a nested stub for other interface return types (deep stubs);
+ * zero/false/null otherwise. {@code queue(success)} invokes the callback with the result.
+ * <p>
+ * Unlike a mocking library this needs nothing beyond the JDK, so the fakes in this
+ * package work the same from benchmarks and load drivers.
+ */
+public final class Stubs {
+
+    // Answers key holding the "a setter was called" flag of action(type, modified, onExecute)
+    private static final String SETTER_FLAG = "\u0000modified";
+
+    /** Computed answer; plain values are returned as-is. */
+    @FunctionalInterface
+    public interface Answer {
+        Object answer(Object[] args);
+    }
+
+    private Stubs() {}
+
+    public static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        Map<Class<?>, Object> deep = new HashMap<>();
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (p, m, args) -> invoke(p, m, args, answers, deep));
+        return type.cast(proxy);
+    }
+
+    /** A RestAction-like stub whose submit/queue yield the result. */
+    public static <T> T action(Class<T> type, Object result) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("result", result);
+        return stub(type, answers);
+    }
+
+    /**
+     * A RestAction-like stub that calls {@code onExecute} when submitted or queued and
+     * yields its return value. {@code modified} (may be null) is set once any setter
+     * ({@code set*} / {@code apply*}) was called on the builder, e.g. to tell a plain
+     * {@code deferEdit()} from {@code editMessageEmbeds(...)}, which JDA builds on top of it.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T action(Class<T> type, AtomicBoolean modified, Supplier<?> onExecute) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("submit", (Answer) args -> CompletableFuture.completedFuture(onExecute.get()));
+        answers.put("queue", (Answer) args -> {
+            Object result = onExecute.get();
+            if (args != null && args.length > 0 && args[0] instanceof Consumer<?> success) {
+                ((Consumer<Object>) success).accept(result);
+            }
+            return null;
+        });
+        if (modified != null) answers.put(SETTER_FLAG, modified);
+        return stub(type, answers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object invoke(Object proxy, Method m, Object[] args, Map<String, Object> answers, Map<Class<?>, Object> deep) {
+        String name = m.getName();
+        switch (name) {
+            case "equals" -> { return args != null && proxy == args[0]; }
+            case "hashCode" -> { return System.identityHashCode(proxy); }
+            case "toString" -> { return "Stub[" + m.getDeclaringClass().getSimpleName() + "]"; }
+            default -> { }
+        }
+
+        if (answers.get(SETTER_FLAG) instanceof AtomicBoolean flag && (name.startsWith("set") || name.startsWith("apply"))) {
+            flag.set(true);
+        }
+        if (answers.containsKey(name)) {
+            Object a = answers.get(name);
+            return a instanceof Answer answer ? answer.answer(args) : a;
+        }
+        if (name.equals("submit")) return CompletableFuture.completedFuture(answers.get("result"));
+        if (name.equals("queue")) {
+            if (args != null && args.length > 0 && args[0] instanceof Consumer<?> success) {
+                ((Consumer<Object>) success).accept(answers.get("result"));
+            }
+            return null;
+        }
+
+        Class<?> rt = m.getReturnType();
+        if (rt == void.class) return null;
+        if (rt.isInstance(proxy)) return proxy;
+        if (rt.isPrimitive()) {
+            if (rt == boolean.class) return false;
+            if (rt == long.class) return 0L;
+            if (rt == int.class) return 0;
+            if (rt == double.class) return 0d;
+            if (rt == float.class) return 0f;
+            if (rt == short.class) return (short) 0;
+            if (rt == byte.class) return (byte) 0;
+            return (char) 0;
+        }
+        if (rt.isInterface()) {
+            synchronized (deep) {
+                return deep.computeIfAbsent(rt, t -> stub(t, Map.of()));
+            }
+        }
+        return null;
+    }
+}